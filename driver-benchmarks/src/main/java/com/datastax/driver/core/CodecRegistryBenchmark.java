@@ -0,0 +1,66 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import com.google.common.reflect.TypeToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures codec lookups in a {@link CodecRegistry}, as performed for each value that is bound
+ * or read without an explicit codec.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodecRegistryBenchmark {
+
+    private static final TypeToken<List<String>> LIST_OF_STRING = new TypeToken<List<String>>() {
+    };
+
+    private final CodecRegistry registry = new CodecRegistry();
+    private final DataType listOfVarchar = DataType.list(DataType.varchar());
+
+    @Benchmark
+    public TypeCodec<?> primitiveByCqlType() {
+        return registry.codecFor(DataType.cint());
+    }
+
+    @Benchmark
+    public TypeCodec<?> primitiveByCqlAndJavaType() {
+        return registry.codecFor(DataType.cint(), Integer.class);
+    }
+
+    @Benchmark
+    public TypeCodec<?> primitiveByValue() {
+        return registry.codecFor(42);
+    }
+
+    @Benchmark
+    public TypeCodec<?> collectionByCqlType() {
+        return registry.codecFor(listOfVarchar);
+    }
+
+    @Benchmark
+    public TypeCodec<?> collectionByCqlAndJavaType() {
+        return registry.codecFor(listOfVarchar, LIST_OF_STRING);
+    }
+}
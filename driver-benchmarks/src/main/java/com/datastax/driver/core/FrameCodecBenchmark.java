@@ -0,0 +1,94 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the encoding of requests and the decoding of responses through the same Netty handlers
+ * as a connection's pipeline ({@link Frame.Encoder}/{@link Frame.Decoder} and
+ * {@link Message.ProtocolEncoder}/{@link Message.ProtocolDecoder}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FrameCodecBenchmark {
+
+    private static final ProtocolVersion VERSION = ProtocolVersion.NEWEST_SUPPORTED;
+
+    @Param({"1", "100"})
+    public int rowCount;
+
+    private EmbeddedChannel channel;
+    private Requests.Query query;
+    private ByteBuf responseFrame;
+
+    @Setup
+    public void setup() {
+        channel = new EmbeddedChannel(
+                new Frame.Decoder(),
+                new Frame.Encoder(),
+                new Message.ProtocolDecoder(),
+                new Message.ProtocolEncoder(VERSION));
+        channel.attr(Message.CODEC_REGISTRY_ATTRIBUTE_KEY).set(new CodecRegistry());
+
+        query = new Requests.Query("SELECT id, i, l, s FROM ks.benchmark WHERE id = 5b6962dd-3f90-4c93-8f61-eabfa4a803e2");
+
+        ByteBuf body = RowsDecodingBenchmark.rowsBody(rowCount);
+        responseFrame = Unpooled.buffer();
+        responseFrame.writeByte(0x80 | VERSION.toInt()); // response direction
+        responseFrame.writeByte(0); // flags
+        responseFrame.writeShort(1); // stream id
+        responseFrame.writeByte(Message.Response.Type.RESULT.opcode);
+        responseFrame.writeInt(body.readableBytes());
+        responseFrame.writeBytes(body);
+        body.release();
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finish();
+        responseFrame.release();
+    }
+
+    @Benchmark
+    public int encodeQuery() {
+        channel.writeOutbound(query);
+        int size = 0;
+        ByteBuf buf;
+        // The frame encoder outputs the header and the body as separate buffers
+        while ((buf = (ByteBuf) channel.readOutbound()) != null) {
+            size += buf.readableBytes();
+            buf.release();
+        }
+        return size;
+    }
+
+    @Benchmark
+    public Object decodeRows() {
+        // the decoder releases its input
+        channel.writeInbound(responseFrame.duplicate().retain());
+        return channel.readInbound();
+    }
+}
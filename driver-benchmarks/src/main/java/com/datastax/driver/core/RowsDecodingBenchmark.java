@@ -0,0 +1,104 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the decoding of the body of a ROWS response (metadata and row data), as well as
+ * reading all of its values through the public {@link Row} API.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RowsDecodingBenchmark {
+
+    private static final ProtocolVersion VERSION = ProtocolVersion.NEWEST_SUPPORTED;
+
+    @Param({"1", "100", "5000"})
+    public int rowCount;
+
+    private final CodecRegistry codecRegistry = new CodecRegistry();
+    private ByteBuf body;
+
+    @Setup
+    public void setup() {
+        body = rowsBody(rowCount);
+    }
+
+    @TearDown
+    public void tearDown() {
+        body.release();
+    }
+
+    @Benchmark
+    public Responses.Result decode() {
+        return Responses.Result.decoder.decode(body.duplicate(), VERSION, codecRegistry);
+    }
+
+    @Benchmark
+    public long decodeAndReadValues() {
+        Responses.Result rows = Responses.Result.decoder.decode(body.duplicate(), VERSION, codecRegistry);
+        // Rows are consumed as they are read, so the result set can't be reused across invocations
+        ResultSet rs = ArrayBackedResultSet.fromMessage(rows, null, VERSION, null, null);
+        long checksum = 0;
+        for (Row row : rs) {
+            checksum += row.getUUID(0).getLeastSignificantBits();
+            checksum += row.getInt(1);
+            checksum += row.getLong(2);
+            checksum += row.getString(3).length();
+        }
+        return checksum;
+    }
+
+    /**
+     * Builds the body of a RESULT message of kind ROWS, with columns {@code (id uuid, i int, l bigint, s varchar)}.
+     */
+    static ByteBuf rowsBody(int rowCount) {
+        ByteBuf body = Unpooled.buffer();
+        body.writeInt(2); // kind: ROWS
+        body.writeInt(0x0001); // flags: GLOBAL_TABLES_SPEC
+        body.writeInt(4); // column count
+        CBUtil.writeString("ks", body);
+        CBUtil.writeString("benchmark", body);
+        writeColumn("id", DataType.Name.UUID, body);
+        writeColumn("i", DataType.Name.INT, body);
+        writeColumn("l", DataType.Name.BIGINT, body);
+        writeColumn("s", DataType.Name.VARCHAR, body);
+
+        body.writeInt(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            CBUtil.writeValue(TypeCodec.uuid().serialize(UUID.randomUUID(), VERSION), body);
+            CBUtil.writeValue(TypeCodec.cint().serialize(i, VERSION), body);
+            CBUtil.writeValue(TypeCodec.bigint().serialize((long) i, VERSION), body);
+            CBUtil.writeValue(TypeCodec.varchar().serialize("value" + i, VERSION), body);
+        }
+        return body;
+    }
+
+    private static void writeColumn(String name, DataType.Name type, ByteBuf body) {
+        CBUtil.writeString(name, body);
+        body.writeShort(type.protocolId);
+    }
+}
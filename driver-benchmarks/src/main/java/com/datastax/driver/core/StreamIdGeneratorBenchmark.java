@@ -0,0 +1,58 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the acquisition and release of stream ids, which happens for each request sent on a
+ * connection.
+ * <p/>
+ * Run with {@code -t} to measure contention between threads sharing the same connection.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamIdGeneratorBenchmark {
+
+    @Param({"V2", "V4"})
+    public ProtocolVersion version;
+
+    @Param({"0", "100"})
+    public int alreadyInUse;
+
+    private StreamIdGenerator generator;
+
+    @Setup
+    public void setup() {
+        generator = StreamIdGenerator.newInstance(version);
+        // Simulate a connection that already has requests in flight
+        for (int i = 0; i < alreadyInUse; i++)
+            generator.next();
+    }
+
+    @Benchmark
+    public int nextAndRelease() {
+        int id = generator.next();
+        generator.release(id);
+        return id;
+    }
+}
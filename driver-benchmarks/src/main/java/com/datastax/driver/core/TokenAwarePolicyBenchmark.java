@@ -0,0 +1,119 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import com.datastax.driver.core.policies.RoundRobinPolicy;
+import com.datastax.driver.core.policies.TokenAwarePolicy;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.mockito.Answers;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures the computation (and full iteration) of query plans by {@link TokenAwarePolicy},
+ * against a real token map built from a simulated ring. Each query plan is computed for a
+ * new statement, so the measure includes hashing the routing key.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenAwarePolicyBenchmark {
+
+    private static final int KEY_COUNT = 1024;
+
+    @Param({"3", "30"})
+    public int nodes;
+
+    @Param({"1", "256"})
+    public int tokensPerNode;
+
+    @Param({"false", "true"})
+    public boolean shuffleReplicas;
+
+    private TokenAwarePolicy policy;
+    private ByteBuffer[] routingKeys;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Cluster.Manager manager = mock(Cluster.Manager.class);
+        Metadata metadata = new Metadata(manager);
+        metadata.keyspaces.put("ks", new KeyspaceMetadata("ks", true,
+                ImmutableMap.of("class", "SimpleStrategy", "replication_factor", "3")));
+
+        Random random = new Random(0);
+        List<Host> hosts = new ArrayList<Host>();
+        Map<Host, Set<Token>> allTokens = new HashMap<Host, Set<Token>>();
+        for (int i = 0; i < nodes; i++) {
+            Host host = new Host(new InetSocketAddress(String.format("127.0.%d.%d", i / 250, i % 250 + 1), 9042),
+                    new ConvictionPolicy.DefaultConvictionPolicy.Factory(), manager);
+            host.setUp();
+            hosts.add(host);
+            Set<Token> tokens = new HashSet<Token>();
+            for (int j = 0; j < tokensPerNode; j++)
+                tokens.add(Token.M3PToken.FACTORY.fromString(Long.toString(random.nextLong())));
+            allTokens.put(host, ImmutableSet.copyOf(tokens));
+        }
+        metadata.rebuildTokenMap(Token.M3PToken.FACTORY, allTokens);
+
+        Cluster cluster = mock(Cluster.class, Answers.RETURNS_DEEP_STUBS.get());
+        when(cluster.getMetadata()).thenReturn(metadata);
+
+        policy = new TokenAwarePolicy(new RoundRobinPolicy(), shuffleReplicas);
+        policy.init(cluster, hosts);
+
+        routingKeys = new ByteBuffer[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++)
+            routingKeys[i] = TypeCodec.cint().serialize(i, ProtocolVersion.NEWEST_SUPPORTED);
+    }
+
+    @Benchmark
+    public Host firstHost() {
+        return policy.newQueryPlan("ks", nextStatement()).next();
+    }
+
+    @Benchmark
+    public int fullPlan() {
+        int count = 0;
+        Iterator<Host> plan = policy.newQueryPlan("ks", nextStatement());
+        while (plan.hasNext()) {
+            plan.next();
+            count += 1;
+        }
+        return count;
+    }
+
+    private Statement nextStatement() {
+        // Cycle through keys so that the benchmark doesn't always hit the same replicas, and use a new statement each
+        // time, as a statement caches its routing token and a reused one would skip the token computation
+        next = (next + 1) % KEY_COUNT;
+        return new SimpleStatement("SELECT * FROM ks.benchmark WHERE k = ?", next)
+                .setRoutingKey(routingKeys[next].duplicate())
+                .setKeyspace("ks")
+                .setConsistencyLevel(ConsistencyLevel.ONE);
+    }
+}
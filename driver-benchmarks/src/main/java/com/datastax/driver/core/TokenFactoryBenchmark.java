@@ -0,0 +1,62 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the hashing of partition keys into tokens, which is done for each request routed by
+ * {@link com.datastax.driver.core.policies.TokenAwarePolicy}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenFactoryBenchmark {
+
+    @Param({"8", "16", "64"})
+    public int keySize;
+
+    private ByteBuffer key;
+
+    @Setup
+    public void setup() {
+        byte[] bytes = new byte[keySize];
+        for (int i = 0; i < keySize; i++)
+            bytes[i] = (byte) i;
+        key = ByteBuffer.wrap(bytes);
+    }
+
+    @Benchmark
+    public Token murmur3Hash() {
+        return Token.M3PToken.FACTORY.hash(key);
+    }
+
+    @Benchmark
+    public long murmur3HashToLong() {
+        return Token.M3PToken.hashToLong(key);
+    }
+
+    @Benchmark
+    public Token randomHash() {
+        return Token.RPToken.FACTORY.hash(key);
+    }
+}
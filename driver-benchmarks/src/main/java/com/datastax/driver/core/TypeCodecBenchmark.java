@@ -0,0 +1,106 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link TypeCodec#serialize(Object, ProtocolVersion)} and
+ * {@link TypeCodec#deserialize(ByteBuffer, ProtocolVersion)} for the built-in codecs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TypeCodecBenchmark {
+
+    private static final ProtocolVersion VERSION = ProtocolVersion.NEWEST_SUPPORTED;
+
+    @Param({"int", "bigint", "double", "boolean", "varchar", "uuid", "timestamp", "blob",
+            "list<int>", "set<varchar>", "map<varchar,bigint>"})
+    public String type;
+
+    private TypeCodec<Object> codec;
+    private Object value;
+    private ByteBuffer bytes;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        TypeCodec<?> codec;
+        Object value;
+        if (type.equals("int")) {
+            codec = TypeCodec.cint();
+            value = 42;
+        } else if (type.equals("bigint")) {
+            codec = TypeCodec.bigint();
+            value = 42L;
+        } else if (type.equals("double")) {
+            codec = TypeCodec.cdouble();
+            value = 42.0;
+        } else if (type.equals("boolean")) {
+            codec = TypeCodec.cboolean();
+            value = true;
+        } else if (type.equals("varchar")) {
+            codec = TypeCodec.varchar();
+            value = "The quick brown fox jumps over the lazy dog";
+        } else if (type.equals("uuid")) {
+            codec = TypeCodec.uuid();
+            value = UUID.randomUUID();
+        } else if (type.equals("timestamp")) {
+            codec = TypeCodec.timestamp();
+            value = new Date();
+        } else if (type.equals("blob")) {
+            codec = TypeCodec.blob();
+            value = ByteBuffer.wrap(new byte[128]);
+        } else if (type.equals("list<int>")) {
+            codec = TypeCodec.list(TypeCodec.cint());
+            value = ImmutableList.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        } else if (type.equals("set<varchar>")) {
+            codec = TypeCodec.set(TypeCodec.varchar());
+            value = ImmutableSet.of("a", "bb", "ccc", "dddd", "eeeee");
+        } else if (type.equals("map<varchar,bigint>")) {
+            codec = TypeCodec.map(TypeCodec.varchar(), TypeCodec.bigint());
+            value = ImmutableMap.of("a", 1L, "bb", 2L, "ccc", 3L, "dddd", 4L, "eeeee", 5L);
+        } else {
+            throw new IllegalArgumentException("Unsupported type " + type);
+        }
+        this.codec = (TypeCodec<Object>) codec;
+        this.value = value;
+        this.bytes = this.codec.serialize(value, VERSION);
+    }
+
+    @Benchmark
+    public ByteBuffer serialize() {
+        return codec.serialize(value, VERSION);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        // deserialize does not consume the buffer, so it can be reused across invocations
+        return codec.deserialize(bytes, VERSION);
+    }
+}
@@ -193,6 +193,30 @@ abstract class AbstractAddressableByIndexData<T extends SettableByIndexData<T>>
         return setValue(i, codecFor(i, TypeTokens.listOf(elementsType)).serialize(v, protocolVersion));
     }
 
+    @Override
+    public T setIntArray(int i, int[] v) {
+        checkListType(i, DataType.cint());
+        return setValue(i, PrimitiveArrays.writeInts(v, protocolVersion));
+    }
+
+    @Override
+    public T setLongArray(int i, long[] v) {
+        checkListType(i, DataType.bigint());
+        return setValue(i, PrimitiveArrays.writeLongs(v, protocolVersion));
+    }
+
+    @Override
+    public T setFloatArray(int i, float[] v) {
+        checkListType(i, DataType.cfloat());
+        return setValue(i, PrimitiveArrays.writeFloats(v, protocolVersion));
+    }
+
+    @Override
+    public T setDoubleArray(int i, double[] v) {
+        checkListType(i, DataType.cdouble());
+        return setValue(i, PrimitiveArrays.writeDoubles(v, protocolVersion));
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public <K, V> T setMap(int i, Map<K, V> v) {
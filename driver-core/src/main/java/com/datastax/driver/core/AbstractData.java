@@ -392,6 +392,62 @@ abstract class AbstractData<T extends SettableData<T>> extends AbstractGettableD
         return wrapped;
     }
 
+    @Override
+    public T setIntArray(int i, int[] v) {
+        checkListType(i, DataType.cint());
+        return setValue(i, PrimitiveArrays.writeInts(v, protocolVersion));
+    }
+
+    @Override
+    public T setLongArray(int i, long[] v) {
+        checkListType(i, DataType.bigint());
+        return setValue(i, PrimitiveArrays.writeLongs(v, protocolVersion));
+    }
+
+    @Override
+    public T setFloatArray(int i, float[] v) {
+        checkListType(i, DataType.cfloat());
+        return setValue(i, PrimitiveArrays.writeFloats(v, protocolVersion));
+    }
+
+    @Override
+    public T setDoubleArray(int i, double[] v) {
+        checkListType(i, DataType.cdouble());
+        return setValue(i, PrimitiveArrays.writeDoubles(v, protocolVersion));
+    }
+
+    @Override
+    public T setIntArray(String name, int[] v) {
+        for (int i : getAllIndexesOf(name)) {
+            setIntArray(i, v);
+        }
+        return wrapped;
+    }
+
+    @Override
+    public T setLongArray(String name, long[] v) {
+        for (int i : getAllIndexesOf(name)) {
+            setLongArray(i, v);
+        }
+        return wrapped;
+    }
+
+    @Override
+    public T setFloatArray(String name, float[] v) {
+        for (int i : getAllIndexesOf(name)) {
+            setFloatArray(i, v);
+        }
+        return wrapped;
+    }
+
+    @Override
+    public T setDoubleArray(String name, double[] v) {
+        for (int i : getAllIndexesOf(name)) {
+            setDoubleArray(i, v);
+        }
+        return wrapped;
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public <K, V> T setMap(int i, Map<K, V> v) {
@@ -573,8 +629,8 @@ abstract class AbstractData<T extends SettableData<T>> extends AbstractGettableD
             if (!thisType.equals(thatType))
                 return false;
 
-            Object thisValue = this.codecFor(i).deserialize(this.values[i], this.protocolVersion);
-            Object thatValue = that.codecFor(i).deserialize(that.values[i], that.protocolVersion);
+            Object thisValue = this.codecFor(i).deserialize(this.getValue(i), this.protocolVersion);
+            Object thatValue = that.codecFor(i).deserialize(that.getValue(i), that.protocolVersion);
             if (!Objects.equal(thisValue, thatValue))
                 return false;
         }
@@ -586,7 +642,7 @@ abstract class AbstractData<T extends SettableData<T>> extends AbstractGettableD
         // Same as equals
         int hash = 31;
         for (int i = 0; i < values.length; i++)
-            hash += values[i] == null ? 1 : codecFor(i).deserialize(values[i], protocolVersion).hashCode();
+            hash += getValue(i) == null ? 1 : codecFor(i).deserialize(getValue(i), protocolVersion).hashCode();
         return hash;
     }
 }
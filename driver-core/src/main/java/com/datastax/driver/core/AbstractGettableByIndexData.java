@@ -83,6 +83,12 @@ abstract class AbstractGettableByIndexData implements GettableByIndexData {
             throw new InvalidTypeException(String.format("Value %s is of type %s, not %s", getName(i), expected, actual));
     }
 
+    protected void checkListType(int i, DataType elementType) {
+        DataType expected = getType(i);
+        if (expected.getName() != DataType.Name.LIST || !expected.getTypeArguments().get(0).equals(elementType))
+            throw new InvalidTypeException(String.format("Value %s is of type %s, not %s", getName(i), expected, DataType.list(elementType)));
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -298,6 +304,42 @@ abstract class AbstractGettableByIndexData implements GettableByIndexData {
         return codecFor(i, javaType).deserialize(value, protocolVersion);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int[] getIntArray(int i) {
+        checkListType(i, DataType.cint());
+        return PrimitiveArrays.readInts(getValue(i), protocolVersion);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long[] getLongArray(int i) {
+        checkListType(i, DataType.bigint());
+        return PrimitiveArrays.readLongs(getValue(i), protocolVersion);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public float[] getFloatArray(int i) {
+        checkListType(i, DataType.cfloat());
+        return PrimitiveArrays.readFloats(getValue(i), protocolVersion);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getDoubleArray(int i) {
+        checkListType(i, DataType.cdouble());
+        return PrimitiveArrays.readDoubles(getValue(i), protocolVersion);
+    }
+
     /**
      * {@inheritDoc}
      */
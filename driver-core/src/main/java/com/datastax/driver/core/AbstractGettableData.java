@@ -207,6 +207,38 @@ public abstract class AbstractGettableData extends AbstractGettableByIndexData i
         return getList(getIndexOf(name), elementsType);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int[] getIntArray(String name) {
+        return getIntArray(getIndexOf(name));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long[] getLongArray(String name) {
+        return getLongArray(getIndexOf(name));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public float[] getFloatArray(String name) {
+        return getFloatArray(getIndexOf(name));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getDoubleArray(String name) {
+        return getDoubleArray(getIndexOf(name));
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -31,14 +31,12 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.LinkedBlockingDeque;
 
 /**
- * Default implementation of a result set, backed by an ArrayDeque of ArrayList.
+ * Default implementation of a result set, backed by {@link RowsPage}s.
  */
 abstract class ArrayBackedResultSet implements ResultSet {
 
     private static final Logger logger = LoggerFactory.getLogger(ResultSet.class);
 
-    private static final Queue<List<ByteBuffer>> EMPTY_QUEUE = new ArrayDeque<List<ByteBuffer>>(0);
-
     protected final ColumnDefinitions metadata;
     protected final Token.Factory tokenFactory;
     private final boolean wasApplied;
@@ -46,12 +44,12 @@ abstract class ArrayBackedResultSet implements ResultSet {
     protected final ProtocolVersion protocolVersion;
     protected final CodecRegistry codecRegistry;
 
-    private ArrayBackedResultSet(ColumnDefinitions metadata, Token.Factory tokenFactory, List<ByteBuffer> firstRow, ProtocolVersion protocolVersion, CodecRegistry codecRegistry) {
+    private ArrayBackedResultSet(ColumnDefinitions metadata, Token.Factory tokenFactory, RowsPage firstPage, ProtocolVersion protocolVersion, CodecRegistry codecRegistry) {
         this.metadata = metadata;
         this.protocolVersion = protocolVersion;
         this.codecRegistry = codecRegistry;
         this.tokenFactory = tokenFactory;
-        this.wasApplied = checkWasApplied(firstRow, metadata, protocolVersion);
+        this.wasApplied = checkWasApplied(firstPage, metadata, protocolVersion);
     }
 
     static ArrayBackedResultSet fromMessage(Responses.Result msg, SessionManager session, ProtocolVersion protocolVersion, ExecutionInfo info, Statement statement) {
@@ -113,7 +111,7 @@ abstract class ArrayBackedResultSet implements ResultSet {
 
     private static ArrayBackedResultSet empty(ExecutionInfo info) {
         // We could pass the protocol version but we know we won't need it so passing a bogus value (null)
-        return new SinglePage(ColumnDefinitions.EMPTY, null, null, null, EMPTY_QUEUE, info);
+        return new SinglePage(ColumnDefinitions.EMPTY, null, null, null, RowsPage.EMPTY, info);
     }
 
     @Override
@@ -170,16 +168,16 @@ abstract class ArrayBackedResultSet implements ResultSet {
 
     private static class SinglePage extends ArrayBackedResultSet {
 
-        private final Queue<List<ByteBuffer>> rows;
+        private final RowsPage rows;
         private final ExecutionInfo info;
 
         private SinglePage(ColumnDefinitions metadata,
                            Token.Factory tokenFactory,
                            ProtocolVersion protocolVersion,
                            CodecRegistry codecRegistry,
-                           Queue<List<ByteBuffer>> rows,
+                           RowsPage rows,
                            ExecutionInfo info) {
-            super(metadata, tokenFactory, rows.peek(), protocolVersion, codecRegistry);
+            super(metadata, tokenFactory, rows, protocolVersion, codecRegistry);
             this.info = info;
             this.rows = rows;
         }
@@ -191,7 +189,7 @@ abstract class ArrayBackedResultSet implements ResultSet {
 
         @Override
         public Row one() {
-            return ArrayBackedRow.fromData(metadata, tokenFactory, protocolVersion, rows.poll());
+            return ArrayBackedRow.fromPage(metadata, tokenFactory, protocolVersion, rows, rows.poll());
         }
 
         @Override
@@ -222,8 +220,8 @@ abstract class ArrayBackedResultSet implements ResultSet {
 
     private static class MultiPage extends ArrayBackedResultSet {
 
-        private Queue<List<ByteBuffer>> currentPage;
-        private final Queue<Queue<List<ByteBuffer>>> nextPages = new ConcurrentLinkedQueue<Queue<List<ByteBuffer>>>();
+        private RowsPage currentPage;
+        private final Queue<RowsPage> nextPages = new ConcurrentLinkedQueue<RowsPage>();
 
         private final Deque<ExecutionInfo> infos = new LinkedBlockingDeque<ExecutionInfo>();
 
@@ -248,7 +246,7 @@ abstract class ArrayBackedResultSet implements ResultSet {
                           Token.Factory tokenFactory,
                           ProtocolVersion protocolVersion,
                           CodecRegistry codecRegistry,
-                          Queue<List<ByteBuffer>> rows,
+                          RowsPage rows,
                           ExecutionInfo info,
                           ByteBuffer pagingState,
                           SessionManager session) {
@@ -256,7 +254,7 @@ abstract class ArrayBackedResultSet implements ResultSet {
             // Note: as of Cassandra 2.1.0, it turns out that the result of a CAS update is never paged, so
             // we could hard-code the result of wasApplied in this class to "true". However, we can not be sure
             // that this will never change, so apply the generic check by peeking at the first row.
-            super(metadata, tokenFactory, rows.peek(), protocolVersion, codecRegistry);
+            super(metadata, tokenFactory, rows, protocolVersion, codecRegistry);
             this.currentPage = rows;
             this.infos.offer(info);
 
@@ -273,13 +271,13 @@ abstract class ArrayBackedResultSet implements ResultSet {
         @Override
         public Row one() {
             prepareNextRow();
-            return ArrayBackedRow.fromData(metadata, tokenFactory, protocolVersion, currentPage.poll());
+            return ArrayBackedRow.fromPage(metadata, tokenFactory, protocolVersion, currentPage, currentPage.poll());
         }
 
         @Override
         public int getAvailableWithoutFetching() {
             int available = currentPage.size();
-            for (Queue<List<ByteBuffer>> page : nextPages)
+            for (RowsPage page : nextPages)
                 available += page.size();
             return available;
         }
@@ -296,7 +294,7 @@ abstract class ArrayBackedResultSet implements ResultSet {
                 // Grab the current state now to get a consistent view in this iteration.
                 FetchingState fetchingState = this.fetchState;
 
-                Queue<List<ByteBuffer>> nextPage = nextPages.poll();
+                RowsPage nextPage = nextPages.poll();
                 if (nextPage != null) {
                     currentPage = nextPage;
                     continue;
@@ -445,10 +443,11 @@ abstract class ArrayBackedResultSet implements ResultSet {
 
     // This method checks the value of the "[applied]" column manually, to avoid instantiating an ArrayBackedRow
     // object that we would throw away immediately.
-    private static boolean checkWasApplied(List<ByteBuffer> firstRow, ColumnDefinitions metadata, ProtocolVersion protocolVersion) {
+    private static boolean checkWasApplied(RowsPage firstPage, ColumnDefinitions metadata, ProtocolVersion protocolVersion) {
         // If the column is not present or not a boolean, we assume the query
         // was not a conditional statement, and therefore return true.
-        if (firstRow == null)
+        int firstRow = firstPage.peek();
+        if (firstRow < 0)
             return true;
         int[] is = metadata.findAllIdx("[applied]");
         if (is == null)
@@ -458,7 +457,7 @@ abstract class ArrayBackedResultSet implements ResultSet {
             return true;
 
         // Otherwise return the value of the column
-        ByteBuffer value = firstRow.get(i);
+        ByteBuffer value = firstPage.getValue(firstRow, i);
         if (value == null || value.remaining() == 0)
             return false;
 
@@ -22,7 +22,9 @@ import java.util.List;
 import java.util.regex.Pattern;
 
 /**
- * Implementation of a Row backed by an ArrayList.
+ * Implementation of a Row backed by a {@link RowsPage}.
+ * <p/>
+ * A row is only a cursor over its page: its values are read from the page bytes when accessed.
  */
 class ArrayBackedRow extends AbstractGettableData implements Row {
 
@@ -35,20 +37,29 @@ class ArrayBackedRow extends AbstractGettableData implements Row {
 
     private final ColumnDefinitions metadata;
     private final Token.Factory tokenFactory;
-    private final List<ByteBuffer> data;
+    private final RowsPage page;
+    private final int row;
 
-    private ArrayBackedRow(ColumnDefinitions metadata, Token.Factory tokenFactory, ProtocolVersion protocolVersion, List<ByteBuffer> data) {
+    private ArrayBackedRow(ColumnDefinitions metadata, Token.Factory tokenFactory, ProtocolVersion protocolVersion, RowsPage page, int row) {
         super(protocolVersion);
         this.metadata = metadata;
         this.tokenFactory = tokenFactory;
-        this.data = data;
+        this.page = page;
+        this.row = row;
     }
 
     static Row fromData(ColumnDefinitions metadata, Token.Factory tokenFactory, ProtocolVersion protocolVersion, List<ByteBuffer> data) {
         if (data == null)
             return null;
 
-        return new ArrayBackedRow(metadata, tokenFactory, protocolVersion, data);
+        return new ArrayBackedRow(metadata, tokenFactory, protocolVersion, RowsPage.fromValues(data), 0);
+    }
+
+    static Row fromPage(ColumnDefinitions metadata, Token.Factory tokenFactory, ProtocolVersion protocolVersion, RowsPage page, int row) {
+        if (row < 0)
+            return null;
+
+        return new ArrayBackedRow(metadata, tokenFactory, protocolVersion, page, row);
     }
 
     @Override
@@ -68,7 +79,7 @@ class ArrayBackedRow extends AbstractGettableData implements Row {
 
     @Override
     protected ByteBuffer getValue(int i) {
-        return data.get(i);
+        return page.getValue(row, i);
     }
 
     @Override
@@ -88,7 +99,7 @@ class ArrayBackedRow extends AbstractGettableData implements Row {
 
         checkType(i, tokenFactory.getTokenType().getName());
 
-        ByteBuffer value = data.get(i);
+        ByteBuffer value = page.getValue(row, i);
         if (value == null || value.remaining() == 0)
             return null;
 
@@ -118,7 +129,7 @@ class ArrayBackedRow extends AbstractGettableData implements Row {
         for (int i = 0; i < metadata.size(); i++) {
             if (i != 0)
                 sb.append(", ");
-            ByteBuffer bb = data.get(i);
+            ByteBuffer bb = page.getValue(row, i);
             if (bb == null)
                 sb.append("NULL");
             else
@@ -98,7 +98,7 @@ public class BatchStatement extends Statement {
                 assert statement instanceof BoundStatement;
                 BoundStatement st = (BoundStatement) statement;
                 idAndVals.ids.add(st.statement.getPreparedId().id);
-                idAndVals.values.add(Arrays.asList(st.wrapper.values));
+                idAndVals.values.add(st.wrapper.valueList());
             }
         }
         return idAndVals;
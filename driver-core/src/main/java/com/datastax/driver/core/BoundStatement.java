@@ -17,6 +17,7 @@ package com.datastax.driver.core;
 
 import com.datastax.driver.core.exceptions.InvalidTypeException;
 import com.google.common.reflect.TypeToken;
+import io.netty.buffer.ByteBuf;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -65,6 +66,11 @@ public class BoundStatement extends Statement implements SettableData<BoundState
 
     private ByteBuffer routingKey;
 
+    // The routing key computed from the values of the partition key, until one of them is rebound. This keeps the
+    // same buffer across calls, even for unboxed values that are serialized on demand, so that the routing token
+    // cached by the parent class can be reused.
+    private ByteBuffer computedRoutingKey;
+
     /**
      * Creates a new {@code BoundStatement} from the provided prepared
      * statement.
@@ -191,14 +197,14 @@ public class BoundStatement extends Statement implements SettableData<BoundState
         for (int i = 0; i < values.length; i++) {
             Object value = values[i];
             if (value == null) {
-                wrapper.values[i] = null;
+                wrapper.setValue(i, null);
             } else {
                 ProtocolVersion protocolVersion = statement.getPreparedId().protocolVersion;
                 if (value instanceof Token)
                     // bypass CodecRegistry for token values
-                    wrapper.values[i] = ((Token) value).serialize(protocolVersion);
+                    wrapper.setValue(i, ((Token) value).serialize(protocolVersion));
                 else
-                    wrapper.values[i] = wrapper.codecFor(i, value).serialize(value, protocolVersion);
+                    wrapper.setValue(i, wrapper.codecFor(i, value).serialize(value, protocolVersion));
             }
         }
         return this;
@@ -220,7 +226,8 @@ public class BoundStatement extends Statement implements SettableData<BoundState
      * <p/>
      * Note that if the routing key has been set through {@link BoundStatement#setRoutingKey}, then that takes
      * precedence. If the routing key has been set through {@link PreparedStatement#setRoutingKey} then that is used
-     * next. If neither of those are set then it is computed.
+     * next. If neither of those are set then it is computed. The computed key is cached until one of the partition key
+     * variables is rebound.
      *
      * @param protocolVersion unused by this implementation (no internal serialization is required to compute the key).
      * @param codecRegistry   unused by this implementation (no internal serialization is required to compute the key).
@@ -238,18 +245,21 @@ public class BoundStatement extends Statement implements SettableData<BoundState
 
         int[] rkIndexes = statement.getPreparedId().routingKeyIndexes;
         if (rkIndexes != null) {
+            if (computedRoutingKey != null)
+                return computedRoutingKey;
             if (rkIndexes.length == 1) {
-                return wrapper.values[rkIndexes[0]];
+                computedRoutingKey = wrapper.getValue(rkIndexes[0]);
             } else {
                 ByteBuffer[] components = new ByteBuffer[rkIndexes.length];
                 for (int i = 0; i < components.length; ++i) {
-                    ByteBuffer value = wrapper.values[rkIndexes[i]];
+                    ByteBuffer value = wrapper.getValue(rkIndexes[i]);
                     if (value == null)
                         return null;
                     components[i] = value;
                 }
-                return SimpleStatement.compose(components);
+                computedRoutingKey = SimpleStatement.compose(components);
             }
+            return computedRoutingKey;
         }
         return null;
     }
@@ -267,9 +277,25 @@ public class BoundStatement extends Statement implements SettableData<BoundState
      */
     public BoundStatement setRoutingKey(ByteBuffer routingKey) {
         this.routingKey = routingKey;
+        resetRoutingToken();
         return this;
     }
 
+    // Discards the routing key and token computed from the previous values if the i-th variable is part of the
+    // partition key
+    private void routingValueChanged(int i) {
+        int[] rkIndexes = statement.getPreparedId().routingKeyIndexes;
+        if (rkIndexes == null)
+            return;
+        for (int rkIndex : rkIndexes) {
+            if (rkIndex == i) {
+                computedRoutingKey = null;
+                resetRoutingToken();
+                return;
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -676,6 +702,70 @@ public class BoundStatement extends Statement implements SettableData<BoundState
         return wrapper.setList(name, v, elementsType);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BoundStatement setIntArray(int i, int[] v) {
+        return wrapper.setIntArray(i, v);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BoundStatement setIntArray(String name, int[] v) {
+        return wrapper.setIntArray(name, v);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BoundStatement setLongArray(int i, long[] v) {
+        return wrapper.setLongArray(i, v);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BoundStatement setLongArray(String name, long[] v) {
+        return wrapper.setLongArray(name, v);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BoundStatement setFloatArray(int i, float[] v) {
+        return wrapper.setFloatArray(i, v);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BoundStatement setFloatArray(String name, float[] v) {
+        return wrapper.setFloatArray(name, v);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BoundStatement setDoubleArray(int i, double[] v) {
+        return wrapper.setDoubleArray(i, v);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BoundStatement setDoubleArray(String name, double[] v) {
+        return wrapper.setDoubleArray(name, v);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -1188,6 +1278,70 @@ public class BoundStatement extends Statement implements SettableData<BoundState
         return wrapper.getList(name, elementsType);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int[] getIntArray(int i) {
+        return wrapper.getIntArray(i);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int[] getIntArray(String name) {
+        return wrapper.getIntArray(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long[] getLongArray(int i) {
+        return wrapper.getLongArray(i);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long[] getLongArray(String name) {
+        return wrapper.getLongArray(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public float[] getFloatArray(int i) {
+        return wrapper.getFloatArray(i);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public float[] getFloatArray(String name) {
+        return wrapper.getFloatArray(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getDoubleArray(int i) {
+        return wrapper.getDoubleArray(i);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getDoubleArray(String name) {
+        return wrapper.getDoubleArray(name);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -1361,6 +1515,14 @@ public class BoundStatement extends Statement implements SettableData<BoundState
 
     static class DataWrapper extends AbstractData<BoundStatement> {
 
+        // Values set through the built-in int, bigint, counter, time, float and double codecs are kept unboxed here
+        // (floating-point values as their raw bits), and written as-is into the outgoing frame; the corresponding
+        // entry in values stays null. getValue serializes them into a new buffer each time, and doesn't store it:
+        // reads must not modify the statement, since it can be read concurrently once it is executed (for example
+        // by the I/O thread that writes it, and by a query logger or the application).
+        private long[] primitives;
+        private byte[] primitiveSizes;
+
         DataWrapper(BoundStatement wrapped, int size) {
             super(wrapped.statement.getPreparedId().protocolVersion, wrapped, size);
         }
@@ -1381,5 +1543,114 @@ public class BoundStatement extends Statement implements SettableData<BoundState
         protected CodecRegistry getCodecRegistry() {
             return wrapped.codecRegistry;
         }
+
+        @Override
+        protected BoundStatement setValue(int i, ByteBuffer value) {
+            wrapped.routingValueChanged(i);
+            if (primitiveSizes != null)
+                primitiveSizes[i] = 0;
+            return super.setValue(i, value);
+        }
+
+        @Override
+        protected ByteBuffer getValue(int i) {
+            ByteBuffer value = values[i];
+            if (value == null && isPrimitive(i)) {
+                value = ByteBuffer.allocate(primitiveSizes[i]);
+                if (primitiveSizes[i] == 4)
+                    value.putInt(0, (int) primitives[i]);
+                else
+                    value.putLong(0, primitives[i]);
+            }
+            return value;
+        }
+
+        @Override
+        public BoundStatement setInt(int i, int v) {
+            if (codecFor(i, Integer.class) == TypeCodec.cint())
+                return setPrimitive(i, v, 4);
+            return super.setInt(i, v);
+        }
+
+        @Override
+        public BoundStatement setLong(int i, long v) {
+            TypeCodec<Long> codec = codecFor(i, Long.class);
+            if (codec == TypeCodec.bigint() || codec == TypeCodec.counter() || codec == TypeCodec.time())
+                return setPrimitive(i, v, 8);
+            return super.setLong(i, v);
+        }
+
+        @Override
+        public BoundStatement setFloat(int i, float v) {
+            if (codecFor(i, Float.class) == TypeCodec.cfloat())
+                return setPrimitive(i, Float.floatToRawIntBits(v), 4);
+            return super.setFloat(i, v);
+        }
+
+        @Override
+        public BoundStatement setDouble(int i, double v) {
+            if (codecFor(i, Double.class) == TypeCodec.cdouble())
+                return setPrimitive(i, Double.doubleToRawLongBits(v), 8);
+            return super.setDouble(i, v);
+        }
+
+        private BoundStatement setPrimitive(int i, long bits, int size) {
+            wrapped.routingValueChanged(i);
+            if (primitiveSizes == null) {
+                primitives = new long[values.length];
+                primitiveSizes = new byte[values.length];
+            }
+            primitives[i] = bits;
+            primitiveSizes[i] = (byte) size;
+            values[i] = null;
+            return wrapped;
+        }
+
+        private boolean isPrimitive(int i) {
+            return primitiveSizes != null && primitiveSizes[i] != 0;
+        }
+
+        /**
+         * Returns a view of the values to send with the statement, that {@link CBUtil#writeValueList(List, ByteBuf)}
+         * writes without serializing unboxed values first.
+         */
+        List<ByteBuffer> valueList() {
+            return new ValueList();
+        }
+
+        class ValueList extends AbstractList<ByteBuffer> {
+
+            @Override
+            public ByteBuffer get(int i) {
+                return getValue(i);
+            }
+
+            @Override
+            public int size() {
+                return values.length;
+            }
+
+            void write(ByteBuf cb) {
+                cb.writeShort(values.length);
+                for (int i = 0; i < values.length; i++) {
+                    if (isPrimitive(i)) {
+                        cb.writeInt(primitiveSizes[i]);
+                        if (primitiveSizes[i] == 4)
+                            cb.writeInt((int) primitives[i]);
+                        else
+                            cb.writeLong(primitives[i]);
+                    } else {
+                        CBUtil.writeValue(values[i], cb);
+                    }
+                }
+            }
+
+            int encodedSize() {
+                int size = 2;
+                for (int i = 0; i < values.length; i++)
+                    size += isPrimitive(i) ? 4 + primitiveSizes[i] : CBUtil.sizeOfValue(values[i]);
+                return size;
+            }
+        }
     }
 }
@@ -58,6 +58,15 @@ abstract class CBUtil { // TODO rename
         }
     }
 
+    public static void skipString(ByteBuf cb) {
+        try {
+            int length = cb.readUnsignedShort();
+            cb.skipBytes(length);
+        } catch (IndexOutOfBoundsException e) {
+            throw new DriverInternalError("Not enough bytes to read an UTF8 serialized string preceded by it's 2 bytes length");
+        }
+    }
+
     public static void writeString(String str, ByteBuf cb) {
         byte[] bytes = str.getBytes(CharsetUtil.UTF_8);
         cb.writeShort(bytes.length);
@@ -339,12 +348,18 @@ abstract class CBUtil { // TODO rename
     }
 
     public static void writeValueList(List<ByteBuffer> values, ByteBuf cb) {
+        if (values instanceof BoundStatement.DataWrapper.ValueList) {
+            ((BoundStatement.DataWrapper.ValueList) values).write(cb);
+            return;
+        }
         cb.writeShort(values.size());
         for (ByteBuffer value : values)
             CBUtil.writeValue(value, cb);
     }
 
     public static int sizeOfValueList(List<ByteBuffer> values) {
+        if (values instanceof BoundStatement.DataWrapper.ValueList)
+            return ((BoundStatement.DataWrapper.ValueList) values).encodedSize();
         int size = 2;
         for (ByteBuffer value : values)
             size += CBUtil.sizeOfValue(value);
@@ -19,6 +19,7 @@ import com.datastax.driver.core.exceptions.CodecNotFoundException;
 import com.google.common.base.Objects;
 import com.google.common.cache.*;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.MapMaker;
 import com.google.common.reflect.TypeToken;
 import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.slf4j.Logger;
@@ -27,9 +28,11 @@ import org.slf4j.LoggerFactory;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.nio.ByteBuffer;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 
@@ -289,11 +292,32 @@ public final class CodecRegistry {
      */
     private final LoadingCache<CacheKey, TypeCodec<?>> cache;
 
+    /**
+     * Codecs found by {@link #codecFor(Object)}, keyed by the runtime class of the value,
+     * for the lookups that only depend on it.
+     */
+    private final ConcurrentMap<Class<?>, TypeCodec<?>> valueCodecs = new MapMaker().weakKeys().makeMap();
+
+    /**
+     * The position in {@link #codecs} of the first codec that overrides {@link TypeCodec#accepts(Object)}, or the
+     * size of the list if there is none. Computed when codecs are registered, see {@link #isClassBased}.
+     */
+    private volatile int firstValueInspectingCodec;
+
+    final ColumnDefinitionsCache columnDefinitionsCache = new ColumnDefinitionsCache();
+
     /**
      * Creates a new instance initialized with built-in codecs for all the base CQL types.
      */
     public CodecRegistry() {
         this.codecs = new CopyOnWriteArrayList<TypeCodec<?>>(PRIMITIVE_CODECS);
+        int i = 0;
+        for (TypeCodec<?> codec : PRIMITIVE_CODECS) {
+            if (inspectsValue(codec))
+                break;
+            i += 1;
+        }
+        this.firstValueInspectingCodec = i;
         this.cache = defaultCacheBuilder().build(new TypeCodecCacheLoader());
     }
 
@@ -336,6 +360,11 @@ public final class CodecRegistry {
             return this;
         }
 
+        // If no codec inspects values so far, and this one doesn't either, lookups by value that find it can be
+        // cached. Otherwise the position is already set (possibly to this codec's, which is the current size).
+        int size = codecs.size();
+        if (firstValueInspectingCodec == size && !inspectsValue(newCodec))
+            firstValueInspectingCodec = size + 1;
         this.codecs.add(newCodec);
         return this;
     }
@@ -371,9 +400,10 @@ public final class CodecRegistry {
      * <p/>
      * This method takes an arbitrary Java object and tries to locate a suitable codec for it.
      * Codecs must perform a {@link TypeCodec#accepts(Object) runtime inspection} of the object to determine
-     * if they can accept it or not, which, depending on the implementations, can be expensive; besides, the
-     * resulting codec cannot be cached.
-     * Therefore there might be a performance penalty when using this method.
+     * if they can accept it or not, which, depending on the implementations, can be expensive.
+     * To mitigate this, when the decision only depends on the runtime class of the value, the result is cached per
+     * class; this is never the case for collections, {@link UDTValue}s and {@link TupleValue}s, whose codec depends
+     * on their contents, nor when a registered codec overrides {@link TypeCodec#accepts(Object)}.
      * <p/>
      * Furthermore, this method returns the first matching codec, regardless of its accepted CQL type.
      * It should be reserved for situations where the target CQL type is not available or unknown.
@@ -381,15 +411,24 @@ public final class CodecRegistry {
      * {@link SimpleStatement#SimpleStatement(String, Object...) SimpleStatement} or in the
      * {@link com.datastax.driver.core.querybuilder.QueryBuilder}, where no CQL type information is available.
      * <p/>
-     * Codecs returned by this method are <em>NOT</em> cached (see the {@link CodecRegistry top-level documentation}
-     * of this class for more explanations about caching).
+     * Codecs returned by this method are <em>NOT</em> stored in the main cache (see the
+     * {@link CodecRegistry top-level documentation} of this class for more explanations about caching).
      *
      * @param value The value the codec should accept; must not be {@code null}.
      * @return A suitable codec.
      * @throws CodecNotFoundException if a suitable codec cannot be found.
      */
+    @SuppressWarnings("unchecked")
     public <T> TypeCodec<T> codecFor(T value) {
-        return findCodec(null, value);
+        checkNotNull(value, "Parameter value cannot be null");
+        Class<?> javaClass = value.getClass();
+        TypeCodec<?> codec = valueCodecs.get(javaClass);
+        if (codec != null)
+            return (TypeCodec<T>) codec;
+        codec = findCodec(null, value);
+        if (isClassBased(codec, value))
+            valueCodecs.putIfAbsent(javaClass, codec);
+        return (TypeCodec<T>) codec;
     }
 
     /**
@@ -520,6 +559,35 @@ public final class CodecRegistry {
         return createCodec(cqlType, value);
     }
 
+    /**
+     * Whether the codec found for {@code value} would be found for any other instance of the same class, i.e. it is
+     * a registered codec, and neither it nor any codec preceding it inspects the contents of the value.
+     * Note that registering new codecs never invalidates this, since they are appended to the list.
+     */
+    private boolean isClassBased(TypeCodec<?> codec, Object value) {
+        if (value instanceof Collection || value instanceof Map || value instanceof UDTValue || value instanceof TupleValue)
+            return false;
+        int limit = firstValueInspectingCodec;
+        int i = 0;
+        for (TypeCodec<?> candidate : codecs) {
+            if (i >= limit)
+                return false;
+            if (candidate == codec)
+                return true;
+            i += 1;
+        }
+        // generated codec
+        return false;
+    }
+
+    private static boolean inspectsValue(TypeCodec<?> codec) {
+        try {
+            return codec.getClass().getMethod("accepts", Object.class).getDeclaringClass() != TypeCodec.class;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
     private <T> TypeCodec<T> createCodec(DataType cqlType, TypeToken<T> javaType) {
         TypeCodec<T> codec = maybeCreateCodec(cqlType, javaType);
         if (codec == null)
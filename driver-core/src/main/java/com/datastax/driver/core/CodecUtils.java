@@ -111,6 +111,22 @@ public final class CodecUtils {
         return size < 0 ? null : readBytes(input, size);
     }
 
+    /**
+     * Same as {@link #readValue(ByteBuffer, ProtocolVersion)}, but instead of allocating a new buffer, moves
+     * {@code view} (a duplicate of {@code input}) over the value and returns it.
+     * This is only safe if the caller is done with the previous value when reading the next one.
+     */
+    static ByteBuffer readValue(ByteBuffer input, ByteBuffer view, ProtocolVersion version) {
+        int size = readSize(input, version);
+        if (size < 0)
+            return null;
+        int position = input.position();
+        input.position(position + size);
+        view.limit(position + size);
+        view.position(position);
+        return view;
+    }
+
     /**
      * Utility method that writes a value.
      * Mainly intended for collection codecs when deserializing CQL collections.
@@ -207,7 +223,7 @@ public final class CodecUtils {
         return ((long) days + EPOCH_AS_CQL_LONG);
     }
 
-    private static int sizeOfCollectionSize(ProtocolVersion version) {
+    static int sizeOfCollectionSize(ProtocolVersion version) {
         switch (version) {
             case V1:
             case V2:
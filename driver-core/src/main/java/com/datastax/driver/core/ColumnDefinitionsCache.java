@@ -0,0 +1,169 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.netty.buffer.ByteBuf;
+
+import java.util.Arrays;
+
+/**
+ * A bounded cache of the {@link ColumnDefinitions} decoded from result metadata, keyed by the raw bytes of the column
+ * specifications.
+ * <p/>
+ * Unprepared queries carry their result metadata in every response; since the same statements tend to be executed
+ * over and over, this allows identical metadata to decode to a single shared instance instead of allocating new
+ * definitions and types for every response.
+ * <p/>
+ * There is one instance per {@link CodecRegistry}, since the decoded definitions (and user types) reference it.
+ */
+class ColumnDefinitionsCache {
+
+    private static final int MAX_SIZE = SystemProperties.getInt("com.datastax.driver.COLUMN_DEFINITIONS_CACHE_SIZE", 1024);
+
+    private final Cache<Key, ColumnDefinitions> cache = CacheBuilder.newBuilder()
+            .maximumSize(MAX_SIZE)
+            .build();
+
+    /**
+     * Returns the cached definitions for the column specifications found between {@code start} (inclusive) and
+     * {@code end} (exclusive) in {@code body}, or {@code null} if there are none.
+     */
+    ColumnDefinitions get(ByteBuf body, int start, int end, int columnCount, boolean globalTablesSpec, ProtocolVersion protocolVersion) {
+        if (MAX_SIZE <= 0)
+            return null;
+        // The lookup key reads the specifications in place, bytes are only copied when an entry is added
+        return cache.getIfPresent(new LookupKey(body, start, end, columnCount, globalTablesSpec, protocolVersion));
+    }
+
+    void put(ByteBuf body, int start, int end, int columnCount, boolean globalTablesSpec, ProtocolVersion protocolVersion, ColumnDefinitions definitions) {
+        if (MAX_SIZE <= 0)
+            return;
+        byte[] bytes = new byte[end - start];
+        body.getBytes(start, bytes);
+        cache.put(new StoredKey(bytes, columnCount, globalTablesSpec, protocolVersion), definitions);
+    }
+
+    /**
+     * The raw column specifications and the parameters they were decoded with. Stored keys own a copy of the bytes,
+     * lookup keys read them from the response; both hash and compare on content, so that a lookup key matches the
+     * stored key of identical specifications.
+     */
+    private abstract static class Key {
+
+        private final int columnCount;
+        private final boolean globalTablesSpec;
+        private final ProtocolVersion protocolVersion;
+        private final int hashCode;
+
+        Key(int columnCount, boolean globalTablesSpec, ProtocolVersion protocolVersion, int bytesHashCode) {
+            this.columnCount = columnCount;
+            this.globalTablesSpec = globalTablesSpec;
+            this.protocolVersion = protocolVersion;
+            int hashCode = columnCount;
+            hashCode = 31 * hashCode + (globalTablesSpec ? 1 : 0);
+            hashCode = 31 * hashCode + protocolVersion.hashCode();
+            this.hashCode = 31 * hashCode + bytesHashCode;
+        }
+
+        abstract int length();
+
+        abstract byte byteAt(int i);
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this)
+                return true;
+            if (!(other instanceof Key))
+                return false;
+            Key that = (Key) other;
+            if (this.hashCode != that.hashCode
+                    || this.columnCount != that.columnCount
+                    || this.globalTablesSpec != that.globalTablesSpec
+                    || this.protocolVersion != that.protocolVersion)
+                return false;
+            int length = this.length();
+            if (length != that.length())
+                return false;
+            for (int i = 0; i < length; i++) {
+                if (this.byteAt(i) != that.byteAt(i))
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static class StoredKey extends Key {
+
+        private final byte[] bytes;
+
+        StoredKey(byte[] bytes, int columnCount, boolean globalTablesSpec, ProtocolVersion protocolVersion) {
+            // Same as the hash computed by LookupKey
+            super(columnCount, globalTablesSpec, protocolVersion, Arrays.hashCode(bytes));
+            this.bytes = bytes;
+        }
+
+        @Override
+        int length() {
+            return bytes.length;
+        }
+
+        @Override
+        byte byteAt(int i) {
+            return bytes[i];
+        }
+    }
+
+    private static class LookupKey extends Key {
+
+        private final ByteBuf body;
+        private final int start;
+        private final int end;
+
+        LookupKey(ByteBuf body, int start, int end, int columnCount, boolean globalTablesSpec, ProtocolVersion protocolVersion) {
+            super(columnCount, globalTablesSpec, protocolVersion, hashCode(body, start, end));
+            this.body = body;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Computes the same hash code as {@link Arrays#hashCode(byte[])} would on a copy of the range.
+         */
+        private static int hashCode(ByteBuf body, int start, int end) {
+            int hashCode = 1;
+            for (int i = start; i < end; i++)
+                hashCode = 31 * hashCode + body.getByte(i);
+            return hashCode;
+        }
+
+        @Override
+        int length() {
+            return end - start;
+        }
+
+        @Override
+        byte byteAt(int i) {
+            return body.getByte(start + i);
+        }
+    }
+}
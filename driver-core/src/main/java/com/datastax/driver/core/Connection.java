@@ -19,6 +19,8 @@ import com.datastax.driver.core.Responses.Result.SetKeyspace;
 import com.datastax.driver.core.exceptions.*;
 import com.datastax.driver.core.utils.MoreFutures;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.MapMaker;
 import com.google.common.util.concurrent.*;
@@ -32,15 +34,17 @@ import io.netty.handler.timeout.IdleStateHandler;
 import io.netty.util.Timeout;
 import io.netty.util.Timer;
 import io.netty.util.TimerTask;
+import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.GlobalEventExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.ref.WeakReference;
 import java.net.InetSocketAddress;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -94,6 +98,9 @@ class Connection {
 
     private final AtomicReference<Owner> ownerRef = new AtomicReference<Owner>();
 
+    // The event loop the channel must be registered with, or null to let the factory's group pick one
+    private final EventLoop eventLoop;
+
     /**
      * /**
      * Create a new connection to a Cassandra node and associate it with the given pool.
@@ -105,11 +112,19 @@ class Connection {
      *                Note that an existing connection can also be associated to an owner later with {@link #setOwner(Owner)}.
      */
     protected Connection(String name, InetSocketAddress address, Factory factory, Owner owner) {
+        this(name, address, factory, owner, null);
+    }
+
+    /**
+     * Create a new connection to a Cassandra node, served by the given event loop, and associate it with the given pool.
+     */
+    Connection(String name, InetSocketAddress address, Factory factory, Owner owner, EventLoop eventLoop) {
         this.address = address;
         this.factory = factory;
         this.dispatcher = new Dispatcher();
         this.name = name;
         this.ownerRef.set(owner);
+        this.eventLoop = eventLoop;
     }
 
     /**
@@ -127,7 +142,7 @@ class Connection {
         final SettableFuture<Void> channelReadyFuture = SettableFuture.create();
 
         try {
-            Bootstrap bootstrap = factory.newBootstrap();
+            Bootstrap bootstrap = factory.newBootstrap(eventLoop == null ? factory.eventLoopGroup : eventLoop);
             ProtocolOptions protocolOptions = factory.configuration.getProtocolOptions();
             bootstrap.handler(
                     new Initializer(this, protocolVersion, protocolOptions.getCompression().compressor(), protocolOptions.getSSLOptions(),
@@ -449,43 +464,56 @@ class Connection {
 
         try {
             Uninterruptibles.getUninterruptibly(setKeyspaceAsync(keyspace));
-        } catch (ConnectionException e) {
-            throw defunct(e);
-        } catch (BusyConnectionException e) {
-            logger.warn("Tried to set the keyspace on busy {}. "
-                    + "This should not happen but is not critical (it will be retried)", this);
-            throw new ConnectionException(address, "Tried to set the keyspace on busy connection");
         } catch (ExecutionException e) {
             Throwable cause = e.getCause();
-            if (cause instanceof OperationTimedOutException) {
-                // Rethrow so that the caller doesn't try to use the connection, but do not defunct as we don't want to mark down
-                logger.warn("Timeout while setting keyspace on {}. "
-                        + "This should not happen but is not critical (it will be retried)", this);
-                throw new ConnectionException(address, "Timeout while setting keyspace on connection");
-            } else {
-                throw defunct(new ConnectionException(address, "Error while setting keyspace", cause));
-            }
+            Throwables.propagateIfInstanceOf(cause, ConnectionException.class);
+            throw defunct(new ConnectionException(address, "Error while setting keyspace", cause));
         }
     }
 
-    ListenableFuture<Void> setKeyspaceAsync(final String keyspace) throws ConnectionException, BusyConnectionException {
+    /**
+     * Sets the keyspace without blocking.
+     * <p/>
+     * If the future fails, it is always with a {@link ConnectionException}, so that callers move on to
+     * another connection. A timeout or a busy connection are not critical (the keyspace will be set again
+     * the next time the connection is used), any other error defuncts the connection.
+     *
+     * @return a future that completes with this connection once the keyspace is set (immediately if it was
+     * already set).
+     */
+    ListenableFuture<Connection> setKeyspaceAsync(final String keyspace) {
+        if (keyspace == null || keyspace.equals(this.keyspace))
+            return Futures.immediateFuture(this);
+
         logger.trace("{} Setting keyspace {}", this, keyspace);
-        // Note: we quote the keyspace below, because the name is the one coming from Cassandra, so it's in the right case already
-        Future future = write(new Requests.Query("USE \"" + keyspace + '"'));
-        return Futures.transform(future, new AsyncFunction<Message.Response, Void>() {
+        Future future;
+        try {
+            // Note: we quote the keyspace below, because the name is the one coming from Cassandra, so it's in the right case already
+            future = write(new Requests.Query("USE \"" + keyspace + '"'));
+        } catch (ConnectionException e) {
+            return Futures.immediateFailedFuture(defunct(e));
+        } catch (BusyConnectionException e) {
+            logger.warn("Tried to set the keyspace on busy {}. "
+                    + "This should not happen but is not critical (it will be retried)", this);
+            return Futures.immediateFailedFuture(new ConnectionException(address, "Tried to set the keyspace on busy connection"));
+        }
+        ListenableFuture<Connection> keyspaceFuture = Futures.transform(future, new SetKeyspaceFunction(),
+                factory.manager.configuration.getPoolingOptions().getInitializationExecutor());
+        return Futures.withFallback(keyspaceFuture, new FutureFallback<Connection>() {
             @Override
-            public ListenableFuture<Void> apply(Message.Response response) throws Exception {
-                if (response instanceof SetKeyspace) {
-                    Connection.this.keyspace = ((SetKeyspace) response).keyspace;
-                    return MoreFutures.VOID_SUCCESS;
-                } else if (response.type == ERROR) {
-                    Responses.Error error = (Responses.Error) response;
-                    throw defunct(error.asException(address));
+            public ListenableFuture<Connection> create(Throwable t) throws Exception {
+                if (t instanceof OperationTimedOutException) {
+                    // Fail so that the caller doesn't try to use the connection, but do not defunct as we don't want to mark down
+                    logger.warn("Timeout while setting keyspace on {}. "
+                            + "This should not happen but is not critical (it will be retried)", Connection.this);
+                    throw new ConnectionException(address, "Timeout while setting keyspace on connection");
+                } else if (t instanceof ConnectionException) {
+                    throw defunct((ConnectionException) t);
                 } else {
-                    throw defunct(new DriverInternalError("Unexpected response while setting keyspace: " + response));
+                    throw defunct(new ConnectionException(address, "Error while setting keyspace", t));
                 }
             }
-        }, factory.manager.configuration.getPoolingOptions().getInitializationExecutor());
+        });
     }
 
     /**
@@ -691,6 +719,12 @@ class Connection {
         private final ChannelGroup allChannels = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
 
         private final ConcurrentMap<Host, AtomicInteger> idGenerators = new ConcurrentHashMap<Host, AtomicInteger>();
+
+        // One flusher per event loop, see Connection#flush
+        private final ConcurrentMap<EventLoop, Flusher> flusherLookup = new MapMaker()
+                .concurrencyLevel(16)
+                .weakKeys()
+                .makeMap();
         final DefaultResponseHandler defaultHandler;
         final Cluster.Manager manager;
         final Cluster.ConnectionReaper reaper;
@@ -701,6 +735,7 @@ class Connection {
 
         volatile ProtocolVersion protocolVersion;
         private final NettyOptions nettyOptions;
+        private volatile List<EventLoop> eventLoops;
 
         Factory(Cluster.Manager manager, Configuration configuration) {
             this.defaultHandler = manager;
@@ -719,6 +754,22 @@ class Connection {
             return configuration.getProtocolOptions().getPort();
         }
 
+        /**
+         * Returns the event loops of the group, in a fixed order, so that connections can be spread evenly over them.
+         */
+        List<EventLoop> eventLoops() {
+            List<EventLoop> loops = eventLoops;
+            if (loops == null) {
+                ImmutableList.Builder<EventLoop> builder = ImmutableList.builder();
+                for (EventExecutor executor : eventLoopGroup) {
+                    if (executor instanceof EventLoop)
+                        builder.add((EventLoop) executor);
+                }
+                eventLoops = loops = builder.build();
+            }
+            return loops;
+        }
+
         /**
          * Opens a new connection to the node this factory points to.
          *
@@ -747,7 +798,7 @@ class Connection {
          */
         Connection open(HostConnectionPool pool) throws ConnectionException, InterruptedException, UnsupportedProtocolVersionException, ClusterNameMismatchException {
             pool.host.convictionPolicy.signalConnectionsOpening(1);
-            Connection connection = new Connection(buildConnectionName(pool.host), pool.host.getSocketAddress(), this, pool);
+            Connection connection = new Connection(buildConnectionName(pool.host), pool.host.getSocketAddress(), this, pool, pool.nextEventLoop());
             try {
                 connection.initAsync().get();
                 return connection;
@@ -763,7 +814,7 @@ class Connection {
             pool.host.convictionPolicy.signalConnectionsOpening(count);
             List<Connection> connections = Lists.newArrayListWithCapacity(count);
             for (int i = 0; i < count; i++)
-                connections.add(new Connection(buildConnectionName(pool.host), pool.host.getSocketAddress(), this, pool));
+                connections.add(new Connection(buildConnectionName(pool.host), pool.host.getSocketAddress(), this, pool, pool.nextEventLoop()));
             return connections;
         }
 
@@ -802,9 +853,9 @@ class Connection {
             return configuration.getSocketOptions().getReadTimeoutMillis();
         }
 
-        private Bootstrap newBootstrap() {
+        private Bootstrap newBootstrap(EventLoopGroup group) {
             Bootstrap b = new Bootstrap();
-            b.group(eventLoopGroup)
+            b.group(group)
                     .channel(channelClass);
 
             SocketOptions options = configuration.getSocketOptions();
@@ -848,13 +899,21 @@ class Connection {
 
     private static final class Flusher implements Runnable {
         final WeakReference<EventLoop> eventLoopRef;
+        final Factory factory;
         final Queue<FlushItem> queued = new ConcurrentLinkedQueue<FlushItem>();
         final AtomicBoolean running = new AtomicBoolean(false);
-        final HashSet<Channel> channels = new HashSet<Channel>();
+        // channels written to since the last flush, with the number of frames written to each
+        final HashMap<Channel, Integer> channels = new HashMap<Channel, Integer>();
         int runsWithNoWork = 0;
 
-        private Flusher(EventLoop eventLoop) {
+        // The state below is only accessed from the event loop
+        // number of messages written directly from the event loop since the last run
+        int writtenInline = 0;
+        final Coalescer coalescer = new Coalescer(System.nanoTime());
+
+        private Flusher(EventLoop eventLoop, Factory factory) {
             this.eventLoopRef = new WeakReference<EventLoop>(eventLoop);
+            this.factory = factory;
         }
 
         void start() {
@@ -865,26 +924,51 @@ class Connection {
             }
         }
 
+        /**
+         * Writes a message directly, without going through the queue; must be called from the event loop.
+         * The message is flushed by the next run, like queued ones.
+         */
+        void writeInline(FlushItem item) {
+            if (write(item))
+                writtenInline++;
+            start();
+        }
+
+        private boolean write(FlushItem item) {
+            Channel channel = item.channel;
+            if (!channel.isActive())
+                return false;
+            Integer frames = channels.get(channel);
+            channels.put(channel, frames == null ? 1 : frames + 1);
+            channel.write(item.request).addListener(item.listener);
+            return true;
+        }
+
         @Override
         public void run() {
 
-            boolean doneWork = false;
+            int written = writtenInline;
+            writtenInline = 0;
             FlushItem flush;
             while (null != (flush = queued.poll())) {
-                Channel channel = flush.channel;
-                if (channel.isActive()) {
-                    channels.add(channel);
-                    channel.write(flush.request).addListener(flush.listener);
-                    doneWork = true;
-                }
+                if (write(flush))
+                    written++;
             }
 
-            // Always flush what we have (don't artificially delay to try to coalesce more messages)
-            for (Channel channel : channels)
-                channel.flush();
-            channels.clear();
+            SocketOptions options = factory.configuration.getSocketOptions();
+            int flushed = coalescer.onRun(written, System.nanoTime(),
+                    TimeUnit.MICROSECONDS.toNanos(options.getCoalescingWindowMicros()), options.getMaxCoalescedMessages());
+            if (flushed > 0) {
+                Metrics metrics = factory.manager.metrics;
+                for (Map.Entry<Channel, Integer> entry : channels.entrySet()) {
+                    entry.getKey().flush();
+                    if (metrics != null)
+                        metrics.getFramesPerFlush().update(entry.getValue());
+                }
+                channels.clear();
+            }
 
-            if (doneWork) {
+            if (written > 0 || coalescer.pending > 0) {
                 runsWithNoWork = 0;
             } else {
                 // either reschedule or cancel
@@ -900,12 +984,58 @@ class Connection {
                 eventLoop.schedule(this, 10000, TimeUnit.NANOSECONDS);
             }
         }
+
     }
 
-    private static final ConcurrentMap<EventLoop, Flusher> flusherLookup = new MapMaker()
-            .concurrencyLevel(16)
-            .weakKeys()
-            .makeMap();
+    /**
+     * Decides when the messages written by a {@link Flusher} get flushed. Only accessed from the event loop.
+     */
+    static final class Coalescer {
+        // number of messages written but not flushed yet, and time at which the first of them was written
+        int pending = 0;
+        long firstPendingNanos;
+        // moving average of the interval between two messages, used to decide whether it is worth waiting
+        long lastArrivalNanos;
+        long averageIntervalNanos = Long.MAX_VALUE;
+
+        Coalescer(long nowNanos) {
+            this.lastArrivalNanos = nowNanos;
+        }
+
+        /**
+         * Records the messages written during a run of the flusher.
+         *
+         * @return the number of pending messages that must be flushed now, or 0 if they can wait.
+         */
+        int onRun(int written, long now, long windowNanos, int maxCoalescedMessages) {
+            if (written > 0) {
+                long interval = (now - lastArrivalNanos) / written;
+                averageIntervalNanos = (averageIntervalNanos == Long.MAX_VALUE)
+                        ? interval
+                        : (3 * averageIntervalNanos + interval) / 4;
+                lastArrivalNanos = now;
+
+                if (pending == 0)
+                    firstPendingNanos = now;
+                pending += written;
+            }
+
+            if (pending == 0 || !shouldFlush(now, windowNanos, maxCoalescedMessages))
+                return 0;
+
+            int flushed = pending;
+            pending = 0;
+            return flushed;
+        }
+
+        private boolean shouldFlush(long now, long windowNanos, int maxCoalescedMessages) {
+            return windowNanos <= 0
+                    || pending >= maxCoalescedMessages
+                    // messages are too sparse to be worth waiting for
+                    || averageIntervalNanos >= windowNanos
+                    || now - firstPendingNanos >= windowNanos;
+        }
+    }
 
     private static class FlushItem {
         final Channel channel;
@@ -921,15 +1051,21 @@ class Connection {
 
     private void flush(FlushItem item) {
         EventLoop loop = item.channel.eventLoop();
-        Flusher flusher = flusherLookup.get(loop);
+        Flusher flusher = factory.flusherLookup.get(loop);
         if (flusher == null) {
-            Flusher alt = flusherLookup.putIfAbsent(loop, flusher = new Flusher(loop));
+            Flusher alt = factory.flusherLookup.putIfAbsent(loop, flusher = new Flusher(loop, factory));
             if (alt != null)
                 flusher = alt;
         }
 
-        flusher.queued.add(item);
-        flusher.start();
+        if (loop.inEventLoop()) {
+            // We're already on the channel's I/O thread (see PoolingOptions#setEventLoopAffinityEnabled), no need
+            // to go through the queue and wake the loop up
+            flusher.writeInline(item);
+        } else {
+            flusher.queued.add(item);
+            flusher.start();
+        }
     }
 
     class Dispatcher extends SimpleChannelInboundHandler<Message.Response> {
@@ -1074,6 +1210,22 @@ class Connection {
         }
     }
 
+    // Not an anonymous class, so that the numbering of the other anonymous classes stays stable for clirr
+    private class SetKeyspaceFunction implements AsyncFunction<Message.Response, Connection> {
+        @Override
+        public ListenableFuture<Connection> apply(Message.Response response) throws Exception {
+            if (response instanceof SetKeyspace) {
+                keyspace = ((SetKeyspace) response).keyspace;
+                return Futures.immediateFuture(Connection.this);
+            } else if (response.type == ERROR) {
+                Responses.Error error = (Responses.Error) response;
+                throw defunct(error.asException(address));
+            } else {
+                throw defunct(new DriverInternalError("Unexpected response while setting keyspace: " + response));
+            }
+        }
+    }
+
     private static final ResponseCallback HEARTBEAT_CALLBACK = new ResponseCallback() {
 
         @Override
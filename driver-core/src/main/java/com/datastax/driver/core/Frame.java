@@ -292,7 +292,7 @@ class Frame {
                 // we have a reference to the compressed body (and therefore a chance to release it).
                 ByteBuf compressedBody = frame.body;
                 try {
-                    out.add(compressor.decompress(frame));
+                    out.add(compressor.decompress(ctx.alloc(), frame));
                 } finally {
                     compressedBody.release();
                 }
@@ -321,7 +321,7 @@ class Frame {
                 // See comment in decode()
                 ByteBuf uncompressedBody = frame.body;
                 try {
-                    out.add(compressor.compress(frame));
+                    out.add(compressor.compress(ctx.alloc(), frame));
                 } finally {
                     uncompressedBody.release();
                 }
@@ -16,6 +16,8 @@
 package com.datastax.driver.core;
 
 import com.datastax.driver.core.exceptions.DriverInternalError;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import net.jpountz.lz4.LZ4Factory;
 import org.slf4j.Logger;
@@ -23,14 +25,43 @@ import org.slf4j.LoggerFactory;
 import org.xerial.snappy.Snappy;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 abstract class FrameCompressor {
 
     private static final Logger logger = LoggerFactory.getLogger(FrameCompressor.class);
 
-    public abstract Frame compress(Frame frame) throws IOException;
+    /**
+     * Compresses the body of a frame.
+     * <p/>
+     * The new body is allocated with {@code alloc}; the original body is not released.
+     */
+    public abstract Frame compress(ByteBufAllocator alloc, Frame frame) throws IOException;
 
-    public abstract Frame decompress(Frame frame) throws IOException;
+    /**
+     * Decompresses the body of a frame.
+     * <p/>
+     * The new body is allocated with {@code alloc}; the original body is not released.
+     */
+    public abstract Frame decompress(ByteBufAllocator alloc, Frame frame) throws IOException;
+
+
+    /**
+     * Returns the readable bytes of {@code input} as a NIO buffer. This is a view for
+     * all single-component buffers, which is what frame bodies are in practice.
+     */
+    private static ByteBuffer inputBuffer(ByteBuf input) {
+        return input.nioBuffer(input.readerIndex(), input.readableBytes());
+    }
+
+    /**
+     * Whether {@code input} is direct and exposes its contents as a single NIO buffer. A direct
+     * {@link io.netty.buffer.CompositeByteBuf} with several components does not: its
+     * {@link ByteBuf#nioBuffer(int, int) nioBuffer} merges them into a heap buffer.
+     */
+    private static boolean isSingleDirectBuffer(ByteBuf input) {
+        return input.isDirect() && input.nioBufferCount() == 1;
+    }
 
     public static class SnappyCompressor extends FrameCompressor {
 
@@ -57,24 +88,89 @@ abstract class FrameCompressor {
         }
 
         @Override
-        public Frame compress(Frame frame) throws IOException {
-            byte[] input = CBUtil.readRawBytes(frame.body);
-            byte[] output = new byte[Snappy.maxCompressedLength(input.length)];
+        public Frame compress(ByteBufAllocator alloc, Frame frame) throws IOException {
+            ByteBuf input = frame.body;
+            int maxCompressedLength = Snappy.maxCompressedLength(input.readableBytes());
 
-            int written = Snappy.compress(input, 0, input.length, output, 0);
-            return frame.with(Unpooled.wrappedBuffer(output, 0, written));
+            // Snappy's ByteBuffer API only accepts direct buffers, use the array API for heap buffers
+            if (isSingleDirectBuffer(input)) {
+                ByteBuf output = alloc.directBuffer(maxCompressedLength);
+                boolean success = false;
+                try {
+                    int written = Snappy.compress(inputBuffer(input), output.nioBuffer(0, maxCompressedLength));
+                    success = true;
+                    return frame.with(output.writerIndex(written));
+                } finally {
+                    if (!success)
+                        output.release();
+                }
+            } else if (input.hasArray()) {
+                ByteBuf output = alloc.heapBuffer(maxCompressedLength);
+                boolean success = false;
+                try {
+                    int written = Snappy.compress(input.array(), input.arrayOffset() + input.readerIndex(), input.readableBytes(),
+                            output.array(), output.arrayOffset());
+                    success = true;
+                    return frame.with(output.writerIndex(written));
+                } finally {
+                    if (!success)
+                        output.release();
+                }
+            } else {
+                byte[] in = CBUtil.readRawBytes(input);
+                byte[] out = new byte[maxCompressedLength];
+                int written = Snappy.compress(in, 0, in.length, out, 0);
+                return frame.with(Unpooled.wrappedBuffer(out, 0, written));
+            }
         }
 
         @Override
-        public Frame decompress(Frame frame) throws IOException {
-            byte[] input = CBUtil.readRawBytes(frame.body);
+        public Frame decompress(ByteBufAllocator alloc, Frame frame) throws IOException {
+            ByteBuf input = frame.body;
+
+            if (isSingleDirectBuffer(input)) {
+                ByteBuffer in = inputBuffer(input);
+                if (!Snappy.isValidCompressedBuffer(in))
+                    throw new DriverInternalError("Provided frame does not appear to be Snappy compressed");
+
+                int uncompressedLength = Snappy.uncompressedLength(in);
+                ByteBuf output = alloc.directBuffer(uncompressedLength);
+                boolean success = false;
+                try {
+                    int size = Snappy.uncompress(in, output.nioBuffer(0, uncompressedLength));
+                    success = true;
+                    return frame.with(output.writerIndex(size));
+                } finally {
+                    if (!success)
+                        output.release();
+                }
+            } else if (input.hasArray()) {
+                byte[] in = input.array();
+                int offset = input.arrayOffset() + input.readerIndex();
+                int length = input.readableBytes();
+                if (!Snappy.isValidCompressedBuffer(in, offset, length))
+                    throw new DriverInternalError("Provided frame does not appear to be Snappy compressed");
 
-            if (!Snappy.isValidCompressedBuffer(input, 0, input.length))
-                throw new DriverInternalError("Provided frame does not appear to be Snappy compressed");
+                int uncompressedLength = Snappy.uncompressedLength(in, offset, length);
+                ByteBuf output = alloc.heapBuffer(uncompressedLength);
+                boolean success = false;
+                try {
+                    int size = Snappy.uncompress(in, offset, length, output.array(), output.arrayOffset());
+                    success = true;
+                    return frame.with(output.writerIndex(size));
+                } finally {
+                    if (!success)
+                        output.release();
+                }
+            } else {
+                byte[] in = CBUtil.readRawBytes(input);
+                if (!Snappy.isValidCompressedBuffer(in, 0, in.length))
+                    throw new DriverInternalError("Provided frame does not appear to be Snappy compressed");
 
-            byte[] output = new byte[Snappy.uncompressedLength(input)];
-            int size = Snappy.uncompress(input, 0, input.length, output, 0);
-            return frame.with(Unpooled.wrappedBuffer(output, 0, size));
+                byte[] out = new byte[Snappy.uncompressedLength(in)];
+                int size = Snappy.uncompress(in, 0, in.length, out, 0);
+                return frame.with(Unpooled.wrappedBuffer(out, 0, size));
+            }
         }
     }
 
@@ -107,45 +203,71 @@ abstract class FrameCompressor {
             decompressor = lz4Factory.fastDecompressor();
         }
 
-        @Override
-        public Frame compress(Frame frame) throws IOException {
-            byte[] input = CBUtil.readRawBytes(frame.body);
-
-            int maxCompressedLength = compressor.maxCompressedLength(input.length);
-            byte[] output = new byte[INTEGER_BYTES + maxCompressedLength];
+        /**
+         * Allocates a heap buffer if {@code input} is backed by an array, and a direct buffer otherwise.
+         * <p/>
+         * Note that LZ4's ByteBuffer API ignores the array offset of heap buffers, so the array API
+         * must be used for those; the ByteBuffer API is only used with direct output buffers.
+         */
+        private static ByteBuf allocateLike(ByteBufAllocator alloc, ByteBuf input, int capacity) {
+            return input.hasArray() ? alloc.heapBuffer(capacity) : alloc.directBuffer(capacity);
+        }
 
-            output[0] = (byte) (input.length >>> 24);
-            output[1] = (byte) (input.length >>> 16);
-            output[2] = (byte) (input.length >>> 8);
-            output[3] = (byte) (input.length);
+        @Override
+        public Frame compress(ByteBufAllocator alloc, Frame frame) throws IOException {
+            ByteBuf input = frame.body;
+            int inputLength = input.readableBytes();
+            int maxCompressedLength = compressor.maxCompressedLength(inputLength);
 
+            ByteBuf output = allocateLike(alloc, input, INTEGER_BYTES + maxCompressedLength);
             try {
-                int written = compressor.compress(input, 0, input.length, output, INTEGER_BYTES, maxCompressedLength);
-                return frame.with(Unpooled.wrappedBuffer(output, 0, INTEGER_BYTES + written));
+                output.writeInt(inputLength);
+
+                int written;
+                if (output.hasArray()) {
+                    written = compressor.compress(input.array(), input.arrayOffset() + input.readerIndex(), inputLength,
+                            output.array(), output.arrayOffset() + INTEGER_BYTES, maxCompressedLength);
+                } else {
+                    ByteBuffer in = inputBuffer(input);
+                    ByteBuffer out = output.nioBuffer(INTEGER_BYTES, maxCompressedLength);
+                    written = compressor.compress(in, in.position(), inputLength, out, out.position(), maxCompressedLength);
+                }
+                return frame.with(output.writerIndex(INTEGER_BYTES + written));
             } catch (Exception e) {
+                output.release();
                 throw new IOException(e);
             }
         }
 
         @Override
-        public Frame decompress(Frame frame) throws IOException {
-            byte[] input = CBUtil.readRawBytes(frame.body);
-
-            int uncompressedLength = ((input[0] & 0xFF) << 24)
-                    | ((input[1] & 0xFF) << 16)
-                    | ((input[2] & 0xFF) << 8)
-                    | ((input[3] & 0xFF));
-
-            byte[] output = new byte[uncompressedLength];
+        public Frame decompress(ByteBufAllocator alloc, Frame frame) throws IOException {
+            ByteBuf input = frame.body;
+            int uncompressedLength = input.readInt();
 
+            ByteBuf output = allocateLike(alloc, input, uncompressedLength);
+            boolean success = false;
             try {
-                int read = decompressor.decompress(input, INTEGER_BYTES, output, 0, uncompressedLength);
-                if (read != input.length - INTEGER_BYTES)
+                int read;
+                if (output.hasArray()) {
+                    read = decompressor.decompress(input.array(), input.arrayOffset() + input.readerIndex(),
+                            output.array(), output.arrayOffset(), uncompressedLength);
+                } else {
+                    ByteBuffer in = inputBuffer(input);
+                    ByteBuffer out = output.nioBuffer(0, uncompressedLength);
+                    read = decompressor.decompress(in, in.position(), out, out.position(), uncompressedLength);
+                }
+                if (read != input.readableBytes())
                     throw new IOException("Compressed lengths mismatch");
 
-                return frame.with(Unpooled.wrappedBuffer(output));
+                success = true;
+                return frame.with(output.writerIndex(uncompressedLength));
+            } catch (IOException e) {
+                throw e;
             } catch (Exception e) {
                 throw new IOException(e);
+            } finally {
+                if (!success)
+                    output.release();
             }
         }
     }
@@ -346,6 +346,62 @@ public interface GettableByIndexData {
      */
     public <T> List<T> getList(int i, TypeToken<T> elementsType);
 
+    /**
+     * Returns the {@code i}th value as an array of {@code int}s.
+     * <p/>
+     * Unlike {@link #getList(int, Class)}, this method does not use the {@link CodecRegistry}: it decodes
+     * a CQL {@code list<int>} directly into a primitive array, without boxing its elements.
+     * A CQL {@code NULL} is mapped to an empty array.
+     *
+     * @param i the index ({@code 0 <= i < size()}) to retrieve.
+     * @return the value of the {@code i}th element as an array of {@code int}s.
+     * @throws IndexOutOfBoundsException if {@code i} is not a valid index for this object.
+     * @throws InvalidTypeException      if value {@code i} is not of type {@code list<int>}.
+     */
+    public int[] getIntArray(int i);
+
+    /**
+     * Returns the {@code i}th value as an array of {@code long}s.
+     * <p/>
+     * Unlike {@link #getList(int, Class)}, this method does not use the {@link CodecRegistry}: it decodes
+     * a CQL {@code list<bigint>} directly into a primitive array, without boxing its elements.
+     * A CQL {@code NULL} is mapped to an empty array.
+     *
+     * @param i the index ({@code 0 <= i < size()}) to retrieve.
+     * @return the value of the {@code i}th element as an array of {@code long}s.
+     * @throws IndexOutOfBoundsException if {@code i} is not a valid index for this object.
+     * @throws InvalidTypeException      if value {@code i} is not of type {@code list<bigint>}.
+     */
+    public long[] getLongArray(int i);
+
+    /**
+     * Returns the {@code i}th value as an array of {@code float}s.
+     * <p/>
+     * Unlike {@link #getList(int, Class)}, this method does not use the {@link CodecRegistry}: it decodes
+     * a CQL {@code list<float>} directly into a primitive array, without boxing its elements.
+     * A CQL {@code NULL} is mapped to an empty array.
+     *
+     * @param i the index ({@code 0 <= i < size()}) to retrieve.
+     * @return the value of the {@code i}th element as an array of {@code float}s.
+     * @throws IndexOutOfBoundsException if {@code i} is not a valid index for this object.
+     * @throws InvalidTypeException      if value {@code i} is not of type {@code list<float>}.
+     */
+    public float[] getFloatArray(int i);
+
+    /**
+     * Returns the {@code i}th value as an array of {@code double}s.
+     * <p/>
+     * Unlike {@link #getList(int, Class)}, this method does not use the {@link CodecRegistry}: it decodes
+     * a CQL {@code list<double>} directly into a primitive array, without boxing its elements.
+     * A CQL {@code NULL} is mapped to an empty array.
+     *
+     * @param i the index ({@code 0 <= i < size()}) to retrieve.
+     * @return the value of the {@code i}th element as an array of {@code double}s.
+     * @throws IndexOutOfBoundsException if {@code i} is not a valid index for this object.
+     * @throws InvalidTypeException      if value {@code i} is not of type {@code list<double>}.
+     */
+    public double[] getDoubleArray(int i);
+
     /**
      * Returns the {@code i}th value as a set.
      * <p/>
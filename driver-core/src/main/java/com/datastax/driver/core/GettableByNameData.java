@@ -353,6 +353,62 @@ public interface GettableByNameData {
      */
     public <T> List<T> getList(String name, TypeToken<T> elementsType);
 
+    /**
+     * Returns the value for {@code name} as an array of {@code int}s.
+     * <p/>
+     * Unlike {@link #getList(String, Class)}, this method does not use the {@link CodecRegistry}: it decodes
+     * a CQL {@code list<int>} directly into a primitive array, without boxing its elements.
+     * A CQL {@code NULL} is mapped to an empty array.
+     *
+     * @param name the name to retrieve.
+     * @return the value for {@code name} as an array of {@code int}s.
+     * @throws IllegalArgumentException if {@code name} is not valid name for this object.
+     * @throws InvalidTypeException     if value {@code name} is not of type {@code list<int>}.
+     */
+    public int[] getIntArray(String name);
+
+    /**
+     * Returns the value for {@code name} as an array of {@code long}s.
+     * <p/>
+     * Unlike {@link #getList(String, Class)}, this method does not use the {@link CodecRegistry}: it decodes
+     * a CQL {@code list<bigint>} directly into a primitive array, without boxing its elements.
+     * A CQL {@code NULL} is mapped to an empty array.
+     *
+     * @param name the name to retrieve.
+     * @return the value for {@code name} as an array of {@code long}s.
+     * @throws IllegalArgumentException if {@code name} is not valid name for this object.
+     * @throws InvalidTypeException     if value {@code name} is not of type {@code list<bigint>}.
+     */
+    public long[] getLongArray(String name);
+
+    /**
+     * Returns the value for {@code name} as an array of {@code float}s.
+     * <p/>
+     * Unlike {@link #getList(String, Class)}, this method does not use the {@link CodecRegistry}: it decodes
+     * a CQL {@code list<float>} directly into a primitive array, without boxing its elements.
+     * A CQL {@code NULL} is mapped to an empty array.
+     *
+     * @param name the name to retrieve.
+     * @return the value for {@code name} as an array of {@code float}s.
+     * @throws IllegalArgumentException if {@code name} is not valid name for this object.
+     * @throws InvalidTypeException     if value {@code name} is not of type {@code list<float>}.
+     */
+    public float[] getFloatArray(String name);
+
+    /**
+     * Returns the value for {@code name} as an array of {@code double}s.
+     * <p/>
+     * Unlike {@link #getList(String, Class)}, this method does not use the {@link CodecRegistry}: it decodes
+     * a CQL {@code list<double>} directly into a primitive array, without boxing its elements.
+     * A CQL {@code NULL} is mapped to an empty array.
+     *
+     * @param name the name to retrieve.
+     * @return the value for {@code name} as an array of {@code double}s.
+     * @throws IllegalArgumentException if {@code name} is not valid name for this object.
+     * @throws InvalidTypeException     if value {@code name} is not of type {@code list<double>}.
+     */
+    public double[] getDoubleArray(String name);
+
     /**
      * Returns the value for {@code name} as a set.
      * <p/>
@@ -313,6 +313,26 @@ public class Host {
         return state == State.UP;
     }
 
+    /**
+     * Returns the number of requests that are currently being executed on this host, across all the sessions
+     * of the cluster. This includes requests that are waiting for a connection because the host's pools are
+     * busy (see {@link PoolingOptions#setMaxQueueSize(int)}).
+     * <p/>
+     * This is an instantaneous value, that load balancing policies can use to avoid overloaded hosts (see
+     * {@link com.datastax.driver.core.policies.TokenAwarePolicy.ReplicaOrdering#LEAST_BUSY}).
+     *
+     * @return the number of in-flight requests.
+     */
+    public int getInFlightQueries() {
+        int inFlight = 0;
+        for (SessionManager session : manager.sessions) {
+            HostConnectionPool pool = session.pools.get(this);
+            if (pool != null)
+                inFlight += pool.totalInFlight.get() + pool.pendingBorrowCount();
+        }
+        return inFlight;
+    }
+
     /**
      * Returns a description of the host's state, as seen by the driver.
      * <p/>
@@ -16,6 +16,7 @@
 package com.datastax.driver.core;
 
 import com.datastax.driver.core.exceptions.AuthenticationException;
+import com.datastax.driver.core.exceptions.BusyPoolException;
 import com.datastax.driver.core.exceptions.ConnectionException;
 import com.datastax.driver.core.exceptions.UnsupportedProtocolVersionException;
 import com.datastax.driver.core.utils.MoreFutures;
@@ -23,19 +24,17 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.*;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.ListIterator;
-import java.util.Set;
+import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 import static com.datastax.driver.core.Connection.State.*;
 
@@ -45,6 +44,14 @@ class HostConnectionPool implements Connection.Owner {
 
     private static final int MAX_SIMULTANEOUS_CREATION = 1;
 
+    // Used to pick connections at random; one instance per thread to avoid contention
+    private static final ThreadLocal<Random> RANDOM = new ThreadLocal<Random>() {
+        @Override
+        protected Random initialValue() {
+            return new Random();
+        }
+    };
+
     final Host host;
     volatile HostDistance hostDistance;
     protected final SessionManager manager;
@@ -62,14 +69,25 @@ class HostConnectionPool implements Connection.Owner {
     @VisibleForTesting
     final Set<Connection> trash = new CopyOnWriteArraySet<Connection>();
 
-    private volatile int waiter = 0;
-    private final Lock waitLock = new ReentrantLock(true);
-    private final Condition hasAvailableConnection = waitLock.newCondition();
+    /**
+     * Borrowers waiting for a connection when all connections are busy. They are completed, without
+     * locking, by the thread that makes a connection available (see {@link #dequeue(Connection)}).
+     */
+    private final Queue<PendingBorrow> pendingBorrows = new ConcurrentLinkedQueue<PendingBorrow>();
+    /**
+     * The size of {@link #pendingBorrows}, tracked separately because {@code ConcurrentLinkedQueue.size()} is not
+     * constant-time.
+     */
+    private final AtomicInteger pendingBorrowCount = new AtomicInteger();
 
     private final Runnable newConnectionTask;
 
     private final AtomicInteger scheduledForCreation = new AtomicInteger();
 
+    // Used to spread connections over the event loops with event loop affinity (starts at random, so that pools
+    // with less connections than there are event loops don't all use the same ones)
+    private final AtomicInteger eventLoopIndex = new AtomicInteger(RANDOM.get().nextInt(Integer.MAX_VALUE));
+
     protected final AtomicReference<CloseFuture> closeFuture = new AtomicReference<CloseFuture>();
 
     private enum Phase {INITIALIZING, READY, INIT_FAILED, CLOSING}
@@ -196,16 +214,45 @@ class HostConnectionPool implements Connection.Owner {
         return manager.configuration().getPoolingOptions();
     }
 
-    public Connection borrowConnection(long timeout, TimeUnit unit) throws ConnectionException, TimeoutException {
+    /**
+     * Borrows a connection, blocking until one is available.
+     * <p/>
+     * This is only used by tests. The driver itself uses {@link #borrowConnection(long, TimeUnit, int)}, which
+     * never blocks.
+     */
+    @VisibleForTesting
+    Connection borrowConnection(long timeout, TimeUnit unit) throws ConnectionException, TimeoutException {
+        ListenableFuture<Connection> borrow = borrowConnection(timeout, unit, options().getMaxQueueSize());
+        try {
+            return Uninterruptibles.getUninterruptibly(borrow);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            Throwables.propagateIfInstanceOf(cause, ConnectionException.class);
+            Throwables.propagateIfInstanceOf(cause, TimeoutException.class);
+            if (cause instanceof BusyPoolException)
+                throw new TimeoutException(cause.getMessage());
+            throw Throwables.propagate(cause);
+        }
+    }
+
+    /**
+     * Borrows a connection without blocking.
+     * <p/>
+     * If all connections are busy, the request is enqueued until a connection becomes available, or fails with a
+     * {@link BusyPoolException} if the queue is full or no connection became available within the timeout.
+     *
+     * @return a future that completes with the connection, once the session's current keyspace is set on it.
+     */
+    ListenableFuture<Connection> borrowConnection(long timeout, TimeUnit unit, int maxQueueSize) {
         Phase phase = this.phase.get();
         if (phase != Phase.READY)
-            // Note: throwing a ConnectionException is probably fine in practice as it will trigger the creation of a new host.
+            // Note: failing with a ConnectionException is probably fine in practice as it will trigger the creation of a new host.
             // That being said, maybe having a specific exception could be cleaner.
-            throw new ConnectionException(host.getSocketAddress(), "Pool is " + phase);
+            return Futures.immediateFailedFuture(new ConnectionException(host.getSocketAddress(), "Pool is " + phase));
 
         if (connections.isEmpty()) {
             if (!host.convictionPolicy.canReconnectNow())
-                throw new TimeoutException("Connection pool is empty, currently trying to reestablish connections");
+                return Futures.immediateFailedFuture(new TimeoutException("Connection pool is empty, currently trying to reestablish connections"));
             else {
                 int coreSize = options().getCoreConnectionsPerHost(hostDistance);
                 if (coreSize == 0) {
@@ -218,53 +265,33 @@ class HostConnectionPool implements Connection.Owner {
                         manager.blockingExecutor().submit(newConnectionTask);
                     }
                 }
-                Connection c = waitForConnection(timeout, unit);
-                totalInFlight.incrementAndGet();
-                c.setKeyspace(manager.poolsState.keyspace);
-                return c;
+                return setKeyspace(enqueue(timeout, unit, maxQueueSize));
             }
         }
 
-        int minInFlight = Integer.MAX_VALUE;
-        Connection leastBusy = null;
-        for (Connection connection : connections) {
-            int inFlight = connection.inFlight.get();
-            if (inFlight < minInFlight) {
-                minInFlight = inFlight;
-                leastBusy = connection;
-            }
-        }
+        Connection candidate = null;
+        if (options().isEventLoopAffinityEnabled())
+            candidate = currentEventLoopConnection();
+        if (candidate == null)
+            candidate = leastBusyConnection();
 
-        if (leastBusy == null) {
+        ListenableFuture<Connection> borrow;
+        if (candidate == null) {
             // We could have raced with a shutdown since the last check
             if (isClosed())
-                throw new ConnectionException(host.getSocketAddress(), "Pool is shutdown");
+                return Futures.immediateFailedFuture(new ConnectionException(host.getSocketAddress(), "Pool is shutdown"));
             // This might maybe happen if the number of core connections per host is 0 and a connection was trashed between
             // the previous check to connections and now. But in that case, the line above will have trigger the creation of
             // a new connection, so just wait that connection and move on
-            leastBusy = waitForConnection(timeout, unit);
+            borrow = enqueue(timeout, unit, maxQueueSize);
+        } else if (tryAcquire(candidate)) {
+            incrementTotalInFlight();
+            borrow = Futures.immediateFuture(candidate);
         } else {
-            while (true) {
-                int inFlight = leastBusy.inFlight.get();
-
-                if (inFlight >= Math.min(leastBusy.maxAvailableStreams(), options().getMaxRequestsPerConnection(hostDistance))) {
-                    leastBusy = waitForConnection(timeout, unit);
-                    break;
-                }
-
-                if (leastBusy.inFlight.compareAndSet(inFlight, inFlight + 1))
-                    break;
-            }
-        }
-
-        int totalInFlightCount = totalInFlight.incrementAndGet();
-        // update max atomically:
-        while (true) {
-            int oldMax = maxTotalInFlight.get();
-            if (totalInFlightCount <= oldMax || maxTotalInFlight.compareAndSet(oldMax, totalInFlightCount))
-                break;
+            borrow = enqueue(timeout, unit, maxQueueSize);
         }
 
+        int totalInFlightCount = totalInFlight.get();
         int connectionCount = open.get() + scheduledForCreation.get();
         if (connectionCount < options().getCoreConnectionsPerHost(hostDistance)) {
             maybeSpawnNewConnection();
@@ -276,117 +303,230 @@ class HostConnectionPool implements Connection.Owner {
                 maybeSpawnNewConnection();
         }
 
-        leastBusy.setKeyspace(manager.poolsState.keyspace);
-        return leastBusy;
+        return setKeyspace(borrow);
     }
 
-    private void awaitAvailableConnection(long timeout, TimeUnit unit) throws InterruptedException {
-        waitLock.lock();
-        waiter++;
-        try {
-            hasAvailableConnection.await(timeout, unit);
-        } finally {
-            waiter--;
-            waitLock.unlock();
+    /**
+     * Sets the session's current keyspace on a borrowed connection, and releases the connection if that fails.
+     */
+    private ListenableFuture<Connection> setKeyspace(ListenableFuture<Connection> borrow) {
+        return Futures.transform(borrow, new AsyncFunction<Connection, Connection>() {
+            @Override
+            public ListenableFuture<Connection> apply(final Connection connection) throws Exception {
+                ListenableFuture<Connection> keyspaceFuture = connection.setKeyspaceAsync(manager.poolsState.keyspace);
+                Futures.addCallback(keyspaceFuture, new FutureCallback<Connection>() {
+                    @Override
+                    public void onSuccess(Connection result) {
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        connection.release();
+                    }
+                });
+                return keyspaceFuture;
+            }
+        });
+    }
+
+    /**
+     * Picks the least busy of two connections chosen at random ("power of two choices"), which
+     * is close to picking the least busy connection of the pool, but without scanning it.
+     * If the chosen connection is full, fall back to a full scan to make sure we don't wait for a
+     * connection while another one is available.
+     *
+     * @return the connection, or {@code null} if the pool has no connections.
+     */
+    private Connection leastBusyConnection() {
+        Connection candidate = null;
+        int size = connections.size();
+        if (size <= 2) {
+            candidate = leastBusy(connections);
+        } else {
+            Random random = RANDOM.get();
+            int i = random.nextInt(size);
+            int j = random.nextInt(size - 1);
+            if (j >= i)
+                j += 1;
+            Connection first = connectionAt(i), second = connectionAt(j);
+            if (first == null || (second != null && second.inFlight.get() < first.inFlight.get()))
+                candidate = second;
+            else
+                candidate = first;
         }
+        if (candidate == null || candidate.inFlight.get() >= maxInFlight(candidate))
+            candidate = leastBusy(connections);
+        return candidate;
     }
 
-    private void signalAvailableConnection() {
-        // Quick check if it's worth signaling to avoid locking
-        if (waiter == 0)
-            return;
+    /**
+     * Returns a connection that is served by the current thread and is not full, if the current thread is one
+     * of the driver's event loops (see {@link PoolingOptions#setEventLoopAffinityEnabled(boolean)}).
+     *
+     * @return the connection, or {@code null} if there is none.
+     */
+    private Connection currentEventLoopConnection() {
+        for (Connection connection : connections) {
+            Channel channel = connection.channel;
+            if (channel != null && channel.eventLoop().inEventLoop()
+                    && connection.inFlight.get() < maxInFlight(connection))
+                return connection;
+        }
+        return null;
+    }
 
-        waitLock.lock();
+    /**
+     * Returns the event loop that the next connection of this pool should be bound to, or {@code null} if
+     * event loop affinity is disabled.
+     */
+    EventLoop nextEventLoop() {
+        if (!options().isEventLoopAffinityEnabled())
+            return null;
+        List<EventLoop> eventLoops = manager.connectionFactory().eventLoops();
+        if (eventLoops.isEmpty())
+            return null;
+        int i = (eventLoopIndex.getAndIncrement() & Integer.MAX_VALUE) % eventLoops.size();
+        return eventLoops.get(i);
+    }
+
+    private static Connection leastBusy(Iterable<Connection> connections) {
+        int minInFlight = Integer.MAX_VALUE;
+        Connection leastBusy = null;
+        for (Connection connection : connections) {
+            int inFlight = connection.inFlight.get();
+            if (inFlight < minInFlight) {
+                minInFlight = inFlight;
+                leastBusy = connection;
+            }
+        }
+        return leastBusy;
+    }
+
+    private Connection connectionAt(int i) {
         try {
-            hasAvailableConnection.signal();
-        } finally {
-            waitLock.unlock();
+            return connections.get(i);
+        } catch (IndexOutOfBoundsException e) {
+            // We raced with the removal of a connection
+            return null;
         }
     }
 
-    private void signalAllAvailableConnection() {
-        // Quick check if it's worth signaling to avoid locking
-        if (waiter == 0)
-            return;
+    private int maxInFlight(Connection connection) {
+        return Math.min(connection.maxAvailableStreams(), options().getMaxRequestsPerConnection(hostDistance));
+    }
 
-        waitLock.lock();
-        try {
-            hasAvailableConnection.signalAll();
-        } finally {
-            waitLock.unlock();
+    /**
+     * Reserves a request slot on the given connection, if it is not full.
+     */
+    private boolean tryAcquire(Connection connection) {
+        while (true) {
+            int inFlight = connection.inFlight.get();
+
+            if (inFlight >= maxInFlight(connection))
+                return false;
+
+            if (connection.inFlight.compareAndSet(inFlight, inFlight + 1))
+                return true;
         }
     }
 
-    private Connection waitForConnection(long timeout, TimeUnit unit) throws ConnectionException, TimeoutException {
+    private void incrementTotalInFlight() {
+        int totalInFlightCount = totalInFlight.incrementAndGet();
+        // update max atomically:
+        while (true) {
+            int oldMax = maxTotalInFlight.get();
+            if (totalInFlightCount <= oldMax || maxTotalInFlight.compareAndSet(oldMax, totalInFlightCount))
+                break;
+        }
+    }
+
+    private ListenableFuture<Connection> enqueue(long timeout, TimeUnit unit, int maxQueueSize) {
         if (timeout == 0)
-            throw new TimeoutException("All connections are busy and pool timeout is 0");
-
-        long start = System.nanoTime();
-        long remaining = timeout;
-        do {
-            try {
-                awaitAvailableConnection(remaining, unit);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                // If we're interrupted fine, check if there is a connection available but stop waiting otherwise
-                timeout = 0; // this will make us stop the loop if we don't get a connection right away
-            }
+            return Futures.immediateFailedFuture(new BusyPoolException(host.getSocketAddress(), timeout, unit));
 
-            if (isClosed())
-                throw new ConnectionException(host.getSocketAddress(), "Pool is shutdown");
-
-            int minInFlight = Integer.MAX_VALUE;
-            Connection leastBusy = null;
-            for (Connection connection : connections) {
-                int inFlight = connection.inFlight.get();
-                if (inFlight < minInFlight) {
-                    minInFlight = inFlight;
-                    leastBusy = connection;
-                }
-            }
+        while (true) {
+            int count = pendingBorrowCount.get();
+            if (count >= maxQueueSize)
+                return Futures.immediateFailedFuture(new BusyPoolException(host.getSocketAddress(), maxQueueSize));
+            if (pendingBorrowCount.compareAndSet(count, count + 1))
+                break;
+        }
 
-            // If we race with shutdown, leastBusy could be null. In that case we just loop and we'll throw on the next
-            // iteration anyway
-            if (leastBusy != null) {
-                while (true) {
-                    int inFlight = leastBusy.inFlight.get();
+        PendingBorrow borrow = new PendingBorrow(timeout, unit);
+        pendingBorrows.offer(borrow);
 
-                    if (inFlight >= Math.min(leastBusy.maxAvailableStreams(), options().getMaxRequestsPerConnection(hostDistance)))
-                        break;
+        // A connection might have been returned or added between the moment we found the pool busy and
+        // the moment we got enqueued, in which case nobody would complete us; check again.
+        Connection leastBusy = leastBusy(connections);
+        if (leastBusy != null)
+            dequeue(leastBusy);
+        if (isClosed())
+            failPendingBorrows();
 
-                    if (leastBusy.inFlight.compareAndSet(inFlight, inFlight + 1))
-                        return leastBusy;
-                }
+        return borrow.future;
+    }
+
+    /**
+     * Hands request slots of the given connection to pending borrowers, for as long as there are
+     * borrowers and the connection has available slots.
+     */
+    private void dequeue(Connection connection) {
+        while (!pendingBorrows.isEmpty() && connection.state.get() == OPEN) {
+            if (!tryAcquire(connection))
+                return;
+
+            PendingBorrow borrow = pendingBorrows.poll();
+            if (borrow == null) {
+                connection.inFlight.decrementAndGet();
+                return;
             }
+            pendingBorrowCount.decrementAndGet();
 
-            remaining = timeout - Cluster.timeSince(start, unit);
-        } while (remaining > 0);
+            // Account for the request before completing the borrow, since this runs the borrower's callbacks
+            incrementTotalInFlight();
+            // If the borrower has given up already (timeout or cancellation), give the slot back and try the next
+            // borrower. No stream was used, so there is no need to check whether the connection should be replaced.
+            if (!borrow.set(connection) && !release(connection))
+                return;
+        }
+    }
 
-        throw new TimeoutException("All connections are busy");
+    private void failPendingBorrows() {
+        PendingBorrow borrow;
+        while ((borrow = pendingBorrows.poll()) != null) {
+            pendingBorrowCount.decrementAndGet();
+            borrow.setException(new ConnectionException(host.getSocketAddress(), "Pool is shutdown"));
+        }
     }
 
     public void returnConnection(Connection connection) {
+        if (!release(connection))
+            return;
+
+        if (connection.maxAvailableStreams() < minAllowedStreams) {
+            replaceConnection(connection);
+        } else {
+            dequeue(connection);
+        }
+    }
+
+    /**
+     * Gives a request slot of the given connection back to the pool.
+     *
+     * @return whether the connection can still be handed to other borrowers.
+     */
+    private boolean release(Connection connection) {
         connection.inFlight.decrementAndGet();
         totalInFlight.decrementAndGet();
 
         if (isClosed()) {
             close(connection);
-            return;
-        }
-
-        if (connection.isDefunct()) {
-            // As part of making it defunct, we have already replaced it or
-            // closed the pool.
-            return;
+            return false;
         }
 
-        if (connection.state.get() != TRASHED) {
-            if (connection.maxAvailableStreams() < minAllowedStreams) {
-                replaceConnection(connection);
-            } else {
-                signalAvailableConnection();
-            }
-        }
+        // If the connection is defunct, as part of making it defunct, we have already replaced it or
+        // closed the pool.
+        return !connection.isDefunct() && connection.state.get() != TRASHED;
     }
 
     // Trash the connection and create a new one, but we don't call trashConnection
@@ -465,7 +605,7 @@ class HostConnectionPool implements Connection.Owner {
                 return false;
             }
 
-            signalAvailableConnection();
+            dequeue(newConnection);
             return true;
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
@@ -612,8 +752,8 @@ class HostConnectionPool implements Connection.Owner {
 
         phase.set(Phase.CLOSING);
 
-        // Wake up all threads that wait
-        signalAllAvailableConnection();
+        // Fail all borrowers that wait
+        failPendingBorrows();
 
         future = new CloseFuture.Forwarding(discardAvailableConnections());
 
@@ -622,6 +762,10 @@ class HostConnectionPool implements Connection.Owner {
                 : closeFuture.get(); // We raced, it's ok, return the future that was actually set
     }
 
+    int pendingBorrowCount() {
+        return pendingBorrowCount.get();
+    }
+
     public int opened() {
         return open.get();
     }
@@ -676,6 +820,49 @@ class HostConnectionPool implements Connection.Owner {
         }
     }
 
+    /**
+     * A borrower waiting in {@link #pendingBorrows}, which fails with a {@link BusyPoolException} if it does not get
+     * a connection within its timeout.
+     */
+    private class PendingBorrow {
+        final SettableFuture<Connection> future = SettableFuture.create();
+        private final Timeout timeout;
+
+        PendingBorrow(final long timeout, final TimeUnit unit) {
+            this.timeout = manager.connectionFactory().timer.newTimeout(new TimerTask() {
+                @Override
+                public void run(Timeout t) throws Exception {
+                    if (pendingBorrows.remove(PendingBorrow.this))
+                        pendingBorrowCount.decrementAndGet();
+                    future.setException(new BusyPoolException(host.getSocketAddress(), timeout, unit));
+                }
+            }, timeout, unit);
+            future.addListener(new Runnable() {
+                @Override
+                public void run() {
+                    // The borrower gave up, don't keep it in the queue until its timeout
+                    if (future.isCancelled()) {
+                        PendingBorrow.this.timeout.cancel();
+                        if (pendingBorrows.remove(PendingBorrow.this))
+                            pendingBorrowCount.decrementAndGet();
+                    }
+                }
+            }, MoreExecutors.sameThreadExecutor());
+        }
+
+        boolean set(Connection connection) {
+            if (!future.set(connection))
+                return false;
+            timeout.cancel();
+            return true;
+        }
+
+        void setException(Throwable t) {
+            if (future.setException(t))
+                timeout.cancel();
+        }
+    }
+
     static class PoolState {
         volatile String keyspace;
 
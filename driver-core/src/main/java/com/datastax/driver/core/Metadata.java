@@ -68,13 +68,7 @@ public class Metadata {
         try {
             if (tokenMap == null)
                 return;
-            this.tokenMap = TokenMap.build(
-                    tokenMap.factory,
-                    tokenMap.primaryToTokens,
-                    keyspaces.values(),
-                    tokenMap.ring,
-                    tokenMap.tokenRanges,
-                    tokenMap.tokenToPrimary);
+            this.tokenMap = tokenMap.rebuild(keyspaces.values());
         } finally {
             lock.unlock();
         }
@@ -84,7 +78,11 @@ public class Metadata {
     void rebuildTokenMap(Token.Factory factory, Map<Host, Set<Token>> allTokens) {
         lock.lock();
         try {
-            this.tokenMap = TokenMap.build(factory, allTokens, keyspaces.values());
+            // Refreshing the node list often does not change the ring (e.g. when a node goes down and up again)
+            TokenMap current = tokenMap;
+            this.tokenMap = (current != null && current.hasSameTopology(factory, allTokens))
+                    ? current.rebuild(keyspaces.values())
+                    : TokenMap.build(factory, allTokens, keyspaces.values());
         } finally {
             lock.unlock();
         }
@@ -304,11 +302,74 @@ public class Metadata {
         if (current == null) {
             return Collections.emptySet();
         } else {
-            Set<Host> hosts = current.getReplicas(keyspace, current.factory.hash(partitionKey));
+            Set<Host> hosts = current.getReplicas(keyspace, partitionKey);
             return hosts == null ? Collections.<Host>emptySet() : hosts;
         }
     }
 
+    /**
+     * Returns the set of hosts that are replica for a given token.
+     * <p/>
+     * Note that this information is refreshed asynchronously by the control
+     * connection, when schema or ring topology changes. It might occasionally
+     * be stale (or even empty).
+     *
+     * @param keyspace the name of the keyspace to get replicas for.
+     * @param token    the token, typically obtained with {@link #getRoutingToken(Statement)}.
+     * @return the (immutable) set of replicas for {@code token} as known
+     * by the driver. Note that the result might be stale or empty if metadata was
+     * explicitly disabled with {@link QueryOptions#setMetadataEnabled(boolean)}.
+     */
+    public Set<Host> getReplicas(String keyspace, Token token) {
+        keyspace = handleId(keyspace);
+        TokenMap current = tokenMap;
+        if (current == null) {
+            return Collections.emptySet();
+        } else {
+            Set<Host> hosts = current.getReplicas(keyspace, token);
+            return hosts == null ? Collections.<Host>emptySet() : hosts;
+        }
+    }
+
+    /**
+     * Returns the token of a statement's routing key.
+     * <p/>
+     * This is a shortcut for {@link #getRoutingToken(Statement, ProtocolVersion, CodecRegistry)} with
+     * the protocol version and codec registry of the cluster.
+     *
+     * @param statement the statement.
+     * @return the token, or {@code null} if the statement has no routing key or the token factory was not
+     * initialized (which would typically happen if metadata was explicitly disabled with
+     * {@link QueryOptions#setMetadataEnabled(boolean)} before startup).
+     */
+    public Token getRoutingToken(Statement statement) {
+        return getRoutingToken(statement, cluster.protocolVersion(), cluster.configuration.getCodecRegistry());
+    }
+
+    /**
+     * Returns the token of a statement's routing key.
+     * <p/>
+     * The token is cached on the statement (see {@link Statement#getRoutingToken()}), and only hashed again
+     * if the statement returns a different routing key, so this can be called repeatedly on the same statement
+     * (e.g. to group statements by replica before executing them) at little cost.
+     *
+     * @param statement       the statement.
+     * @param protocolVersion the protocol version to pass to {@link Statement#getRoutingKey(ProtocolVersion, CodecRegistry)}.
+     * @param codecRegistry   the codec registry to pass to {@link Statement#getRoutingKey(ProtocolVersion, CodecRegistry)}.
+     * @return the token, or {@code null} if the statement has no routing key or the token factory was not
+     * initialized (which would typically happen if metadata was explicitly disabled with
+     * {@link QueryOptions#setMetadataEnabled(boolean)} before startup).
+     */
+    public Token getRoutingToken(Statement statement, ProtocolVersion protocolVersion, CodecRegistry codecRegistry) {
+        TokenMap current = tokenMap;
+        if (current == null)
+            return null;
+        ByteBuffer routingKey = statement.getRoutingKey(protocolVersion, codecRegistry);
+        if (routingKey == null)
+            return null;
+        return statement.getRoutingToken(current.factory, routingKey);
+    }
+
     /**
      * Returns the set of hosts that are replica for a given token range.
      * <p/>
@@ -394,7 +455,7 @@ public class Metadata {
     KeyspaceMetadata removeKeyspace(String keyspace) {
         KeyspaceMetadata removed = keyspaces.remove(keyspace);
         if (tokenMap != null)
-            tokenMap.tokenToHostsByKeyspace.remove(keyspace);
+            tokenMap.replicasByKeyspace.remove(keyspace);
         return removed;
     }
 
@@ -623,26 +684,38 @@ public class Metadata {
 
         private final Token.Factory factory;
         private final Map<Host, Set<Token>> primaryToTokens;
-        private final Map<String, Map<Token, Set<Host>>> tokenToHostsByKeyspace;
+        // For each keyspace, the replicas of each token of the ring, in ring order
+        private final Map<String, Set<Host>[]> replicasByKeyspace;
         private final Map<String, Map<Host, Set<TokenRange>>> hostsToRangesByKeyspace;
+        // Replica maps are shared by keyspaces with the same replication strategy, and reused by the next
+        // token map if the ring has not changed
+        private final Map<ReplicationStrategy, ReplicaMaps> replicasByStrategy;
         private final List<Token> ring;
+        private final RingIndex ringIndex;
         private final Set<TokenRange> tokenRanges;
         private final Map<Token, Host> tokenToPrimary;
+        private final Map<Host, List<Object>> topology;
 
         private TokenMap(Token.Factory factory,
                          List<Token> ring,
+                         RingIndex ringIndex,
                          Set<TokenRange> tokenRanges,
                          Map<Token, Host> tokenToPrimary,
                          Map<Host, Set<Token>> primaryToTokens,
-                         Map<String, Map<Token, Set<Host>>> tokenToHostsByKeyspace,
-                         Map<String, Map<Host, Set<TokenRange>>> hostsToRangesByKeyspace) {
+                         Map<String, Set<Host>[]> replicasByKeyspace,
+                         Map<String, Map<Host, Set<TokenRange>>> hostsToRangesByKeyspace,
+                         Map<ReplicationStrategy, ReplicaMaps> replicasByStrategy,
+                         Map<Host, List<Object>> topology) {
             this.factory = factory;
             this.ring = ring;
+            this.ringIndex = ringIndex;
             this.tokenRanges = tokenRanges;
             this.tokenToPrimary = tokenToPrimary;
             this.primaryToTokens = primaryToTokens;
-            this.tokenToHostsByKeyspace = tokenToHostsByKeyspace;
+            this.replicasByKeyspace = replicasByKeyspace;
             this.hostsToRangesByKeyspace = hostsToRangesByKeyspace;
+            this.replicasByStrategy = replicasByStrategy;
+            this.topology = topology;
             for (Map.Entry<Host, Set<Token>> entry : primaryToTokens.entrySet()) {
                 Host host = entry.getKey();
                 host.setTokens(ImmutableSet.copyOf(entry.getValue()));
@@ -665,61 +738,106 @@ public class Metadata {
             }
             List<Token> ring = new ArrayList<Token>(allSorted);
             Set<TokenRange> tokenRanges = makeTokenRanges(ring, factory);
-            return build(factory, allTokens, keyspaces, ring, tokenRanges, tokenToPrimary);
+            return build(factory, allTokens, keyspaces, ring, RingIndex.create(factory, ring), tokenRanges, tokenToPrimary,
+                    Collections.<ReplicationStrategy, ReplicaMaps>emptyMap(), topology(allTokens));
+        }
+
+        /**
+         * Rebuilds the map for new keyspaces, on the same ring. Only the replicas of replication strategies that
+         * were not used by any keyspace before are computed.
+         */
+        private TokenMap rebuild(Collection<KeyspaceMetadata> keyspaces) {
+            return build(factory, primaryToTokens, keyspaces, ring, ringIndex, tokenRanges, tokenToPrimary,
+                    replicasByStrategy, topology);
+        }
+
+        /**
+         * Whether the given hosts and tokens describe the same ring, and the same host locations, as this map.
+         */
+        private boolean hasSameTopology(Token.Factory factory, Map<Host, Set<Token>> allTokens) {
+            if (this.factory != factory || topology.size() != allTokens.size())
+                return false;
+            // Note: IdentityHashMap.equals would also compare values by reference
+            Map<Host, List<Object>> other = topology(allTokens);
+            for (Map.Entry<Host, List<Object>> entry : topology.entrySet()) {
+                if (!entry.getValue().equals(other.get(entry.getKey())))
+                    return false;
+            }
+            return true;
         }
 
-        private static TokenMap build(Token.Factory factory, Map<Host, Set<Token>> allTokens, Collection<KeyspaceMetadata> keyspaces, List<Token> ring, Set<TokenRange> tokenRanges, Map<Token, Host> tokenToPrimary) {
-            Set<Host> hosts = allTokens.keySet();
-            Map<String, Map<Token, Set<Host>>> tokenToHosts = new HashMap<String, Map<Token, Set<Host>>>();
-            Map<ReplicationStrategy, Map<Token, Set<Host>>> replStrategyToHosts = new HashMap<ReplicationStrategy, Map<Token, Set<Host>>>();
+        // The tokens, datacenter and rack of each host (identified by reference, since a host that was removed
+        // and re-added is a new object), which are all that replica placement depends on
+        private static Map<Host, List<Object>> topology(Map<Host, Set<Token>> allTokens) {
+            Map<Host, List<Object>> topology = new IdentityHashMap<Host, List<Object>>(allTokens.size());
+            for (Map.Entry<Host, Set<Token>> entry : allTokens.entrySet()) {
+                Host host = entry.getKey();
+                topology.put(host, Arrays.<Object>asList(entry.getValue(), host.getDatacenter(), host.getRack()));
+            }
+            return topology;
+        }
+
+        private static TokenMap build(Token.Factory factory, Map<Host, Set<Token>> allTokens, Collection<KeyspaceMetadata> keyspaces,
+                                      List<Token> ring, RingIndex ringIndex, Set<TokenRange> tokenRanges, Map<Token, Host> tokenToPrimary,
+                                      Map<ReplicationStrategy, ReplicaMaps> previousReplicas, Map<Host, List<Object>> topology) {
+            Map<String, Set<Host>[]> replicas = new HashMap<String, Set<Host>[]>();
+            Map<ReplicationStrategy, ReplicaMaps> replStrategyToReplicas = new HashMap<ReplicationStrategy, ReplicaMaps>();
             Map<String, Map<Host, Set<TokenRange>>> hostsToRanges = new HashMap<String, Map<Host, Set<TokenRange>>>();
             for (KeyspaceMetadata keyspace : keyspaces) {
                 ReplicationStrategy strategy = keyspace.replicationStrategy();
-                Map<Token, Set<Host>> ksTokens = replStrategyToHosts.get(strategy);
-                if (ksTokens == null) {
-                    ksTokens = (strategy == null)
-                            ? makeNonReplicatedMap(tokenToPrimary)
-                            : strategy.computeTokenToReplicaMap(keyspace.getName(), tokenToPrimary, ring);
-                    replStrategyToHosts.put(strategy, ksTokens);
+                ReplicaMaps ksReplicas = replStrategyToReplicas.get(strategy);
+                if (ksReplicas == null) {
+                    ksReplicas = previousReplicas.get(strategy);
+                    if (ksReplicas == null)
+                        ksReplicas = computeReplicaMaps(keyspace.getName(), strategy, allTokens.keySet(), ring, tokenRanges, tokenToPrimary);
+                    replStrategyToReplicas.put(strategy, ksReplicas);
                 }
+                replicas.put(keyspace.getName(), ksReplicas.replicas);
+                hostsToRanges.put(keyspace.getName(), ksReplicas.hostsToRanges);
+            }
+            return new TokenMap(factory, ring, ringIndex, tokenRanges, tokenToPrimary, allTokens, replicas, hostsToRanges,
+                    replStrategyToReplicas, topology);
+        }
 
-                tokenToHosts.put(keyspace.getName(), ksTokens);
-
-                Map<Host, Set<TokenRange>> ksRanges;
-                if (ring.size() == 1) {
-                    // We forced the single range to ]minToken,minToken], make sure to use that instead of relying on the host's token
-                    ImmutableMap.Builder<Host, Set<TokenRange>> builder = ImmutableMap.builder();
-                    for (Host host : allTokens.keySet())
-                        builder.put(host, tokenRanges);
-                    ksRanges = builder.build();
-                } else {
-                    ksRanges = computeHostsToRangesMap(tokenRanges, ksTokens, hosts.size());
-                }
-                hostsToRanges.put(keyspace.getName(), ksRanges);
+        private static ReplicaMaps computeReplicaMaps(String keyspaceName, ReplicationStrategy strategy, Set<Host> hosts,
+                                                      List<Token> ring, Set<TokenRange> tokenRanges, Map<Token, Host> tokenToPrimary) {
+            Map<Token, Set<Host>> ksTokens = (strategy == null)
+                    ? makeNonReplicatedMap(tokenToPrimary)
+                    : strategy.computeTokenToReplicaMap(keyspaceName, tokenToPrimary, ring);
+
+            Map<Host, Set<TokenRange>> ksRanges;
+            if (ring.size() == 1) {
+                // We forced the single range to ]minToken,minToken], make sure to use that instead of relying on the host's token
+                ImmutableMap.Builder<Host, Set<TokenRange>> builder = ImmutableMap.builder();
+                for (Host host : hosts)
+                    builder.put(host, tokenRanges);
+                ksRanges = builder.build();
+            } else {
+                ksRanges = computeHostsToRangesMap(tokenRanges, ksTokens, hosts.size());
             }
-            return new TokenMap(factory, ring, tokenRanges, tokenToPrimary, allTokens, tokenToHosts, hostsToRanges);
+            return new ReplicaMaps(makeReplicaArray(ring, ksTokens), ksRanges);
         }
 
         private Set<Host> getReplicas(String keyspace, Token token) {
-
-            Map<Token, Set<Host>> tokenToHosts = tokenToHostsByKeyspace.get(keyspace);
-            if (tokenToHosts == null)
+            Set<Host>[] replicas = replicasByKeyspace.get(keyspace);
+            if (replicas == null || replicas.length == 0)
                 return Collections.emptySet();
+            return replicas[ringIndex.indexOf(token)];
+        }
 
-            // If the token happens to be one of the "primary" tokens, get result directly
-            Set<Host> hosts = tokenToHosts.get(token);
-            if (hosts != null)
-                return hosts;
-
-            // Otherwise, find closest "primary" token on the ring
-            int i = Collections.binarySearch(ring, token);
-            if (i < 0) {
-                i = -i - 1;
-                if (i >= ring.size())
-                    i = 0;
-            }
+        private Set<Host> getReplicas(String keyspace, ByteBuffer partitionKey) {
+            Set<Host>[] replicas = replicasByKeyspace.get(keyspace);
+            if (replicas == null || replicas.length == 0)
+                return Collections.emptySet();
+            return replicas[ringIndex.indexOf(partitionKey)];
+        }
 
-            return tokenToHosts.get(ring.get(i));
+        @SuppressWarnings("unchecked")
+        private static Set<Host>[] makeReplicaArray(List<Token> ring, Map<Token, Set<Host>> tokenToHosts) {
+            Set<Host>[] replicas = new Set[ring.size()];
+            for (int i = 0; i < replicas.length; i++)
+                replicas[i] = tokenToHosts.get(ring.get(i));
+            return replicas;
         }
 
         private static Map<Token, Set<Host>> makeNonReplicatedMap(Map<Token, Host> input) {
@@ -763,5 +881,97 @@ public class Metadata {
             }
             return ksRanges;
         }
+
+        private static class ReplicaMaps {
+            final Set<Host>[] replicas;
+            final Map<Host, Set<TokenRange>> hostsToRanges;
+
+            ReplicaMaps(Set<Host>[] replicas, Map<Host, Set<TokenRange>> hostsToRanges) {
+                this.replicas = replicas;
+                this.hostsToRanges = hostsToRanges;
+            }
+        }
+
+        /**
+         * Locates tokens on the (sorted) ring.
+         */
+        private static abstract class RingIndex {
+
+            static RingIndex create(Token.Factory factory, List<Token> ring) {
+                return factory == Token.M3PToken.FACTORY
+                        ? new M3PRingIndex(ring)
+                        : new GenericRingIndex(factory, ring);
+            }
+
+            /**
+             * Returns the index of the first token of the ring that is greater than or equal to {@code token}, or 0
+             * if there is none (the ring wraps around).
+             */
+            abstract int indexOf(Token token);
+
+            /**
+             * Same as {@link #indexOf(Token)}, for the token that {@code partitionKey} hashes to.
+             */
+            abstract int indexOf(ByteBuffer partitionKey);
+        }
+
+        private static class GenericRingIndex extends RingIndex {
+            private final Token.Factory factory;
+            private final Token[] tokens;
+
+            GenericRingIndex(Token.Factory factory, List<Token> ring) {
+                this.factory = factory;
+                this.tokens = ring.toArray(new Token[ring.size()]);
+            }
+
+            @Override
+            int indexOf(Token token) {
+                int i = Arrays.binarySearch(tokens, token);
+                if (i < 0) {
+                    i = -i - 1;
+                    if (i >= tokens.length)
+                        i = 0;
+                }
+                return i;
+            }
+
+            @Override
+            int indexOf(ByteBuffer partitionKey) {
+                return indexOf(factory.hash(partitionKey));
+            }
+        }
+
+        /**
+         * Murmur3 tokens are stored as primitives, which makes lookups cheaper and allocation-free.
+         */
+        private static class M3PRingIndex extends RingIndex {
+            private final long[] tokens;
+
+            M3PRingIndex(List<Token> ring) {
+                this.tokens = new long[ring.size()];
+                for (int i = 0; i < tokens.length; i++)
+                    tokens[i] = ((Token.M3PToken) ring.get(i)).longValue();
+            }
+
+            @Override
+            int indexOf(Token token) {
+                return indexOf(((Token.M3PToken) token).longValue());
+            }
+
+            @Override
+            int indexOf(ByteBuffer partitionKey) {
+                return indexOf(Token.M3PToken.hashToLong(partitionKey));
+            }
+
+            private int indexOf(long token) {
+                int i = Arrays.binarySearch(tokens, token);
+                if (i < 0) {
+                    i = -i - 1;
+                    if (i >= tokens.length)
+                        i = 0;
+                }
+                return i;
+            }
+        }
     }
 }
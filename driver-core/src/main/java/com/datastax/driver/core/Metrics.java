@@ -42,6 +42,8 @@ public class Metrics {
 
     private final Timer requests = registry.timer("requests");
 
+    private final Histogram framesPerFlush = registry.histogram("frames-per-flush");
+
     private final Gauge<Integer> knownHosts = registry.register("known-hosts", new Gauge<Integer>() {
         @Override
         public Integer getValue() {
@@ -175,6 +177,20 @@ public class Metrics {
         return requests;
     }
 
+    /**
+     * Returns metrics on the number of frames that are sent to the network with each flush of a
+     * connection.
+     * <p/>
+     * This reflects the effectiveness of write coalescing (see
+     * {@link SocketOptions#setCoalescingWindowMicros(int)}).
+     *
+     * @return a {@code Histogram} metric object exposing the distribution of the number
+     * of frames per connection flush.
+     */
+    public Histogram getFramesPerFlush() {
+        return framesPerFlush;
+    }
+
     /**
      * Returns an object grouping metrics related to the errors encountered.
      *
@@ -83,6 +83,10 @@ public class NettyOptions {
      * case implementors should also override {@link #onClusterClose(EventLoopGroup)}
      * to prevent the shared instance to be closed when the cluster is closed.
      * <p/>
+     * Sharing the event loop group of a Netty-based application is also the way to get the most out of
+     * {@link PoolingOptions#setEventLoopAffinityEnabled(boolean) event loop affinity}: requests sent from the
+     * application's I/O threads are then written and completed on these threads.
+     * <p/>
      * The default implementation returns a new instance of {@code io.netty.channel.epoll.EpollEventLoopGroup}
      * if {@link NettyUtil#isEpollAvailable() epoll is available},
      * or {@code io.netty.channel.nio.NioEventLoopGroup} otherwise.
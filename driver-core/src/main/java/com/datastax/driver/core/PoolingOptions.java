@@ -132,6 +132,11 @@ public class PoolingOptions {
      */
     public static final int DEFAULT_POOL_TIMEOUT_MILLIS = 5000;
 
+    /**
+     * The default value for {@link #getMaxQueueSize()} ({@value}).
+     */
+    public static final int DEFAULT_MAX_QUEUE_SIZE = 256;
+
     /**
      * The default value for {@link #getHeartbeatIntervalSeconds()} ({@value}).
      */
@@ -152,7 +157,9 @@ public class PoolingOptions {
 
     private volatile int idleTimeoutSeconds = DEFAULT_IDLE_TIMEOUT_SECONDS;
     private volatile int poolTimeoutMillis = DEFAULT_POOL_TIMEOUT_MILLIS;
+    private volatile int maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
     private volatile int heartbeatIntervalSeconds = DEFAULT_HEARTBEAT_INTERVAL_SECONDS;
+    private volatile boolean eventLoopAffinityEnabled = false;
 
     private volatile Executor initializationExecutor = DEFAULT_INITIALIZATION_EXECUTOR;
 
@@ -411,8 +418,9 @@ public class PoolingOptions {
     /**
      * Sets the timeout when trying to acquire a connection from a host's pool.
      * <p/>
-     * If no connection is available within that time, the driver will try the
-     * next host from the query plan.
+     * If all connections of the pool are busy, the request is enqueued (see {@link #setMaxQueueSize(int)}) until
+     * a connection becomes available. If no connection is available within that time, the driver will try the
+     * next host from the query plan. Note that waiting in the queue never blocks the calling thread.
      * <p/>
      * The default is 5 seconds. If this option is set to zero, the driver won't wait at all.
      *
@@ -427,6 +435,37 @@ public class PoolingOptions {
         return this;
     }
 
+    /**
+     * Returns the maximum number of requests that get enqueued if no connection is available.
+     *
+     * @return the maximum queue size.
+     */
+    public int getMaxQueueSize() {
+        return maxQueueSize;
+    }
+
+    /**
+     * Sets the maximum number of requests that get enqueued if no connection is available.
+     * <p/>
+     * Each host's pool keeps its own queue. Enqueued requests are dispatched, in order, as soon as a connection of
+     * the pool has a free slot; if that does not happen within {@link #getPoolTimeoutMillis()}, the driver moves
+     * to the next host. If the queue is already full, the driver moves to the next host immediately.
+     * In both cases, a {@link com.datastax.driver.core.exceptions.BusyPoolException} is reported for that host.
+     * <p/>
+     * The default value for this option is 256. If this option is set to zero, the driver won't enqueue
+     * requests at all.
+     *
+     * @param maxQueueSize the new value.
+     * @return this {@code PoolingOptions}
+     * @throws IllegalArgumentException if the value is negative.
+     */
+    public PoolingOptions setMaxQueueSize(int maxQueueSize) {
+        if (maxQueueSize < 0)
+            throw new IllegalArgumentException("Max queue size must be positive");
+        this.maxQueueSize = maxQueueSize;
+        return this;
+    }
+
     /**
      * Returns the heart beat interval, after which a message is sent on an idle connection to make sure it's still alive.
      *
@@ -458,6 +497,41 @@ public class PoolingOptions {
         return this;
     }
 
+    /**
+     * Returns whether requests sent from a driver I/O thread prefer the connections bound to that thread.
+     *
+     * @return whether event loop affinity is enabled.
+     * @see #setEventLoopAffinityEnabled(boolean)
+     */
+    public boolean isEventLoopAffinityEnabled() {
+        return eventLoopAffinityEnabled;
+    }
+
+    /**
+     * Sets whether requests sent from a driver I/O thread prefer the connections bound to that thread.
+     * <p/>
+     * Each connection is served by one of the threads of the driver's Netty event loop group. When this option is
+     * enabled, the connections of each pool are spread evenly over these threads, and a request that is sent from
+     * one of them (typically, from the callback of a previous request, or from the I/O thread of a Netty-based
+     * application that shares its event loop group with the driver through
+     * {@link NettyOptions#eventLoopGroup(java.util.concurrent.ThreadFactory)}) uses a connection served by that
+     * same thread, as long as that connection is not full. The request is then written, and its response
+     * completed, without ever being handed off to another thread.
+     * <p/>
+     * For this to be effective, the pools should have at least as many connections as the event loop group has
+     * threads (see {@link #setCoreConnectionsPerHost(HostDistance, int)}). Requests sent from other threads are
+     * not affected.
+     * <p/>
+     * This option is disabled by default. Changing it only affects the connections that are opened afterwards.
+     *
+     * @param eventLoopAffinityEnabled whether to enable event loop affinity.
+     * @return this {@code PoolingOptions}
+     */
+    public PoolingOptions setEventLoopAffinityEnabled(boolean eventLoopAffinityEnabled) {
+        this.eventLoopAffinityEnabled = eventLoopAffinityEnabled;
+        return this;
+    }
+
     /**
      * Returns the executor to use for connection initialization.
      *
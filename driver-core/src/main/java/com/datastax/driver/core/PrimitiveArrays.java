@@ -0,0 +1,153 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import com.datastax.driver.core.exceptions.InvalidTypeException;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes and decodes CQL lists of fixed-size numeric types directly to and from primitive arrays,
+ * for the {@code getXxxArray} and {@code setXxxArray} accessors of {@link GettableByIndexData} and
+ * {@link SettableByIndexData}.
+ */
+final class PrimitiveArrays {
+
+    private PrimitiveArrays() {
+    }
+
+    static int[] readInts(ByteBuffer bytes, ProtocolVersion protocolVersion) {
+        if (bytes == null || bytes.remaining() == 0)
+            return new int[0];
+        try {
+            ByteBuffer input = bytes.duplicate();
+            int[] array = new int[CodecUtils.readSize(input, protocolVersion)];
+            for (int i = 0; i < array.length; i++) {
+                checkElementSize(input, 4, protocolVersion);
+                array[i] = input.getInt();
+            }
+            return array;
+        } catch (BufferUnderflowException e) {
+            throw new InvalidTypeException("Not enough bytes to deserialize collection", e);
+        }
+    }
+
+    static ByteBuffer writeInts(int[] array, ProtocolVersion protocolVersion) {
+        if (array == null)
+            return null;
+        ByteBuffer output = allocate(array.length, 4, protocolVersion);
+        for (int value : array) {
+            CodecUtils.writeSize(output, 4, protocolVersion);
+            output.putInt(value);
+        }
+        return (ByteBuffer) output.flip();
+    }
+
+    static long[] readLongs(ByteBuffer bytes, ProtocolVersion protocolVersion) {
+        if (bytes == null || bytes.remaining() == 0)
+            return new long[0];
+        try {
+            ByteBuffer input = bytes.duplicate();
+            long[] array = new long[CodecUtils.readSize(input, protocolVersion)];
+            for (int i = 0; i < array.length; i++) {
+                checkElementSize(input, 8, protocolVersion);
+                array[i] = input.getLong();
+            }
+            return array;
+        } catch (BufferUnderflowException e) {
+            throw new InvalidTypeException("Not enough bytes to deserialize collection", e);
+        }
+    }
+
+    static ByteBuffer writeLongs(long[] array, ProtocolVersion protocolVersion) {
+        if (array == null)
+            return null;
+        ByteBuffer output = allocate(array.length, 8, protocolVersion);
+        for (long value : array) {
+            CodecUtils.writeSize(output, 8, protocolVersion);
+            output.putLong(value);
+        }
+        return (ByteBuffer) output.flip();
+    }
+
+    static float[] readFloats(ByteBuffer bytes, ProtocolVersion protocolVersion) {
+        if (bytes == null || bytes.remaining() == 0)
+            return new float[0];
+        try {
+            ByteBuffer input = bytes.duplicate();
+            float[] array = new float[CodecUtils.readSize(input, protocolVersion)];
+            for (int i = 0; i < array.length; i++) {
+                checkElementSize(input, 4, protocolVersion);
+                array[i] = input.getFloat();
+            }
+            return array;
+        } catch (BufferUnderflowException e) {
+            throw new InvalidTypeException("Not enough bytes to deserialize collection", e);
+        }
+    }
+
+    static ByteBuffer writeFloats(float[] array, ProtocolVersion protocolVersion) {
+        if (array == null)
+            return null;
+        ByteBuffer output = allocate(array.length, 4, protocolVersion);
+        for (float value : array) {
+            CodecUtils.writeSize(output, 4, protocolVersion);
+            output.putFloat(value);
+        }
+        return (ByteBuffer) output.flip();
+    }
+
+    static double[] readDoubles(ByteBuffer bytes, ProtocolVersion protocolVersion) {
+        if (bytes == null || bytes.remaining() == 0)
+            return new double[0];
+        try {
+            ByteBuffer input = bytes.duplicate();
+            double[] array = new double[CodecUtils.readSize(input, protocolVersion)];
+            for (int i = 0; i < array.length; i++) {
+                checkElementSize(input, 8, protocolVersion);
+                array[i] = input.getDouble();
+            }
+            return array;
+        } catch (BufferUnderflowException e) {
+            throw new InvalidTypeException("Not enough bytes to deserialize collection", e);
+        }
+    }
+
+    static ByteBuffer writeDoubles(double[] array, ProtocolVersion protocolVersion) {
+        if (array == null)
+            return null;
+        ByteBuffer output = allocate(array.length, 8, protocolVersion);
+        for (double value : array) {
+            CodecUtils.writeSize(output, 8, protocolVersion);
+            output.putDouble(value);
+        }
+        return (ByteBuffer) output.flip();
+    }
+
+    private static void checkElementSize(ByteBuffer input, int expectedSize, ProtocolVersion protocolVersion) {
+        int size = CodecUtils.readSize(input, protocolVersion);
+        if (size != expectedSize)
+            throw new InvalidTypeException(String.format("Invalid list element, expecting %d bytes but got %d", expectedSize, size));
+    }
+
+    private static ByteBuffer allocate(int length, int sizeOfElement, ProtocolVersion protocolVersion) {
+        int sizeOfSize = CodecUtils.sizeOfCollectionSize(protocolVersion);
+        ByteBuffer output = ByteBuffer.allocate(sizeOfSize + length * (sizeOfSize + sizeOfElement));
+        CodecUtils.writeSize(output, length, protocolVersion);
+        return output;
+    }
+}
@@ -21,6 +21,9 @@ import com.datastax.driver.core.policies.RetryPolicy;
 import com.datastax.driver.core.policies.RetryPolicy.RetryDecision.Type;
 import com.datastax.driver.core.policies.SpeculativeExecutionPolicy.SpeculativeExecutionPlan;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.netty.util.Timeout;
 import io.netty.util.TimerTask;
 import org.slf4j.Logger;
@@ -286,41 +289,74 @@ class RequestHandler {
             if (allowSpeculativeExecutions && nextExecutionScheduled.compareAndSet(false, true))
                 scheduleExecution(speculativeExecutionPlan.nextExecution(host));
 
-            Connection connection = null;
-            try {
-                connection = currentPool.borrowConnection(manager.configuration().getPoolingOptions().getPoolTimeoutMillis(), TimeUnit.MILLISECONDS);
-                if (current != null) {
-                    if (triedHosts == null)
-                        triedHosts = new CopyOnWriteArrayList<Host>();
-                    triedHosts.add(current);
+            PoolingOptions poolingOptions = manager.configuration().getPoolingOptions();
+            ListenableFuture<Connection> connectionFuture = currentPool.borrowConnection(
+                    poolingOptions.getPoolTimeoutMillis(), TimeUnit.MILLISECONDS,
+                    poolingOptions.getMaxQueueSize());
+            // If the borrow did not complete right away, a BusyPoolException can only come from the pool's timer
+            final boolean borrowDone = connectionFuture.isDone();
+            Futures.addCallback(connectionFuture, new FutureCallback<Connection>() {
+                @Override
+                public void onSuccess(Connection connection) {
+                    if (current != null) {
+                        if (triedHosts == null)
+                            triedHosts = new CopyOnWriteArrayList<Host>();
+                        triedHosts.add(current);
+                    }
+                    current = host;
+                    try {
+                        write(connection, SpeculativeExecution.this);
+                    } catch (ConnectionException e) {
+                        // If we have any problem with the connection, move to the next node.
+                        if (metricsEnabled())
+                            metrics().getErrorMetrics().getConnectionErrors().inc();
+                        connection.release();
+                        logError(host.getSocketAddress(), e);
+                        sendRequest();
+                    } catch (BusyConnectionException e) {
+                        // The pool shouldn't have give us a busy connection unless we've maxed up the pool, so move on to the next host.
+                        connection.release();
+                        logError(host.getSocketAddress(), e);
+                        sendRequest();
+                    } catch (RuntimeException e) {
+                        connection.release();
+                        logger.error("Unexpected error while querying " + host.getAddress(), e);
+                        logError(host.getSocketAddress(), e);
+                        sendRequest();
+                    }
                 }
-                current = host;
-                write(connection, this);
-                return true;
-            } catch (ConnectionException e) {
-                // If we have any problem with the connection, move to the next node.
-                if (metricsEnabled())
-                    metrics().getErrorMetrics().getConnectionErrors().inc();
-                if (connection != null)
-                    connection.release();
-                logError(host.getSocketAddress(), e);
-                return false;
-            } catch (BusyConnectionException e) {
-                // The pool shouldn't have give us a busy connection unless we've maxed up the pool, so move on to the next host.
-                connection.release();
-                logError(host.getSocketAddress(), e);
-                return false;
-            } catch (TimeoutException e) {
-                // We timeout, log it but move to the next node.
-                logError(host.getSocketAddress(), new DriverException("Timeout while trying to acquire available connection (you may want to increase the driver number of per-host connections)", e));
-                return false;
-            } catch (RuntimeException e) {
-                if (connection != null)
-                    connection.release();
-                logger.error("Unexpected error while querying " + host.getAddress(), e);
-                logError(host.getSocketAddress(), e);
-                return false;
-            }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    if (t instanceof BusyPoolException) {
+                        logError(host.getSocketAddress(), t);
+                    } else if (t instanceof ConnectionException) {
+                        // If we have any problem with the connection, move to the next node.
+                        if (metricsEnabled())
+                            metrics().getErrorMetrics().getConnectionErrors().inc();
+                        logError(host.getSocketAddress(), t);
+                    } else if (t instanceof TimeoutException) {
+                        // We timeout, log it but move to the next node.
+                        logError(host.getSocketAddress(), new DriverException("Timeout while trying to acquire available connection (you may want to increase the driver number of per-host connections)", t));
+                    } else {
+                        logger.error("Unexpected error while querying " + host.getAddress(), t);
+                        logError(host.getSocketAddress(), t);
+                    }
+                    if (t instanceof BusyPoolException && !borrowDone) {
+                        // We're on the pool's timer thread, don't move to the next node on it.
+                        manager.executor().execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                sendRequest();
+                            }
+                        });
+                    } else {
+                        // Like retry(), move to the next node directly: borrowing a connection never blocks.
+                        sendRequest();
+                    }
+                }
+            });
+            return true;
         }
 
         private void write(Connection connection, Connection.ResponseCallback responseCallback) throws ConnectionException, BusyConnectionException {
@@ -410,28 +446,24 @@ class RequestHandler {
             }
         }
 
-        private void retry(final boolean retryCurrent, ConsistencyLevel newConsistencyLevel) {
-            final Host h = current;
+        private void retry(boolean retryCurrent, ConsistencyLevel newConsistencyLevel) {
+            Host h = current;
             if (newConsistencyLevel != null)
                 this.retryConsistencyLevel = newConsistencyLevel;
 
-            // We should not retry on the current thread as this will be an IO thread.
-            manager.executor().execute(new Runnable() {
-                @Override
-                public void run() {
-                    if (queryStateRef.get().isCancelled())
+            // Retry directly on the current thread (usually an I/O thread): borrowing a connection never blocks, if the
+            // pool is busy the request is enqueued and resumed by the thread that releases a connection.
+            if (queryStateRef.get().isCancelled())
+                return;
+            try {
+                if (retryCurrent) {
+                    if (query(h))
                         return;
-                    try {
-                        if (retryCurrent) {
-                            if (query(h))
-                                return;
-                        }
-                        sendRequest();
-                    } catch (Exception e) {
-                        setFinalException(null, new DriverInternalError("Unexpected exception while retrying query", e));
-                    }
                 }
-            });
+                sendRequest();
+            } catch (Exception e) {
+                setFinalException(null, new DriverInternalError("Unexpected exception while retrying query", e));
+            }
         }
 
         private void logError(InetSocketAddress address, Throwable exception) {
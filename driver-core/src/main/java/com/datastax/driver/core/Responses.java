@@ -396,6 +396,17 @@ class Responses {
 
                     boolean globalTablesSpec = flags.contains(Flag.GLOBAL_TABLES_SPEC);
 
+                    // identical column specs (which is the common case for unprepared queries that get executed
+                    // repeatedly) decode to a shared instance
+                    int start = body.readerIndex();
+                    skipColumnSpecs(body, columnCount, globalTablesSpec);
+                    int end = body.readerIndex();
+                    ColumnDefinitionsCache cache = codecRegistry.columnDefinitionsCache;
+                    ColumnDefinitions columns = cache.get(body, start, end, columnCount, globalTablesSpec, protocolVersion);
+                    if (columns != null)
+                        return new Metadata(columnCount, columns, state, pkIndices);
+                    body.readerIndex(start);
+
                     String globalKsName = null;
                     String globalCfName = null;
                     if (globalTablesSpec) {
@@ -413,7 +424,24 @@ class Responses {
                         defs[i] = new ColumnDefinitions.Definition(ksName, cfName, name, type);
                     }
 
-                    return new Metadata(columnCount, new ColumnDefinitions(defs, codecRegistry), state, pkIndices);
+                    columns = new ColumnDefinitions(defs, codecRegistry);
+                    cache.put(body, start, end, columnCount, globalTablesSpec, protocolVersion, columns);
+                    return new Metadata(columnCount, columns, state, pkIndices);
+                }
+
+                private static void skipColumnSpecs(ByteBuf body, int columnCount, boolean globalTablesSpec) {
+                    if (globalTablesSpec) {
+                        CBUtil.skipString(body);
+                        CBUtil.skipString(body);
+                    }
+                    for (int i = 0; i < columnCount; i++) {
+                        if (!globalTablesSpec) {
+                            CBUtil.skipString(body);
+                            CBUtil.skipString(body);
+                        }
+                        CBUtil.skipString(body);
+                        DataType.skip(body);
+                    }
                 }
 
                 @Override
@@ -443,23 +471,17 @@ class Responses {
                     int rowCount = body.readInt();
                     int columnCount = metadata.columnCount;
 
-                    Queue<List<ByteBuffer>> data = new ArrayDeque<List<ByteBuffer>>(rowCount);
-                    for (int i = 0; i < rowCount; i++) {
-                        List<ByteBuffer> row = new ArrayList<ByteBuffer>(columnCount);
-                        for (int j = 0; j < columnCount; j++)
-                            row.add(CBUtil.readValue(body));
-                        data.add(row);
-                    }
+                    RowsPage data = RowsPage.decode(body, rowCount, columnCount);
 
                     return new Rows(metadata, data, version);
                 }
             };
 
             final Metadata metadata;
-            final Queue<List<ByteBuffer>> data;
+            final RowsPage data;
             private final ProtocolVersion version;
 
-            private Rows(Metadata metadata, Queue<List<ByteBuffer>> data, ProtocolVersion version) {
+            private Rows(Metadata metadata, RowsPage data, ProtocolVersion version) {
                 super(Kind.ROWS);
                 this.metadata = metadata;
                 this.data = data;
@@ -470,9 +492,9 @@ class Responses {
             public String toString() {
                 StringBuilder sb = new StringBuilder();
                 sb.append("ROWS ").append(metadata).append('\n');
-                for (List<ByteBuffer> row : data) {
-                    for (int i = 0; i < row.size(); i++) {
-                        ByteBuffer v = row.get(i);
+                for (int row = 0; row < data.rowCount(); row++) {
+                    for (int i = 0; i < data.columnCount(); i++) {
+                        ByteBuffer v = data.getValue(row, i);
                         if (v == null) {
                             sb.append(" | null");
                         } else {
@@ -32,6 +32,9 @@ package com.datastax.driver.core;
  * is in use, a ResultSet is always fetched in it's entirely and it's up to the
  * client to make sure that no query can yield ResultSet that won't hold in memory.
  * <p/>
+ * The {@link Row}s of a page share the memory of that page, so a row that is still referenced after the
+ * ResultSet has moved past it retains its whole page (see {@link Row}).
+ * <p/>
  * Note that this class is not thread-safe.
  */
 public interface ResultSet extends PagingIterable<ResultSet, Row> {
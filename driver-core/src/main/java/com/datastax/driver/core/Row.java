@@ -23,6 +23,10 @@ import com.datastax.driver.core.exceptions.InvalidTypeException;
  * The values of a CQL Row can be retrieved by either index (index starts at zero)
  * or name. When getting them by name, names follow the case insensitivity
  * rules explained in {@link ColumnDefinitions}.
+ * <p/>
+ * Rows returned by the driver read their values from the page of results they were received in, which is kept as a
+ * single block of memory: as long as a row is referenced, the whole page it belongs to is retained. If you keep a
+ * few rows from large pages for a long time, copy the values you need out of them.
  */
 public interface Row extends GettableData {
 
@@ -0,0 +1,145 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import io.netty.buffer.ByteBuf;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * A page of rows, stored as one contiguous byte array plus a table of the offsets of each value.
+ * <p/>
+ * Values are laid out as {@code [bytes]} (a 4-byte length followed by the contents, a negative
+ * length denoting {@code null}), exactly as they are received in a RESULT message. The offset of
+ * the value at row {@code r} and column {@code c} is stored at index {@code r * columnCount + c}
+ * of the offset table, so that a page has a constant number of objects regardless of its size.
+ * {@link ByteBuffer}s are only created when a value is read.
+ * <p/>
+ * Rows are consumed in order through {@link #poll()}; like {@link ResultSet}, this class is not
+ * thread-safe. Rows created with {@link ArrayBackedRow#fromPage} reference the page, so a row that
+ * escapes the iteration keeps the whole page reachable.
+ */
+class RowsPage {
+
+    static final RowsPage EMPTY = new RowsPage(new byte[0], new int[0], 0, 0);
+
+    private final byte[] bytes;
+    private final int[] offsets;
+    private final int rowCount;
+    private final int columnCount;
+
+    // the index of the next row to be returned by poll()
+    private int next;
+
+    private RowsPage(byte[] bytes, int[] offsets, int rowCount, int columnCount) {
+        this.bytes = bytes;
+        this.offsets = offsets;
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+    }
+
+    /**
+     * Reads {@code rowCount} rows of {@code columnCount} values from the given buffer.
+     * The contents of the buffer are copied, so it can safely be released afterwards.
+     */
+    static RowsPage decode(ByteBuf body, int rowCount, int columnCount) {
+        int start = body.readerIndex();
+        int[] offsets = new int[rowCount * columnCount];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = body.readerIndex() - start;
+            int length = body.readInt();
+            if (length > 0)
+                body.skipBytes(length);
+        }
+        byte[] bytes = new byte[body.readerIndex() - start];
+        body.getBytes(start, bytes);
+        return new RowsPage(bytes, offsets, rowCount, columnCount);
+    }
+
+    /**
+     * Builds a page containing a single row with the given values.
+     */
+    static RowsPage fromValues(List<ByteBuffer> values) {
+        int columnCount = values.size();
+        int[] offsets = new int[columnCount];
+        int size = 0;
+        for (ByteBuffer value : values)
+            size += CBUtil.sizeOfValue(value);
+        ByteBuffer bytes = ByteBuffer.allocate(size);
+        for (int i = 0; i < columnCount; i++) {
+            offsets[i] = bytes.position();
+            ByteBuffer value = values.get(i);
+            if (value == null) {
+                bytes.putInt(-1);
+            } else {
+                bytes.putInt(value.remaining());
+                bytes.put(value.duplicate());
+            }
+        }
+        return new RowsPage(bytes.array(), offsets, 1, columnCount);
+    }
+
+    /**
+     * @return the number of rows that have not been consumed yet.
+     */
+    int size() {
+        return rowCount - next;
+    }
+
+    boolean isEmpty() {
+        return next >= rowCount;
+    }
+
+    int rowCount() {
+        return rowCount;
+    }
+
+    int columnCount() {
+        return columnCount;
+    }
+
+    /**
+     * @return the index of the next row that has not been consumed yet, or -1 if the page is
+     * exhausted. Unlike {@link #poll()}, this does not consume the row.
+     */
+    int peek() {
+        return isEmpty() ? -1 : next;
+    }
+
+    /**
+     * Consumes the next row.
+     *
+     * @return the index of the row, or -1 if the page is exhausted.
+     */
+    int poll() {
+        return isEmpty() ? -1 : next++;
+    }
+
+    /**
+     * @return the value at the given position, or {@code null} if the value is {@code null}.
+     */
+    ByteBuffer getValue(int row, int column) {
+        int offset = offsets[row * columnCount + column];
+        int length = (bytes[offset] & 0xFF) << 24
+                | (bytes[offset + 1] & 0xFF) << 16
+                | (bytes[offset + 2] & 0xFF) << 8
+                | (bytes[offset + 3] & 0xFF);
+        if (length < 0)
+            return null;
+        return ByteBuffer.wrap(bytes, offset + 4, length).slice();
+    }
+}
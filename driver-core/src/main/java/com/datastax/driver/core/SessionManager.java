@@ -197,7 +197,7 @@ class SessionManager extends AbstractSession {
     }
 
     private ListenableFuture<PreparedStatement> toPreparedStatement(final String query, final Connection.Future future) {
-        return Futures.transform(future, new AsyncFunction<Response, PreparedStatement>() {
+        ListenableFuture<PreparedStatement> prepared = Futures.transform(future, new AsyncFunction<Response, PreparedStatement>() {
             @Override
             public ListenableFuture<PreparedStatement> apply(Response response) {
                 switch (response.type) {
@@ -227,7 +227,10 @@ class SessionManager extends AbstractSession {
                                 new DriverInternalError(String.format("%s response received when prepared statement was expected", response.type)));
                 }
             }
-        }, executor());
+        });
+        // Complete the future returned to the user on the executor, not on the I/O thread that got the response: callbacks
+        // registered on it may call synchronous Session methods, which are not allowed on I/O threads.
+        return Futures.transform(prepared, Functions.<PreparedStatement>identity(), executor());
     }
 
     Connection.Factory connectionFactory() {
@@ -578,7 +581,7 @@ class SessionManager extends AbstractSession {
             if (protocolVersion.compareTo(ProtocolVersion.V4) < 0)
                 bs.ensureAllSet();
             boolean skipMetadata = protocolVersion != ProtocolVersion.V1 && bs.statement.getPreparedId().resultSetMetadata != null;
-            Requests.QueryProtocolOptions options = new Requests.QueryProtocolOptions(Message.Request.Type.EXECUTE, consistency, Arrays.asList(bs.wrapper.values), Collections.<String, ByteBuffer>emptyMap(),
+            Requests.QueryProtocolOptions options = new Requests.QueryProtocolOptions(Message.Request.Type.EXECUTE, consistency, bs.wrapper.valueList(), Collections.<String, ByteBuffer>emptyMap(),
                     skipMetadata, fetchSize, usedPagingState, serialConsistency, defaultTimestamp);
             request = new Requests.Execute(bs.statement.getPreparedId().id, options, statement.isTracing());
         } else {
@@ -625,27 +628,37 @@ class SessionManager extends AbstractSession {
             if (entry.getKey().getSocketAddress().equals(toExclude))
                 continue;
 
-            try {
-                // Preparing is not critical: if it fails, it will fix itself later when the user tries to execute
-                // the prepared query. So don't block if no connection is available, simply abort.
-                final Connection c = entry.getValue().borrowConnection(0, TimeUnit.MILLISECONDS);
-                ListenableFuture<Response> future = c.write(new Requests.Prepare(query));
-                Futures.addCallback(future, new FutureCallback<Response>() {
-                    @Override
-                    public void onSuccess(Response result) {
+            // Preparing is not critical: if it fails, it will fix itself later when the user tries to execute
+            // the prepared query. So don't wait if no connection is available, simply abort (the failed future
+            // is ignored below). Since nothing blocks, this can safely run on the I/O thread that got the
+            // first response.
+            ListenableFuture<Connection> borrow = entry.getValue().borrowConnection(0, TimeUnit.MILLISECONDS, 0);
+            ListenableFuture<Response> future = Futures.transform(borrow, new AsyncFunction<Connection, Response>() {
+                @Override
+                public ListenableFuture<Response> apply(final Connection c) throws Exception {
+                    Connection.Future future;
+                    try {
+                        future = c.write(new Requests.Prepare(query));
+                    } catch (Exception e) {
                         c.release();
+                        throw e;
                     }
+                    Futures.addCallback(future, new FutureCallback<Response>() {
+                        @Override
+                        public void onSuccess(Response result) {
+                            c.release();
+                        }
 
-                    @Override
-                    public void onFailure(Throwable t) {
-                        logger.debug(String.format("Unexpected error while preparing query (%s) on %s", query, entry.getKey()), t);
-                        c.release();
-                    }
-                });
-                futures.add(future);
-            } catch (Exception e) {
-                // Again, not being able to prepare the query right now is no big deal, so just ignore
-            }
+                        @Override
+                        public void onFailure(Throwable t) {
+                            logger.debug(String.format("Unexpected error while preparing query (%s) on %s", query, entry.getKey()), t);
+                            c.release();
+                        }
+                    });
+                    return future;
+                }
+            });
+            futures.add(future);
         }
         // Return the statement when all futures are done
         return Futures.transform(
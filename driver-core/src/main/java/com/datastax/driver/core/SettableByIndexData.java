@@ -353,6 +353,62 @@ public interface SettableByIndexData<T extends SettableByIndexData<T>> {
      */
     public <E> T setList(int i, List<E> v, TypeToken<E> elementsType);
 
+    /**
+     * Sets the {@code i}th value to the provided array of {@code int}s.
+     * <p/>
+     * Unlike {@link #setList(int, List, Class)}, this method does not use the {@link CodecRegistry}: it encodes
+     * the array directly as a CQL {@code list<int>}, without boxing its elements.
+     *
+     * @param i the index of the value to set.
+     * @param v the value to set.
+     * @return this object.
+     * @throws IndexOutOfBoundsException if {@code i} is not a valid index for this object.
+     * @throws InvalidTypeException      if value {@code i} is not of type {@code list<int>}.
+     */
+    public T setIntArray(int i, int[] v);
+
+    /**
+     * Sets the {@code i}th value to the provided array of {@code long}s.
+     * <p/>
+     * Unlike {@link #setList(int, List, Class)}, this method does not use the {@link CodecRegistry}: it encodes
+     * the array directly as a CQL {@code list<bigint>}, without boxing its elements.
+     *
+     * @param i the index of the value to set.
+     * @param v the value to set.
+     * @return this object.
+     * @throws IndexOutOfBoundsException if {@code i} is not a valid index for this object.
+     * @throws InvalidTypeException      if value {@code i} is not of type {@code list<bigint>}.
+     */
+    public T setLongArray(int i, long[] v);
+
+    /**
+     * Sets the {@code i}th value to the provided array of {@code float}s.
+     * <p/>
+     * Unlike {@link #setList(int, List, Class)}, this method does not use the {@link CodecRegistry}: it encodes
+     * the array directly as a CQL {@code list<float>}, without boxing its elements.
+     *
+     * @param i the index of the value to set.
+     * @param v the value to set.
+     * @return this object.
+     * @throws IndexOutOfBoundsException if {@code i} is not a valid index for this object.
+     * @throws InvalidTypeException      if value {@code i} is not of type {@code list<float>}.
+     */
+    public T setFloatArray(int i, float[] v);
+
+    /**
+     * Sets the {@code i}th value to the provided array of {@code double}s.
+     * <p/>
+     * Unlike {@link #setList(int, List, Class)}, this method does not use the {@link CodecRegistry}: it encodes
+     * the array directly as a CQL {@code list<double>}, without boxing its elements.
+     *
+     * @param i the index of the value to set.
+     * @param v the value to set.
+     * @return this object.
+     * @throws IndexOutOfBoundsException if {@code i} is not a valid index for this object.
+     * @throws InvalidTypeException      if value {@code i} is not of type {@code list<double>}.
+     */
+    public T setDoubleArray(int i, double[] v);
+
     /**
      * Sets the {@code i}th value to the provided map.
      * <p/>
@@ -389,6 +389,70 @@ public interface SettableByNameData<T extends SettableData<T>> {
      */
     public <E> T setList(String name, List<E> v, TypeToken<E> elementsType);
 
+    /**
+     * Sets the value for (all occurrences of) variable {@code name} to the
+     * provided array of {@code int}s.
+     * <p/>
+     * Unlike {@link #setList(String, List, Class)}, this method does not use the {@link CodecRegistry}: it encodes
+     * the array directly as a CQL {@code list<int>}, without boxing its elements.
+     *
+     * @param name the name of the value to set; if {@code name} is present multiple
+     *             times, all its values are set.
+     * @param v    the value to set.
+     * @return this object.
+     * @throws IllegalArgumentException if {@code name} is not a valid name for this object.
+     * @throws InvalidTypeException     if (any occurrence of) {@code name} is not of type {@code list<int>}.
+     */
+    public T setIntArray(String name, int[] v);
+
+    /**
+     * Sets the value for (all occurrences of) variable {@code name} to the
+     * provided array of {@code long}s.
+     * <p/>
+     * Unlike {@link #setList(String, List, Class)}, this method does not use the {@link CodecRegistry}: it encodes
+     * the array directly as a CQL {@code list<bigint>}, without boxing its elements.
+     *
+     * @param name the name of the value to set; if {@code name} is present multiple
+     *             times, all its values are set.
+     * @param v    the value to set.
+     * @return this object.
+     * @throws IllegalArgumentException if {@code name} is not a valid name for this object.
+     * @throws InvalidTypeException     if (any occurrence of) {@code name} is not of type {@code list<bigint>}.
+     */
+    public T setLongArray(String name, long[] v);
+
+    /**
+     * Sets the value for (all occurrences of) variable {@code name} to the
+     * provided array of {@code float}s.
+     * <p/>
+     * Unlike {@link #setList(String, List, Class)}, this method does not use the {@link CodecRegistry}: it encodes
+     * the array directly as a CQL {@code list<float>}, without boxing its elements.
+     *
+     * @param name the name of the value to set; if {@code name} is present multiple
+     *             times, all its values are set.
+     * @param v    the value to set.
+     * @return this object.
+     * @throws IllegalArgumentException if {@code name} is not a valid name for this object.
+     * @throws InvalidTypeException     if (any occurrence of) {@code name} is not of type {@code list<float>}.
+     */
+    public T setFloatArray(String name, float[] v);
+
+    /**
+     * Sets the value for (all occurrences of) variable {@code name} to the
+     * provided array of {@code double}s.
+     * <p/>
+     * Unlike {@link #setList(String, List, Class)}, this method does not use the {@link CodecRegistry}: it encodes
+     * the array directly as a CQL {@code list<double>}, without boxing its elements.
+     *
+     * @param name the name of the value to set; if {@code name} is present multiple
+     *             times, all its values are set.
+     * @param v    the value to set.
+     * @return this object.
+     * @throws IllegalArgumentException if {@code name} is not a valid name for this object.
+     * @throws InvalidTypeException     if (any occurrence of) {@code name} is not of type {@code list<double>}.
+     */
+    public T setDoubleArray(String name, double[] v);
+
     /**
      * Sets the value for (all occurrences of) variable {@code name} to the
      * provided map.
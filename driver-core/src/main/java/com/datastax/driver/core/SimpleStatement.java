@@ -258,6 +258,7 @@ public class SimpleStatement extends RegularStatement {
      */
     public SimpleStatement setRoutingKey(ByteBuffer routingKey) {
         this.routingKey = routingKey;
+        resetRoutingToken();
         return this;
     }
 
@@ -311,6 +312,7 @@ public class SimpleStatement extends RegularStatement {
      */
     public SimpleStatement setRoutingKey(ByteBuffer... routingKeyComponents) {
         this.routingKey = compose(routingKeyComponents);
+        resetRoutingToken();
         return this;
     }
 
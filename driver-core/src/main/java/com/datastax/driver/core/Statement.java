@@ -69,6 +69,7 @@ public abstract class Statement {
     private volatile ByteBuffer pagingState;
     protected volatile Boolean idempotent;
     private volatile Map<String, ByteBuffer> outgoingPayload;
+    private volatile RoutingToken routingToken;
 
     // We don't want to expose the constructor, because the code relies on this being only sub-classed by RegularStatement, BoundStatement and BatchStatement
     Statement() {
@@ -197,6 +198,44 @@ public abstract class Statement {
      */
     public abstract ByteBuffer getRoutingKey(ProtocolVersion protocolVersion, CodecRegistry codecRegistry);
 
+    /**
+     * Returns the token of this statement's routing key, as computed by the driver the last time
+     * it located the replicas of this statement (see {@link Metadata#getRoutingToken(Statement)}).
+     * <p/>
+     * The token is cached along with the routing key it was computed from, so that executing the same
+     * statement again (or computing its replicas from application code) does not hash the key again.
+     * It is discarded whenever the routing key changes, for example when a partition key
+     * variable of a {@link BoundStatement} is rebound.
+     *
+     * @return the token of this statement's routing key, or {@code null} if it has not been computed yet.
+     */
+    public Token getRoutingToken() {
+        RoutingToken cached = routingToken;
+        return cached == null ? null : cached.token;
+    }
+
+    /**
+     * Returns the token of {@code routingKey}, reusing the cached value if it was computed from the same
+     * key and partitioner. Keys are compared by reference first, then by contents, since some statements
+     * return a new buffer each time their routing key is requested.
+     */
+    Token getRoutingToken(Token.Factory factory, ByteBuffer routingKey) {
+        RoutingToken cached = routingToken;
+        if (cached != null && cached.factory == factory
+                && (cached.routingKey == routingKey || cached.routingKey.equals(routingKey)))
+            return cached.token;
+        Token token = factory.hash(routingKey);
+        routingToken = new RoutingToken(factory, routingKey, token);
+        return token;
+    }
+
+    /**
+     * Discards the cached routing token, called by subclasses when their routing key changes.
+     */
+    void resetRoutingToken() {
+        routingToken = null;
+    }
+
     /**
      * Returns the keyspace this query operates on.
      * <p/>
@@ -571,4 +610,16 @@ public abstract class Statement {
         this.outgoingPayload = payload == null ? null : ImmutableMap.copyOf(payload);
         return this;
     }
+
+    private static class RoutingToken {
+        final Token.Factory factory;
+        final ByteBuffer routingKey;
+        final Token token;
+
+        RoutingToken(Token.Factory factory, ByteBuffer routingKey, Token token) {
+            this.factory = factory;
+            this.routingKey = routingKey;
+            this.token = token;
+        }
+    }
 }
@@ -116,6 +116,21 @@ public abstract class StatementWrapper extends Statement {
         return wrapped.getRoutingKey(protocolVersion, codecRegistry);
     }
 
+    @Override
+    public Token getRoutingToken() {
+        return wrapped.getRoutingToken();
+    }
+
+    @Override
+    Token getRoutingToken(Token.Factory factory, ByteBuffer routingKey) {
+        return wrapped.getRoutingToken(factory, routingKey);
+    }
+
+    @Override
+    void resetRoutingToken() {
+        wrapped.resetRoutingToken();
+    }
+
     @Override
     public String getKeyspace() {
         return wrapped.getKeyspace();
@@ -636,6 +636,37 @@ public abstract class TypeCodec<T> {
         return String.format("%s [%s <-> %s]", this.getClass().getSimpleName(), cqlType, javaType);
     }
 
+    /**
+     * Whether the given codec is one of the codecs defined in this class; these never hold on to the buffer
+     * they are given to deserialize, which allows collection codecs to decode elements in place.
+     */
+    private static boolean isBuiltIn(TypeCodec<?> codec) {
+        return codec.getClass().getEnclosingClass() == TypeCodec.class;
+    }
+
+    /**
+     * Returns the size of the values serialized by the given codec if it is a built-in codec
+     * for a fixed-size type that {@link #writeFixedSize(ByteBuffer, TypeCodec, Object)} can write, or -1 otherwise.
+     */
+    private static int fixedSize(TypeCodec<?> codec) {
+        if (codec == IntCodec.instance || codec == FloatCodec.instance)
+            return 4;
+        if (codec == BigintCodec.instance || codec == CounterCodec.instance || codec == TimeCodec.instance || codec == DoubleCodec.instance)
+            return 8;
+        return -1;
+    }
+
+    private static void writeFixedSize(ByteBuffer output, TypeCodec<?> codec, Object value) {
+        if (codec instanceof PrimitiveIntCodec)
+            output.putInt((Integer) value);
+        else if (codec instanceof PrimitiveLongCodec)
+            output.putLong((Long) value);
+        else if (codec instanceof PrimitiveFloatCodec)
+            output.putFloat((Float) value);
+        else
+            output.putDouble((Double) value);
+    }
+
     /**
      * A codec that is capable of handling primitive booleans,
      * thus avoiding the overhead of boxing and unboxing such primitives.
@@ -1728,16 +1759,24 @@ public abstract class TypeCodec<T> {
 
         protected final TypeCodec<E> eltCodec;
 
+        private final boolean eltCodecBuiltIn;
+
+        private final int eltFixedSize;
+
         protected AbstractCollectionCodec(CollectionType cqlType, TypeToken<C> javaType, TypeCodec<E> eltCodec) {
             super(cqlType, javaType);
             checkArgument(cqlType.getName() == Name.LIST || cqlType.getName() == Name.SET, "Expecting list or set type, got %s", cqlType);
             this.eltCodec = eltCodec;
+            this.eltCodecBuiltIn = isBuiltIn(eltCodec);
+            this.eltFixedSize = fixedSize(eltCodec);
         }
 
         @Override
         public ByteBuffer serialize(C value, ProtocolVersion protocolVersion) {
             if (value == null)
                 return null;
+            if (eltFixedSize > 0)
+                return serializeFixedSize(value, protocolVersion);
             int i = 0;
             ByteBuffer[] bbs = new ByteBuffer[value.size()];
             for (E elt : value) {
@@ -1757,6 +1796,27 @@ public abstract class TypeCodec<T> {
             return CodecUtils.pack(bbs, value.size(), protocolVersion);
         }
 
+        // Writes the elements directly into a buffer of the final size, without serializing them separately first
+        private ByteBuffer serializeFixedSize(C value, ProtocolVersion protocolVersion) {
+            int sizeOfSize = CodecUtils.sizeOfCollectionSize(protocolVersion);
+            ByteBuffer result = ByteBuffer.allocate(sizeOfSize + value.size() * (sizeOfSize + eltFixedSize));
+            CodecUtils.writeSize(result, value.size(), protocolVersion);
+            for (E elt : value) {
+                if (elt == null) {
+                    throw new NullPointerException("Collection elements cannot be null");
+                }
+                CodecUtils.writeSize(result, eltFixedSize, protocolVersion);
+                try {
+                    writeFixedSize(result, eltCodec, elt);
+                } catch (ClassCastException e) {
+                    throw new InvalidTypeException(
+                            String.format("Invalid type for %s element, expecting %s but got %s",
+                                    cqlType, eltCodec.getJavaType(), elt.getClass()), e);
+                }
+            }
+            return (ByteBuffer) result.flip();
+        }
+
         @Override
         public C deserialize(ByteBuffer bytes, ProtocolVersion protocolVersion) {
             if (bytes == null || bytes.remaining() == 0)
@@ -1765,8 +1825,12 @@ public abstract class TypeCodec<T> {
                 ByteBuffer input = bytes.duplicate();
                 int size = CodecUtils.readSize(input, protocolVersion);
                 C coll = newInstance(size);
+                // built-in codecs don't hold on to the buffers they decode, so the elements can be read in place
+                ByteBuffer view = eltCodecBuiltIn ? input.duplicate() : null;
                 for (int i = 0; i < size; i++) {
-                    ByteBuffer databb = CodecUtils.readValue(input, protocolVersion);
+                    ByteBuffer databb = view == null
+                            ? CodecUtils.readValue(input, protocolVersion)
+                            : CodecUtils.readValue(input, view, protocolVersion);
                     coll.add(eltCodec.deserialize(databb, protocolVersion));
                 }
                 return coll;
@@ -1912,10 +1976,19 @@ public abstract class TypeCodec<T> {
 
         protected final TypeCodec<V> valueCodec;
 
+        private final boolean codecsBuiltIn;
+
+        private final int keyFixedSize;
+
+        private final int valueFixedSize;
+
         protected AbstractMapCodec(TypeCodec<K> keyCodec, TypeCodec<V> valueCodec) {
             super(DataType.map(keyCodec.getCqlType(), valueCodec.getCqlType()), TypeTokens.mapOf(keyCodec.getJavaType(), valueCodec.getJavaType()));
             this.keyCodec = keyCodec;
             this.valueCodec = valueCodec;
+            this.codecsBuiltIn = isBuiltIn(keyCodec) && isBuiltIn(valueCodec);
+            this.keyFixedSize = fixedSize(keyCodec);
+            this.valueFixedSize = fixedSize(valueCodec);
         }
 
         @Override
@@ -2007,6 +2080,8 @@ public abstract class TypeCodec<T> {
         public ByteBuffer serialize(Map<K, V> value, ProtocolVersion protocolVersion) {
             if (value == null)
                 return null;
+            if (keyFixedSize > 0 && valueFixedSize > 0)
+                return serializeFixedSize(value, protocolVersion);
             int i = 0;
             ByteBuffer[] bbs = new ByteBuffer[2 * value.size()];
             for (Map.Entry<K, V> entry : value.entrySet()) {
@@ -2036,6 +2111,36 @@ public abstract class TypeCodec<T> {
             return CodecUtils.pack(bbs, value.size(), protocolVersion);
         }
 
+        // Writes the entries directly into a buffer of the final size, without serializing them separately first
+        private ByteBuffer serializeFixedSize(Map<K, V> value, ProtocolVersion protocolVersion) {
+            int sizeOfSize = CodecUtils.sizeOfCollectionSize(protocolVersion);
+            ByteBuffer result = ByteBuffer.allocate(sizeOfSize + value.size() * (2 * sizeOfSize + keyFixedSize + valueFixedSize));
+            CodecUtils.writeSize(result, value.size(), protocolVersion);
+            for (Map.Entry<K, V> entry : value.entrySet()) {
+                K key = entry.getKey();
+                if (key == null) {
+                    throw new NullPointerException("Map keys cannot be null");
+                }
+                CodecUtils.writeSize(result, keyFixedSize, protocolVersion);
+                try {
+                    writeFixedSize(result, keyCodec, key);
+                } catch (ClassCastException e) {
+                    throw new InvalidTypeException(String.format("Invalid type for map key, expecting %s but got %s", keyCodec.getJavaType(), key.getClass()), e);
+                }
+                V v = entry.getValue();
+                if (v == null) {
+                    throw new NullPointerException("Map values cannot be null");
+                }
+                CodecUtils.writeSize(result, valueFixedSize, protocolVersion);
+                try {
+                    writeFixedSize(result, valueCodec, v);
+                } catch (ClassCastException e) {
+                    throw new InvalidTypeException(String.format("Invalid type for map value, expecting %s but got %s", valueCodec.getJavaType(), v.getClass()), e);
+                }
+            }
+            return (ByteBuffer) result.flip();
+        }
+
         @Override
         public Map<K, V> deserialize(ByteBuffer bytes, ProtocolVersion protocolVersion) {
             if (bytes == null || bytes.remaining() == 0)
@@ -2044,6 +2149,16 @@ public abstract class TypeCodec<T> {
                 ByteBuffer input = bytes.duplicate();
                 int n = CodecUtils.readSize(input, protocolVersion);
                 Map<K, V> m = newInstance(n);
+                if (codecsBuiltIn) {
+                    // built-in codecs don't hold on to the buffers they decode, so the entries can be read in place
+                    ByteBuffer view = input.duplicate();
+                    for (int i = 0; i < n; i++) {
+                        K k = keyCodec.deserialize(CodecUtils.readValue(input, view, protocolVersion), protocolVersion);
+                        V v = valueCodec.deserialize(CodecUtils.readValue(input, view, protocolVersion), protocolVersion);
+                        m.put(k, v);
+                    }
+                    return m;
+                }
                 for (int i = 0; i < n; i++) {
                     ByteBuffer kbb = CodecUtils.readValue(input, protocolVersion);
                     ByteBuffer vbb = CodecUtils.readValue(input, protocolVersion);
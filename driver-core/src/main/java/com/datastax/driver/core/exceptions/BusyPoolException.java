@@ -0,0 +1,66 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core.exceptions;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Indicates that all connections to a host are busy, and that the request could not be enqueued,
+ * or was enqueued but did not get a connection in time.
+ * <p/>
+ * The size of the queue and the time requests are allowed to wait are controlled by
+ * {@link com.datastax.driver.core.PoolingOptions#setMaxQueueSize(int)} and
+ * {@link com.datastax.driver.core.PoolingOptions#setPoolTimeoutMillis(int)}.
+ */
+public class BusyPoolException extends DriverException implements CoordinatorException {
+
+    private static final long serialVersionUID = 0;
+
+    private final InetSocketAddress address;
+
+    public BusyPoolException(InetSocketAddress address, int queueSize) {
+        this(address, String.format("[%s] Pool is busy (no available connection and the queue has reached its max size %d)",
+                address.getAddress(), queueSize), null);
+    }
+
+    public BusyPoolException(InetSocketAddress address, long timeout, TimeUnit unit) {
+        this(address, String.format("[%s] Pool is busy (no available connection and timed out after %d %s)",
+                address.getAddress(), timeout, unit), null);
+    }
+
+    private BusyPoolException(InetSocketAddress address, String message, Throwable cause) {
+        super(message, cause);
+        this.address = address;
+    }
+
+    @Override
+    public InetAddress getHost() {
+        return address.getAddress();
+    }
+
+    @Override
+    public InetSocketAddress getAddress() {
+        return address;
+    }
+
+    @Override
+    public BusyPoolException copy() {
+        return new BusyPoolException(address, getMessage(), this);
+    }
+
+}
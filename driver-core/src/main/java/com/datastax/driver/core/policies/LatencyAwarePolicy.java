@@ -374,7 +374,7 @@ public class LatencyAwarePolicy implements ChainableLoadBalancingPolicy {
      * coordination work. Such errors are not good indicators of the host's responsiveness,
      * and tend to make the host's score look better than it actually is.
      */
-    private static final Set<Class<? extends DriverException>> EXCLUDED_EXCEPTIONS = ImmutableSet.of(
+    static final Set<Class<? extends DriverException>> EXCLUDED_EXCEPTIONS = ImmutableSet.of(
             UnavailableException.class, // this is done via the snitch and is usually very fast
             OverloadedException.class,
             BootstrappingException.class,
@@ -452,11 +452,11 @@ public class LatencyAwarePolicy implements ChainableLoadBalancingPolicy {
         }
     }
 
-    private static class TimestampedAverage {
+    static class TimestampedAverage {
 
-        private final long timestamp;
-        private final long average;
-        private final long nbMeasure;
+        final long timestamp;
+        final long average;
+        final long nbMeasure;
 
         TimestampedAverage(long timestamp, long average, long nbMeasure) {
             this.timestamp = timestamp;
@@ -465,7 +465,7 @@ public class LatencyAwarePolicy implements ChainableLoadBalancingPolicy {
         }
     }
 
-    private static class HostLatencyTracker {
+    static class HostLatencyTracker {
 
         private final long thresholdToAccount;
         private final double scale;
@@ -477,16 +477,18 @@ public class LatencyAwarePolicy implements ChainableLoadBalancingPolicy {
         }
 
         public void add(long newLatencyNanos) {
+            add(newLatencyNanos, System.nanoTime());
+        }
+
+        void add(long newLatencyNanos, long currentTimestamp) {
             TimestampedAverage previous, next;
             do {
                 previous = current.get();
-                next = computeNextAverage(previous, newLatencyNanos);
+                next = computeNextAverage(previous, newLatencyNanos, currentTimestamp);
             } while (next != null && !current.compareAndSet(previous, next));
         }
 
-        private TimestampedAverage computeNextAverage(TimestampedAverage previous, long newLatencyNanos) {
-
-            long currentTimestamp = System.nanoTime();
+        private TimestampedAverage computeNextAverage(TimestampedAverage previous, long newLatencyNanos, long currentTimestamp) {
 
             long nbMeasure = previous == null ? 1 : previous.nbMeasure + 1;
             if (nbMeasure < thresholdToAccount)
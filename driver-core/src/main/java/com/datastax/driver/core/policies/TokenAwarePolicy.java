@@ -16,11 +16,15 @@
 package com.datastax.driver.core.policies;
 
 import com.datastax.driver.core.*;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
 import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 
-import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A wrapper load balancing policy that add token awareness to a child policy.
@@ -43,11 +47,55 @@ import java.util.*;
  * priority. For example, if you wrap {@link DCAwareRoundRobinPolicy} with this
  * token aware policy, replicas from remote data centers may only be
  * returned after all the host of the local data center.
+ * <p/>
+ * The order in which the local replicas are tried is controlled by a {@link ReplicaOrdering}.
  */
 public class TokenAwarePolicy implements ChainableLoadBalancingPolicy {
 
+    // Used to pick the first replica at random; one instance per thread to avoid contention
+    private static final ThreadLocal<Random> RANDOM = new ThreadLocal<Random>() {
+        @Override
+        protected Random initialValue() {
+            return new Random();
+        }
+    };
+
+    /**
+     * The order in which the replicas of a query are tried.
+     */
+    public enum ReplicaOrdering {
+        /**
+         * Replicas are tried in ring order, starting with the "primary" replica. This maximizes the
+         * effectiveness of caching (especially at consistency level ONE), but does not distribute the load
+         * of a partition across its replicas.
+         */
+        TOPOLOGICAL,
+
+        /**
+         * The first replica is picked at random, and the others are tried in ring order. This distributes
+         * the load evenly across replicas, and can alleviate hotspots caused by "fat" partitions.
+         */
+        RANDOM,
+
+        /**
+         * Replicas are tried from the least busy to the busiest, as estimated from the number of requests
+         * currently in flight to each of them (see {@link Host#getInFlightQueries()}) weighted by their recent
+         * average latency. This steers requests away from replicas that are overloaded or slow (for example
+         * because of a GC pause). Replicas with equal scores are tried in random order.
+         * <p/>
+         * Latencies are averaged like in {@link LatencyAwarePolicy}: older measurements lose weight over time,
+         * and a replica's average is only used once it has enough measurements, and as long as it has been
+         * updated recently (see {@link LatencyAwarePolicy.Builder#withRetryPeriod(long, java.util.concurrent.TimeUnit)}
+         * for the default periods). Replicas without such an average are assumed to be as fast as the other
+         * replicas of the query, so that a replica that stopped receiving requests after a slow period gets
+         * measured again, starting from a new average.
+         */
+        LEAST_BUSY
+    }
+
     private final LoadBalancingPolicy childPolicy;
-    private final boolean shuffleReplicas;
+    private final ReplicaOrdering replicaOrdering;
+    private final ReplicaLatencyTracker latencyTracker;
     private volatile Metadata clusterMetadata;
     private volatile ProtocolVersion protocolVersion;
     private volatile CodecRegistry codecRegistry;
@@ -56,7 +104,8 @@ public class TokenAwarePolicy implements ChainableLoadBalancingPolicy {
      * Creates a new {@code TokenAware} policy.
      *
      * @param childPolicy     the load balancing policy to wrap with token awareness.
-     * @param shuffleReplicas whether to shuffle the replicas returned by {@code getRoutingKey}.
+     * @param shuffleReplicas whether to shuffle the replicas returned by {@code getRoutingKey}. Shuffling picks
+     *                        the first replica at random, and then tries the others in ring order.
      *                        Note that setting this parameter to {@code true} might decrease the
      *                        effectiveness of caching (especially at consistency level ONE), since
      *                        the same row will be retrieved from any replica (instead of only the
@@ -65,8 +114,24 @@ public class TokenAwarePolicy implements ChainableLoadBalancingPolicy {
      *                        alleviate hotspots caused by "fat" partitions.
      */
     public TokenAwarePolicy(LoadBalancingPolicy childPolicy, boolean shuffleReplicas) {
+        this(childPolicy, shuffleReplicas ? ReplicaOrdering.RANDOM : ReplicaOrdering.TOPOLOGICAL);
+    }
+
+    /**
+     * Creates a new {@code TokenAware} policy.
+     *
+     * @param childPolicy     the load balancing policy to wrap with token awareness.
+     * @param replicaOrdering the order in which the replicas of a query are tried.
+     */
+    public TokenAwarePolicy(LoadBalancingPolicy childPolicy, ReplicaOrdering replicaOrdering) {
+        this(childPolicy, replicaOrdering, Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    TokenAwarePolicy(LoadBalancingPolicy childPolicy, ReplicaOrdering replicaOrdering, Ticker ticker) {
         this.childPolicy = childPolicy;
-        this.shuffleReplicas = shuffleReplicas;
+        this.replicaOrdering = replicaOrdering;
+        this.latencyTracker = (replicaOrdering == ReplicaOrdering.LEAST_BUSY) ? new ReplicaLatencyTracker(ticker) : null;
     }
 
     /**
@@ -91,6 +156,8 @@ public class TokenAwarePolicy implements ChainableLoadBalancingPolicy {
         protocolVersion = cluster.getConfiguration().getProtocolOptions().getProtocolVersion();
         codecRegistry = cluster.getConfiguration().getCodecRegistry();
         childPolicy.init(cluster, hosts);
+        if (latencyTracker != null)
+            cluster.register(latencyTracker);
     }
 
     /**
@@ -118,36 +185,51 @@ public class TokenAwarePolicy implements ChainableLoadBalancingPolicy {
     @Override
     public Iterator<Host> newQueryPlan(final String loggedKeyspace, final Statement statement) {
 
-        ByteBuffer partitionKey = statement.getRoutingKey(protocolVersion, codecRegistry);
         String keyspace = statement.getKeyspace();
         if (keyspace == null)
             keyspace = loggedKeyspace;
 
-        if (partitionKey == null || keyspace == null)
+        // The token is cached on the statement, so retries and re-executions don't hash the key again
+        Token token = (keyspace == null) ? null : clusterMetadata.getRoutingToken(statement, protocolVersion, codecRegistry);
+        if (token == null)
             return childPolicy.newQueryPlan(keyspace, statement);
 
-        final Set<Host> replicas = clusterMetadata.getReplicas(Metadata.quote(keyspace), partitionKey);
+        final Set<Host> replicas = clusterMetadata.getReplicas(Metadata.quote(keyspace), token);
         if (replicas.isEmpty())
             return childPolicy.newQueryPlan(loggedKeyspace, statement);
 
-        final Iterator<Host> iter;
-        if (shuffleReplicas) {
-            List<Host> l = Lists.newArrayList(replicas);
-            Collections.shuffle(l);
-            iter = l.iterator();
-        } else {
-            iter = replicas.iterator();
+        // Replicas are immutable sets, whose list view is computed once and cached
+        List<Host> orderedReplicas = (replicas instanceof ImmutableSet)
+                ? ((ImmutableSet<Host>) replicas).asList()
+                : Lists.newArrayList(replicas);
+        int firstReplica = 0;
+        switch (replicaOrdering) {
+            case RANDOM:
+                // Start at a random replica and then go around (this spreads the load just like a shuffle, but
+                // without copying the replicas)
+                firstReplica = randomUsableReplica(orderedReplicas);
+                break;
+            case LEAST_BUSY:
+                orderedReplicas = leastBusyFirst(orderedReplicas);
+                break;
         }
+        final List<Host> replicaList = orderedReplicas;
+        final int replicaCount = replicaList.size();
+        final int start = firstReplica;
 
         return new AbstractIterator<Host>() {
 
+            private int tried;
             private Iterator<Host> childIterator;
 
             @Override
             protected Host computeNext() {
-                while (iter.hasNext()) {
-                    Host host = iter.next();
-                    if (host.isUp() && childPolicy.distance(host) == HostDistance.LOCAL)
+                while (tried < replicaCount) {
+                    int i = start + tried++;
+                    if (i >= replicaCount)
+                        i -= replicaCount;
+                    Host host = replicaList.get(i);
+                    if (isUsable(host))
                         return host;
                 }
 
@@ -165,8 +247,80 @@ public class TokenAwarePolicy implements ChainableLoadBalancingPolicy {
         };
     }
 
+    private boolean isUsable(Host replica) {
+        return replica.isUp() && childPolicy.distance(replica) == HostDistance.LOCAL;
+    }
+
+    // Picks the start among the replicas that will actually be tried, so that down or remote replicas don't make
+    // the replica that follows them more likely to come first
+    private int randomUsableReplica(List<Host> replicas) {
+        int count = replicas.size();
+        int usable = 0;
+        for (int i = 0; i < count; i++) {
+            if (isUsable(replicas.get(i)))
+                usable += 1;
+        }
+        if (usable == 0)
+            return 0;
+        int k = RANDOM.get().nextInt(usable);
+        for (int i = 0; i < count; i++) {
+            if (isUsable(replicas.get(i)) && k-- == 0)
+                return i;
+        }
+        return 0;
+    }
+
+    private List<Host> leastBusyFirst(List<Host> replicas) {
+        int count = replicas.size();
+        int start = RANDOM.get().nextInt(count);
+        Host[] hosts = new Host[count];
+        long[] latencies = new long[count];
+        long totalLatency = 0;
+        int measured = 0;
+        long now = latencyTracker.ticker.read();
+        for (int i = 0; i < count; i++) {
+            int j = start + i;
+            if (j >= count)
+                j -= count;
+            hosts[i] = replicas.get(j);
+            latencies[i] = latencyTracker.averageLatency(hosts[i], now);
+            if (latencies[i] >= 0) {
+                totalLatency += latencies[i];
+                measured += 1;
+            }
+        }
+        // Replicas without a usable average are assumed to be as fast as the others; if none has one, only the
+        // number of in-flight requests counts
+        long defaultLatency = (measured == 0) ? 1 : Math.max(1, totalLatency / measured);
+
+        long[] scores = new long[count];
+        for (int i = 0; i < count; i++) {
+            Host host = hosts[i];
+            long latency = latencies[i] < 0 ? defaultLatency : latencies[i];
+            long score = score(host, latency);
+            // Insertion sort: replica sets are small, and hosts with equal scores keep the random order
+            int k = i;
+            while (k > 0 && scores[k - 1] > score) {
+                hosts[k] = hosts[k - 1];
+                scores[k] = scores[k - 1];
+                k -= 1;
+            }
+            hosts[k] = host;
+            scores[k] = score;
+        }
+        return Arrays.asList(hosts);
+    }
+
+    // Approximates how long a new request would take on the host: the number of requests ahead of it, times the
+    // time the host takes to serve a request
+    private static long score(Host host, long latency) {
+        return (host.getInFlightQueries() + 1) * latency;
+    }
+
     @Override
     public void onUp(Host host) {
+        if (latencyTracker != null)
+            latencyTracker.reset(host);
         childPolicy.onUp(host);
     }
 
@@ -182,6 +336,8 @@ public class TokenAwarePolicy implements ChainableLoadBalancingPolicy {
 
     @Override
     public void onRemove(Host host) {
+        if (latencyTracker != null)
+            latencyTracker.reset(host);
         childPolicy.onRemove(host);
     }
 
@@ -189,4 +345,82 @@ public class TokenAwarePolicy implements ChainableLoadBalancingPolicy {
     public void close() {
         childPolicy.close();
     }
+
+    /**
+     * Keeps a time-weighted moving average of the latency of each host, like {@link LatencyAwarePolicy}.
+     */
+    private static class ReplicaLatencyTracker implements LatencyTracker {
+
+        private static final long SCALE_NANOS = LatencyAwarePolicy.Builder.DEFAULT_SCALE_NANOS;
+        private static final long RETRY_PERIOD_NANOS = LatencyAwarePolicy.Builder.DEFAULT_RETRY_PERIOD_NANOS;
+        private static final int MIN_MEASURE = LatencyAwarePolicy.Builder.DEFAULT_MIN_MEASURE;
+
+        final Ticker ticker;
+        private final ConcurrentMap<Host, LatencyAwarePolicy.HostLatencyTracker> latencies =
+                new ConcurrentHashMap<Host, LatencyAwarePolicy.HostLatencyTracker>();
+
+        ReplicaLatencyTracker(Ticker ticker) {
+            this.ticker = ticker;
+        }
+
+        @Override
+        public void update(Host host, Statement statement, Exception exception, long newLatencyNanos) {
+            // filter out "fast" errors, they don't reflect how busy the host is
+            if (exception != null && LatencyAwarePolicy.EXCLUDED_EXCEPTIONS.contains(exception.getClass()))
+                return;
+
+            long now = ticker.read();
+            LatencyAwarePolicy.HostLatencyTracker hostTracker = latencies.get(host);
+            if (hostTracker == null) {
+                hostTracker = newHostTracker();
+                LatencyAwarePolicy.HostLatencyTracker old = latencies.putIfAbsent(host, hostTracker);
+                if (old != null)
+                    hostTracker = old;
+            } else if (isExpired(hostTracker.getCurrentAverage(), now)) {
+                // The host was not measured for a while (probably because it was too slow to get requests), start
+                // over rather than let the old average weigh on the new measurements
+                LatencyAwarePolicy.HostLatencyTracker fresh = newHostTracker();
+                hostTracker = latencies.replace(host, hostTracker, fresh) ? fresh : latencies.get(host);
+                if (hostTracker == null)
+                    return;
+            }
+            hostTracker.add(newLatencyNanos, now);
+        }
+
+        private static LatencyAwarePolicy.HostLatencyTracker newHostTracker() {
+            return new LatencyAwarePolicy.HostLatencyTracker(SCALE_NANOS, (30L * MIN_MEASURE) / 100L);
+        }
+
+        private static boolean isExpired(LatencyAwarePolicy.TimestampedAverage latency, long now) {
+            return latency != null && now - latency.timestamp > RETRY_PERIOD_NANOS;
+        }
+
+        /**
+         * @return the average latency of the host in nanoseconds, or -1 if it does not have enough measurements,
+         * or has not been measured during the retry period.
+         */
+        long averageLatency(Host host, long now) {
+            LatencyAwarePolicy.HostLatencyTracker hostTracker = latencies.get(host);
+            if (hostTracker == null)
+                return -1;
+            LatencyAwarePolicy.TimestampedAverage latency = hostTracker.getCurrentAverage();
+            if (latency == null || latency.average < 0 || latency.nbMeasure < MIN_MEASURE || isExpired(latency, now))
+                return -1;
+            return latency.average;
+        }
+
+        void reset(Host host) {
+            latencies.remove(host);
+        }
+
+        @Override
+        public void onRegister(Cluster cluster) {
+            // nothing to do
+        }
+
+        @Override
+        public void onUnregister(Cluster cluster) {
+            // nothing to do
+        }
+    }
 }
@@ -0,0 +1,66 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ArrayBackedResultSetTest {
+
+    @Test(groups = "unit")
+    public void should_decode_rows_from_page_bytes() {
+        ByteBuf body = Unpooled.buffer();
+        // metadata: GLOBAL_TABLES_SPEC, 3 columns
+        body.writeInt(1);
+        body.writeInt(3);
+        CBUtil.writeString("ks", body);
+        CBUtil.writeString("t", body);
+        CBUtil.writeString("i", body);
+        body.writeShort(DataType.Name.INT.protocolId);
+        CBUtil.writeString("s", body);
+        body.writeShort(DataType.Name.VARCHAR.protocolId);
+        CBUtil.writeString("b", body);
+        body.writeShort(DataType.Name.BLOB.protocolId);
+        // rows
+        body.writeInt(2);
+        body.writeInt(4).writeInt(42);
+        CBUtil.writeValue(new byte[]{'f', 'o', 'o'}, body);
+        CBUtil.writeValue(new byte[0], body);
+        body.writeInt(-1);
+        CBUtil.writeValue(new byte[]{'b', 'a', 'r'}, body);
+        CBUtil.writeValue(new byte[]{1, 2}, body);
+
+        Responses.Result rows = Responses.Result.Rows.subcodec.decode(body, ProtocolVersion.V4, CodecRegistry.DEFAULT_INSTANCE);
+        body.release();
+        ResultSet rs = ArrayBackedResultSet.fromMessage(rows, null, ProtocolVersion.V4, null, null);
+
+        assertThat(rs.getAvailableWithoutFetching()).isEqualTo(2);
+        Row row = rs.one();
+        assertThat(row.getInt("i")).isEqualTo(42);
+        assertThat(row.getString("s")).isEqualTo("foo");
+        assertThat(row.getBytes("b").remaining()).isEqualTo(0);
+        row = rs.one();
+        assertThat(row.isNull("i")).isTrue();
+        assertThat(row.getString("s")).isEqualTo("bar");
+        assertThat(row.getBytes("b")).isEqualTo(ByteBuffer.wrap(new byte[]{1, 2}));
+        assertThat(rs.isExhausted()).isTrue();
+    }
+}
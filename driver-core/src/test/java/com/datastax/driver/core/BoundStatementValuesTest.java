@@ -0,0 +1,138 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.datastax.driver.core.ProtocolVersion.V4;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BoundStatementValuesTest {
+
+    @Test(groups = "unit")
+    public void should_write_unboxed_values_as_if_serialized() {
+        BoundStatement statement = newBoundStatement()
+                .setInt(0, 42)
+                .setLong(1, 1234567890123L)
+                .setDouble(2, 3.14)
+                .setFloat(3, 1.5f)
+                .setString(4, "foo");
+
+        List<ByteBuffer> expected = Arrays.asList(
+                TypeCodec.cint().serialize(42, V4),
+                TypeCodec.bigint().serialize(1234567890123L, V4),
+                TypeCodec.cdouble().serialize(3.14, V4),
+                TypeCodec.cfloat().serialize(1.5f, V4),
+                TypeCodec.varchar().serialize("foo", V4));
+        assertWritten(statement, expected);
+
+        assertThat(statement.getInt(0)).isEqualTo(42);
+        assertThat(statement.getLong(1)).isEqualTo(1234567890123L);
+        assertThat(statement.getDouble(2)).isEqualTo(3.14);
+        assertThat(statement.getFloat(3)).isEqualTo(1.5f);
+        assertThat(statement.getString(4)).isEqualTo("foo");
+        assertThat(statement.getRoutingKey(V4, CodecRegistry.DEFAULT_INSTANCE)).isEqualTo(expected.get(0));
+        // reading the values back does not change what gets written
+        assertWritten(statement, expected);
+    }
+
+    @Test(groups = "unit")
+    public void should_discard_unboxed_value_when_rebound() {
+        BoundStatement statement = newBoundStatement().setInt(0, 42);
+        assertThat(statement.getRoutingKey(V4, CodecRegistry.DEFAULT_INSTANCE)).isEqualTo(TypeCodec.cint().serialize(42, V4));
+
+        statement.setToNull(0);
+        assertThat(statement.isNull(0)).isTrue();
+        assertThat(statement.getRoutingKey(V4, CodecRegistry.DEFAULT_INSTANCE)).isNull();
+
+        statement.setInt(0, 43);
+        assertThat(statement.getRoutingKey(V4, CodecRegistry.DEFAULT_INSTANCE)).isEqualTo(TypeCodec.cint().serialize(43, V4));
+
+        statement.bind(44);
+        assertThat(statement.getInt(0)).isEqualTo(44);
+        assertThat(statement.getRoutingKey(V4, CodecRegistry.DEFAULT_INSTANCE)).isEqualTo(TypeCodec.cint().serialize(44, V4));
+
+        statement.unset(0);
+        assertThat(statement.isSet(0)).isFalse();
+    }
+
+    @Test(groups = "unit")
+    public void should_not_modify_statement_when_reading_unboxed_value() {
+        BoundStatement statement = newBoundStatement().setInt(0, 42).setLong(1, 1234567890123L);
+
+        assertThat(statement.getInt(0)).isEqualTo(42);
+        ByteBuffer bytes = statement.getBytesUnsafe(1);
+        assertThat(bytes).isEqualTo(TypeCodec.bigint().serialize(1234567890123L, V4));
+
+        // the serialized forms are not stored, so concurrent reads never race on the values array
+        assertThat(statement.wrapper.values[0]).isNull();
+        assertThat(statement.wrapper.values[1]).isNull();
+        // and each read gets its own buffer
+        bytes.putLong(0, 0);
+        assertThat(statement.getLong(1)).isEqualTo(1234567890123L);
+    }
+
+    @Test(groups = "unit")
+    public void should_keep_routing_key_of_unboxed_value_until_rebound() {
+        BoundStatement statement = newBoundStatement().setInt(0, 42);
+
+        ByteBuffer routingKey = statement.getRoutingKey(V4, CodecRegistry.DEFAULT_INSTANCE);
+        assertThat(routingKey).isEqualTo(TypeCodec.cint().serialize(42, V4));
+        assertThat(statement.getRoutingKey(V4, CodecRegistry.DEFAULT_INSTANCE)).isSameAs(routingKey);
+
+        // rebinding another variable keeps it
+        statement.setLong(1, 1L);
+        assertThat(statement.getRoutingKey(V4, CodecRegistry.DEFAULT_INSTANCE)).isSameAs(routingKey);
+
+        statement.setInt(0, 43);
+        assertThat(statement.getRoutingKey(V4, CodecRegistry.DEFAULT_INSTANCE))
+                .isNotSameAs(routingKey)
+                .isEqualTo(TypeCodec.cint().serialize(43, V4));
+    }
+
+    private static void assertWritten(BoundStatement statement, List<ByteBuffer> expectedValues) {
+        List<ByteBuffer> values = statement.wrapper.valueList();
+        ByteBuf actual = Unpooled.buffer();
+        CBUtil.writeValueList(values, actual);
+        ByteBuf expected = Unpooled.buffer();
+        CBUtil.writeValueList(expectedValues, expected);
+        assertThat(actual).isEqualTo(expected);
+        assertThat(CBUtil.sizeOfValueList(values)).isEqualTo(expected.readableBytes());
+    }
+
+    private static BoundStatement newBoundStatement() {
+        ColumnDefinitions variables = new ColumnDefinitions(new ColumnDefinitions.Definition[]{
+                new ColumnDefinitions.Definition("ks", "t", "k", DataType.cint()),
+                new ColumnDefinitions.Definition("ks", "t", "v1", DataType.bigint()),
+                new ColumnDefinitions.Definition("ks", "t", "v2", DataType.cdouble()),
+                new ColumnDefinitions.Definition("ks", "t", "v3", DataType.cfloat()),
+                new ColumnDefinitions.Definition("ks", "t", "v4", DataType.text())
+        }, CodecRegistry.DEFAULT_INSTANCE);
+        PreparedStatement prepared = mock(PreparedStatement.class);
+        when(prepared.getVariables()).thenReturn(variables);
+        when(prepared.getPreparedId()).thenReturn(new PreparedId(null, variables, null, new int[]{0}, V4));
+        when(prepared.getCodecRegistry()).thenReturn(CodecRegistry.DEFAULT_INSTANCE);
+        return new BoundStatement(prepared);
+    }
+}
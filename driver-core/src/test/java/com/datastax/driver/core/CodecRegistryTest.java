@@ -437,6 +437,46 @@ public class CodecRegistryTest {
         }
     }
 
+    @Test(groups = "unit")
+    public void should_find_same_codec_by_value_of_same_class() {
+        CodecRegistry registry = new CodecRegistry();
+        assertThat(registry.codecFor("foo")).isSameAs(TypeCodec.varchar());
+        assertThat(registry.codecFor("bar")).isSameAs(TypeCodec.varchar());
+        // collection codecs depend on the contents
+        assertThat(registry.codecFor(singletonList(42))).accepts(list(cint()));
+        assertThat(registry.codecFor(singletonList("foo"))).accepts(list(varchar()));
+    }
+
+    @Test(groups = "unit")
+    public void should_find_codec_by_value_if_registered_codec_inspects_values() {
+        TypeCodec<StringBuilder> nonEmptyCodec = new StringBuilderCodec(varchar()) {
+            @Override
+            public boolean accepts(Object value) {
+                return super.accepts(value) && ((StringBuilder) value).length() > 0;
+            }
+        };
+        TypeCodec<StringBuilder> anyCodec = new StringBuilderCodec(ascii());
+        CodecRegistry registry = new CodecRegistry().register(nonEmptyCodec, anyCodec);
+        assertThat(registry.codecFor(new StringBuilder())).isSameAs(anyCodec);
+        assertThat(registry.codecFor(new StringBuilder("foo"))).isSameAs(nonEmptyCodec);
+        assertThat(registry.codecFor(new StringBuilder())).isSameAs(anyCodec);
+    }
+
+    @Test(groups = "unit")
+    public void should_find_codec_by_value_registered_before_codec_inspecting_values() {
+        TypeCodec<StringBuilder> anyCodec = new StringBuilderCodec(ascii());
+        TypeCodec<StringBuilder> nonEmptyCodec = new StringBuilderCodec(varchar()) {
+            @Override
+            public boolean accepts(Object value) {
+                return super.accepts(value) && ((StringBuilder) value).length() > 0;
+            }
+        };
+        CodecRegistry registry = new CodecRegistry().register(anyCodec, nonEmptyCodec);
+        assertThat(registry.codecFor(new StringBuilder())).isSameAs(anyCodec);
+        assertThat(registry.codecFor(new StringBuilder("foo"))).isSameAs(anyCodec);
+        assertThat(registry.codecFor("foo")).isSameAs(TypeCodec.varchar());
+    }
+
     @Test(groups = "unit")
     public void should_ignore_codec_colliding_with_already_registered_codec() {
         MemoryAppender logs = startCapturingLogs();
@@ -490,6 +530,33 @@ public class CodecRegistryTest {
         registryLogger.removeAppender(logs);
     }
 
+    private static class StringBuilderCodec extends TypeCodec<StringBuilder> {
+
+        StringBuilderCodec(DataType cqlType) {
+            super(cqlType, StringBuilder.class);
+        }
+
+        @Override
+        public ByteBuffer serialize(StringBuilder value, ProtocolVersion protocolVersion) {
+            return TypeCodec.varchar().serialize(value.toString(), protocolVersion);
+        }
+
+        @Override
+        public StringBuilder deserialize(ByteBuffer bytes, ProtocolVersion protocolVersion) {
+            return new StringBuilder(TypeCodec.varchar().deserialize(bytes, protocolVersion));
+        }
+
+        @Override
+        public StringBuilder parse(String value) {
+            return new StringBuilder(TypeCodec.varchar().parse(value));
+        }
+
+        @Override
+        public String format(StringBuilder value) {
+            return TypeCodec.varchar().format(value.toString());
+        }
+    }
+
     private TypeCodec<?> mockCodec(DataType cqlType, TypeToken<?> javaType) {
         TypeCodec newCodec = mock(TypeCodec.class);
         when(newCodec.getCqlType()).thenReturn(cqlType);
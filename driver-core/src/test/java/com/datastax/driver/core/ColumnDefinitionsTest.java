@@ -15,8 +15,13 @@
  */
 package com.datastax.driver.core;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import org.testng.annotations.Test;
 
+import static com.datastax.driver.core.ProtocolVersion.V3;
+import static com.datastax.driver.core.ProtocolVersion.V4;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.testng.Assert.assertTrue;
 
 public class ColumnDefinitionsTest {
@@ -69,4 +74,77 @@ public class ColumnDefinitionsTest {
 
         assertTrue(defs.getType("column").equals(DataType.text()));
     }
+
+    @Test(groups = "unit")
+    public void should_share_definitions_decoded_from_identical_metadata() {
+        CodecRegistry codecRegistry = new CodecRegistry();
+
+        ColumnDefinitions first = decodeMetadata(rowsMetadata("foo"), codecRegistry);
+        ColumnDefinitions second = decodeMetadata(rowsMetadata("foo"), codecRegistry);
+        ColumnDefinitions other = decodeMetadata(rowsMetadata("bar"), codecRegistry);
+
+        assertThat(second).isSameAs(first);
+        assertThat(other).isNotSameAs(first);
+        assertThat(first.getName(0)).isEqualTo("k");
+        assertThat(first.getType("v")).isEqualTo(DataType.map(DataType.text(), DataType.list(DataType.cint())));
+        assertThat(other.getTable(0)).isEqualTo("bar");
+
+        // definitions are not shared across registries
+        assertThat(decodeMetadata(rowsMetadata("foo"), new CodecRegistry())).isNotSameAs(first);
+    }
+
+    @Test(groups = "unit")
+    public void should_look_up_cached_definitions_from_buffer_ranges() {
+        ColumnDefinitionsCache cache = new ColumnDefinitionsCache();
+        ColumnDefinitions definitions = new ColumnDefinitions(new ColumnDefinitions.Definition[]{
+                new ColumnDefinitions.Definition("ks", "cf", "column", DataType.text())
+        }, CodecRegistry.DEFAULT_INSTANCE);
+        byte[] spec = new byte[]{1, 2, 3, 4, 5};
+
+        ByteBuf source = Unpooled.wrappedBuffer(spec.clone());
+        cache.put(source, 0, 5, 1, true, V4, definitions);
+        // the cache copied the bytes, later changes to the response don't affect it
+        source.setByte(0, 42);
+        assertThat(cache.get(source, 0, 5, 1, true, V4)).isNull();
+
+        // same bytes at another position, in a direct buffer
+        ByteBuf other = Unpooled.directBuffer();
+        other.writeBytes(new byte[]{9, 9});
+        other.writeBytes(spec);
+        other.writeByte(9);
+        try {
+            assertThat(cache.get(other, 2, 7, 1, true, V4)).isSameAs(definitions);
+            assertThat(cache.get(other, 2, 6, 1, true, V4)).isNull();
+            assertThat(cache.get(other, 2, 8, 1, true, V4)).isNull();
+            assertThat(cache.get(other, 2, 7, 2, true, V4)).isNull();
+            assertThat(cache.get(other, 2, 7, 1, false, V4)).isNull();
+            assertThat(cache.get(other, 2, 7, 1, true, V3)).isNull();
+        } finally {
+            other.release();
+        }
+    }
+
+    private static ColumnDefinitions decodeMetadata(ByteBuf body, CodecRegistry codecRegistry) {
+        Responses.Result.Rows.Metadata metadata = Responses.Result.Rows.Metadata.decode(body, V4, codecRegistry);
+        // the whole metadata must have been consumed, whether it was decoded or found in the cache
+        assertThat(body.readInt()).isEqualTo(42);
+        return metadata.columns;
+    }
+
+    private static ByteBuf rowsMetadata(String table) {
+        ByteBuf body = Unpooled.buffer();
+        body.writeInt(0x0001); // GLOBAL_TABLES_SPEC
+        body.writeInt(2);
+        CBUtil.writeString("ks", body);
+        CBUtil.writeString(table, body);
+        CBUtil.writeString("k", body);
+        body.writeShort(DataType.Name.INT.protocolId);
+        CBUtil.writeString("v", body);
+        body.writeShort(DataType.Name.MAP.protocolId);
+        body.writeShort(DataType.Name.VARCHAR.protocolId);
+        body.writeShort(DataType.Name.LIST.protocolId);
+        body.writeShort(DataType.Name.INT.protocolId);
+        body.writeInt(42);
+        return body;
+    }
 }
@@ -0,0 +1,101 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConnectionCoalescerTest {
+
+    private static final long WINDOW = 100000; // 100 microseconds
+    private static final int MAX_MESSAGES = 64;
+
+    @Test(groups = "unit")
+    public void should_flush_immediately_when_window_is_zero() {
+        Connection.Coalescer coalescer = new Connection.Coalescer(0);
+
+        assertThat(coalescer.onRun(1, 1000, 0, MAX_MESSAGES)).isEqualTo(1);
+        assertThat(coalescer.onRun(3, 2000, 0, MAX_MESSAGES)).isEqualTo(3);
+        assertThat(coalescer.onRun(0, 3000, 0, MAX_MESSAGES)).isEqualTo(0);
+        assertThat(coalescer.pending).isEqualTo(0);
+    }
+
+    @Test(groups = "unit")
+    public void should_wait_for_window_to_expire() {
+        Connection.Coalescer coalescer = dense();
+
+        // messages arrive every 10 microseconds: they are held until the oldest one has waited for the window
+        long now = 1000000;
+        assertThat(coalescer.onRun(1, now, WINDOW, MAX_MESSAGES)).isEqualTo(0);
+        assertThat(coalescer.onRun(1, now + 10000, WINDOW, MAX_MESSAGES)).isEqualTo(0);
+        assertThat(coalescer.onRun(0, now + 50000, WINDOW, MAX_MESSAGES)).isEqualTo(0);
+        assertThat(coalescer.pending).isEqualTo(2);
+        assertThat(coalescer.onRun(0, now + WINDOW, WINDOW, MAX_MESSAGES)).isEqualTo(2);
+        assertThat(coalescer.pending).isEqualTo(0);
+
+        // the window starts again with the next message
+        assertThat(coalescer.onRun(1, now + WINDOW + 10000, WINDOW, MAX_MESSAGES)).isEqualTo(0);
+        assertThat(coalescer.onRun(0, now + 2 * WINDOW, WINDOW, MAX_MESSAGES)).isEqualTo(0);
+        assertThat(coalescer.onRun(0, now + 2 * WINDOW + 10000, WINDOW, MAX_MESSAGES)).isEqualTo(1);
+    }
+
+    @Test(groups = "unit")
+    public void should_flush_when_max_messages_reached() {
+        Connection.Coalescer coalescer = dense();
+
+        long now = 1000000;
+        assertThat(coalescer.onRun(2, now, WINDOW, 4)).isEqualTo(0);
+        assertThat(coalescer.onRun(1, now + 1000, WINDOW, 4)).isEqualTo(0);
+        assertThat(coalescer.onRun(1, now + 2000, WINDOW, 4)).isEqualTo(4);
+        // a single run that exceeds the cap flushes everything at once
+        assertThat(coalescer.onRun(10, now + 3000, WINDOW, 4)).isEqualTo(10);
+    }
+
+    @Test(groups = "unit")
+    public void should_not_wait_when_messages_are_sparse() {
+        Connection.Coalescer coalescer = new Connection.Coalescer(0);
+
+        // one message every millisecond: waiting 100 microseconds would not coalesce anything
+        assertThat(coalescer.onRun(1, 1000000, WINDOW, MAX_MESSAGES)).isEqualTo(1);
+        assertThat(coalescer.onRun(1, 2000000, WINDOW, MAX_MESSAGES)).isEqualTo(1);
+        assertThat(coalescer.averageIntervalNanos).isEqualTo(1000000);
+    }
+
+    @Test(groups = "unit")
+    public void should_average_interval_between_messages() {
+        Connection.Coalescer coalescer = new Connection.Coalescer(0);
+
+        coalescer.onRun(4, 40000, 0, MAX_MESSAGES);
+        assertThat(coalescer.averageIntervalNanos).isEqualTo(10000);
+        coalescer.onRun(1, 90000, 0, MAX_MESSAGES);
+        // (3 * 10000 + 50000) / 4
+        assertThat(coalescer.averageIntervalNanos).isEqualTo(20000);
+        // runs without messages don't change the average
+        coalescer.onRun(0, 1000000, 0, MAX_MESSAGES);
+        assertThat(coalescer.averageIntervalNanos).isEqualTo(20000);
+    }
+
+    /**
+     * @return a coalescer that has observed messages arriving every 10 microseconds, and has nothing pending.
+     */
+    private static Connection.Coalescer dense() {
+        Connection.Coalescer coalescer = new Connection.Coalescer(0);
+        assertThat(coalescer.onRun(100, 1000000, 0, MAX_MESSAGES)).isEqualTo(100);
+        assertThat(coalescer.averageIntervalNanos).isEqualTo(10000);
+        return coalescer;
+    }
+}
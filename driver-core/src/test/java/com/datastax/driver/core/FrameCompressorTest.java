@@ -0,0 +1,128 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class FrameCompressorTest {
+
+    private static final ByteBufAllocator alloc = PooledByteBufAllocator.DEFAULT;
+
+    @DataProvider
+    public static Object[][] compressors() {
+        return new Object[][]{
+                {FrameCompressor.SnappyCompressor.instance, false},
+                {FrameCompressor.SnappyCompressor.instance, true},
+                {FrameCompressor.LZ4Compressor.instance, false},
+                {FrameCompressor.LZ4Compressor.instance, true}
+        };
+    }
+
+    @Test(groups = "unit", dataProvider = "compressors")
+    public void should_compress_and_decompress_frame_body(FrameCompressor compressor, boolean direct) throws Exception {
+        byte[] contents = new byte[10000];
+        Random random = new Random(42);
+        // only fill half of the contents to make them compressible
+        for (int i = 0; i < contents.length / 2; i++)
+            contents[i] = (byte) random.nextInt();
+
+        ByteBuf body = direct ? alloc.directBuffer(contents.length) : alloc.heapBuffer(contents.length);
+        body.writeBytes(contents);
+        Frame frame = Frame.create(ProtocolVersion.V4, Message.Request.Type.QUERY.opcode, 0, EnumSet.noneOf(Frame.Header.Flag.class), body);
+
+        Frame compressed = compressor.compress(alloc, frame);
+        body.release();
+        assertThat(compressed.body.isDirect()).isEqualTo(direct);
+        assertThat(compressed.body.readableBytes()).isLessThan(contents.length);
+
+        Frame decompressed = compressor.decompress(alloc, compressed);
+        compressed.body.release();
+        assertThat(decompressed.body.isDirect()).isEqualTo(direct);
+        byte[] result = new byte[decompressed.body.readableBytes()];
+        decompressed.body.readBytes(result);
+        decompressed.body.release();
+        assertThat(result).isEqualTo(contents);
+    }
+
+    @Test(groups = "unit", dataProvider = "compressors")
+    public void should_compress_and_decompress_composite_direct_body(FrameCompressor compressor, boolean ignored) throws Exception {
+        byte[] contents = new byte[10000];
+        for (int i = 0; i < contents.length; i++)
+            contents[i] = (byte) (i % 7);
+
+        // a direct composite buffer reports isDirect(), but can't expose its contents as a single NIO buffer
+        CompositeByteBuf body = alloc.compositeDirectBuffer();
+        body.addComponent(alloc.directBuffer().writeBytes(contents, 0, 5000));
+        body.addComponent(alloc.directBuffer().writeBytes(contents, 5000, 5000));
+        body.writerIndex(contents.length);
+        assertThat(body.isDirect()).isTrue();
+        assertThat(body.nioBufferCount()).isEqualTo(2);
+        Frame frame = Frame.create(ProtocolVersion.V4, Message.Request.Type.QUERY.opcode, 0, EnumSet.noneOf(Frame.Header.Flag.class), body);
+
+        Frame compressed = compressor.compress(alloc, frame);
+        body.release();
+
+        byte[] compressedContents = new byte[compressed.body.readableBytes()];
+        compressed.body.readBytes(compressedContents);
+        compressed.body.release();
+        int half = compressedContents.length / 2;
+        CompositeByteBuf compressedBody = alloc.compositeDirectBuffer();
+        compressedBody.addComponent(alloc.directBuffer().writeBytes(compressedContents, 0, half));
+        compressedBody.addComponent(alloc.directBuffer().writeBytes(compressedContents, half, compressedContents.length - half));
+        compressedBody.writerIndex(compressedContents.length);
+
+        Frame decompressed = compressor.decompress(alloc, compressed.with(compressedBody));
+        compressedBody.release();
+        byte[] result = new byte[decompressed.body.readableBytes()];
+        decompressed.body.readBytes(result);
+        decompressed.body.release();
+        assertThat(result).isEqualTo(contents);
+    }
+
+    @Test(groups = "unit")
+    public void should_not_wrap_lz4_length_mismatch() throws Exception {
+        byte[] contents = new byte[1000];
+        ByteBuf body = alloc.heapBuffer(contents.length).writeBytes(contents);
+        Frame frame = Frame.create(ProtocolVersion.V4, Message.Request.Type.QUERY.opcode, 0, EnumSet.noneOf(Frame.Header.Flag.class), body);
+
+        Frame compressed = FrameCompressor.LZ4Compressor.instance.compress(alloc, frame);
+        body.release();
+        // trailing garbage after the compressed block
+        compressed.body.writeByte(0);
+
+        try {
+            FrameCompressor.LZ4Compressor.instance.decompress(alloc, compressed);
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).isEqualTo("Compressed lengths mismatch");
+            assertThat(e.getCause()).isNull();
+        } finally {
+            compressed.body.release();
+        }
+    }
+}
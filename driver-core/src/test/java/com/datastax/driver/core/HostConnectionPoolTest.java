@@ -17,10 +17,14 @@ package com.datastax.driver.core;
 
 import com.codahale.metrics.Gauge;
 import com.datastax.driver.core.exceptions.BusyConnectionException;
+import com.datastax.driver.core.exceptions.BusyPoolException;
 import com.datastax.driver.core.exceptions.ConnectionException;
 import com.datastax.driver.core.policies.ConstantReconnectionPolicy;
 import com.google.common.base.Predicate;
 import com.google.common.util.concurrent.*;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
 import org.scassandra.cql.PrimitiveType;
 import org.scassandra.http.client.PrimingRequest;
 import org.testng.annotations.BeforeClass;
@@ -29,6 +33,7 @@ import org.testng.annotations.Test;
 import java.net.InetSocketAddress;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -36,6 +41,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import static com.datastax.driver.core.Assertions.assertThat;
 import static com.datastax.driver.core.ConditionChecker.check;
 import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Sets.newHashSet;
 import static java.util.Collections.singletonList;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.mockito.Mockito.*;
@@ -151,6 +157,277 @@ public class HostConnectionPoolTest extends ScassandraTestBase.PerClassCluster {
         }
     }
 
+    /**
+     * Ensures that when all connections are busy, requests are enqueued without blocking up to the max queue size,
+     * that further requests are rejected immediately, and that enqueued requests get a connection when one is released.
+     *
+     * @test_category connection:connection_pool
+     */
+    @Test(groups = "short")
+    public void should_enqueue_borrows_up_to_max_queue_size_when_pool_is_busy() throws Exception {
+        Cluster cluster = createClusterBuilder().build();
+        List<MockRequest> requests = newArrayList();
+        try {
+            HostConnectionPool pool = createPool(cluster, 1, 1);
+            requests.addAll(sendRequests(128, pool));
+
+            ListenableFuture<Connection> queued = pool.borrowConnection(5, SECONDS, 1);
+            assertThat(queued.isDone()).isFalse();
+
+            ListenableFuture<Connection> rejected = pool.borrowConnection(5, SECONDS, 1);
+            assertThat(rejected.isDone()).isTrue();
+            try {
+                rejected.get();
+                fail("Expected a BusyPoolException");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(BusyPoolException.class);
+            }
+
+            completeRequests(1, requests);
+            Connection connection = queued.get(5, SECONDS);
+            assertThat(connection).isSameAs(pool.connections.get(0));
+            connection.release();
+        } finally {
+            completeRequests(requests);
+            cluster.close();
+        }
+    }
+
+    /**
+     * Ensures that with event loop affinity, the connections of a pool are spread over the event loops, and that a
+     * borrow from one of these event loops gets the connection it serves.
+     *
+     * @test_category connection:connection_pool
+     */
+    @Test(groups = "short")
+    public void should_borrow_connection_of_current_event_loop_with_affinity() throws Exception {
+        Cluster cluster = createClusterBuilder()
+                .withNettyOptions(new NettyOptions() {
+                    @Override
+                    public EventLoopGroup eventLoopGroup(ThreadFactory threadFactory) {
+                        return new NioEventLoopGroup(2, threadFactory);
+                    }
+                })
+                .build();
+        try {
+            cluster.getConfiguration().getPoolingOptions().setEventLoopAffinityEnabled(true);
+            final HostConnectionPool pool = createPool(cluster, 2, 2);
+
+            Set<EventLoop> eventLoops = newHashSet();
+            for (Connection connection : pool.connections)
+                eventLoops.add(connection.channel.eventLoop());
+            assertThat(eventLoops).hasSize(2);
+
+            for (Connection connection : pool.connections) {
+                Future<ListenableFuture<Connection>> borrow = connection.channel.eventLoop().submit(new Callable<ListenableFuture<Connection>>() {
+                    @Override
+                    public ListenableFuture<Connection> call() throws Exception {
+                        return pool.borrowConnection(5, SECONDS, 0);
+                    }
+                });
+                Connection borrowed = borrow.get(5, SECONDS).get(5, SECONDS);
+                assertThat(borrowed).isSameAs(connection);
+                borrowed.release();
+            }
+        } finally {
+            cluster.close();
+        }
+    }
+
+    /**
+     * Ensures that the connection picked for a borrow is never a full one while other connections are available,
+     * even though only two connections are compared on the fast path.
+     *
+     * @test_category connection:connection_pool
+     */
+    @Test(groups = "short")
+    public void should_not_borrow_full_connection_when_another_is_available() throws Exception {
+        Cluster cluster = createClusterBuilder().build();
+        HostConnectionPool pool = null;
+        try {
+            pool = createPool(cluster, 4, 4);
+            int maxRequests = cluster.getConfiguration().getPoolingOptions().getMaxRequestsPerConnection(HostDistance.LOCAL);
+            assertThat(pool.connections).hasSize(4);
+            for (int i = 0; i < 3; i++)
+                pool.connections.get(i).inFlight.set(maxRequests);
+            Connection notFull = pool.connections.get(3);
+
+            for (int i = 0; i < 50; i++) {
+                Connection connection = pool.borrowConnection(5, SECONDS, 0).get(5, SECONDS);
+                assertThat(connection).isSameAs(notFull);
+                connection.release();
+            }
+            assertThat(notFull.inFlight.get()).isEqualTo(0);
+        } finally {
+            if (pool != null) {
+                for (Connection connection : pool.connections)
+                    connection.inFlight.set(0);
+            }
+            cluster.close();
+        }
+    }
+
+    /**
+     * Ensures that borrows are spread over all the connections of the pool.
+     *
+     * @test_category connection:connection_pool
+     */
+    @Test(groups = "short")
+    public void should_spread_borrows_over_connections() throws Exception {
+        Cluster cluster = createClusterBuilder().build();
+        List<Connection> borrowed = newArrayList();
+        try {
+            HostConnectionPool pool = createPool(cluster, 4, 4);
+            for (int i = 0; i < 40; i++)
+                borrowed.add(pool.borrowConnection(5, SECONDS, 0).get(5, SECONDS));
+
+            for (Connection connection : pool.connections)
+                assertThat(connection.inFlight.get()).isGreaterThan(0);
+            assertThat(pool.totalInFlight.get()).isEqualTo(40);
+        } finally {
+            for (Connection connection : borrowed)
+                connection.release();
+            cluster.close();
+        }
+    }
+
+    /**
+     * Ensures that enqueued borrows are completed in order, one per released request slot.
+     *
+     * @test_category connection:connection_pool
+     */
+    @Test(groups = "short")
+    public void should_complete_enqueued_borrows_in_order() throws Exception {
+        Cluster cluster = createClusterBuilder().build();
+        List<MockRequest> requests = newArrayList();
+        try {
+            HostConnectionPool pool = createPool(cluster, 1, 1);
+            requests.addAll(sendRequests(128, pool));
+
+            ListenableFuture<Connection> first = pool.borrowConnection(5, SECONDS, 2);
+            ListenableFuture<Connection> second = pool.borrowConnection(5, SECONDS, 2);
+            assertThat(first.isDone()).isFalse();
+            assertThat(second.isDone()).isFalse();
+
+            completeRequests(1, requests);
+            Connection connection = first.get(5, SECONDS);
+            assertThat(second.isDone()).isFalse();
+
+            completeRequests(1, requests);
+            assertThat(second.get(5, SECONDS)).isSameAs(connection);
+            assertThat(connection.inFlight.get()).isEqualTo(128);
+            assertThat(pool.totalInFlight.get()).isEqualTo(128);
+            connection.release();
+            connection.release();
+        } finally {
+            completeRequests(requests);
+            cluster.close();
+        }
+    }
+
+    /**
+     * Ensures that when an enqueued borrower has given up, the request slot that was meant for it is given back to
+     * the pool and handed to the next borrower.
+     *
+     * @test_category connection:connection_pool
+     */
+    @Test(groups = "short")
+    public void should_give_slot_back_when_enqueued_borrow_was_cancelled() throws Exception {
+        Cluster cluster = createClusterBuilder().build();
+        List<MockRequest> requests = newArrayList();
+        try {
+            HostConnectionPool pool = createPool(cluster, 1, 1);
+            requests.addAll(sendRequests(128, pool));
+            Connection connection = pool.connections.get(0);
+
+            ListenableFuture<Connection> cancelled = pool.borrowConnection(5, SECONDS, 2);
+            ListenableFuture<Connection> next = pool.borrowConnection(5, SECONDS, 2);
+            assertThat(cancelled.cancel(true)).isTrue();
+
+            completeRequests(1, requests);
+            assertThat(next.get(5, SECONDS)).isSameAs(connection);
+            assertThat(connection.inFlight.get()).isEqualTo(128);
+            assertThat(pool.totalInFlight.get()).isEqualTo(128);
+
+            next.get().release();
+            assertThat(connection.inFlight.get()).isEqualTo(127);
+            assertThat(pool.totalInFlight.get()).isEqualTo(127);
+        } finally {
+            completeRequests(requests);
+            cluster.close();
+        }
+    }
+
+    /**
+     * Ensures that a cancelled borrower leaves the queue right away instead of waiting for its timeout.
+     *
+     * @test_category connection:connection_pool
+     */
+    @Test(groups = "short")
+    public void should_remove_cancelled_borrow_from_queue() throws Exception {
+        Cluster cluster = createClusterBuilder().build();
+        List<MockRequest> requests = newArrayList();
+        try {
+            HostConnectionPool pool = createPool(cluster, 1, 1);
+            requests.addAll(sendRequests(128, pool));
+            Connection connection = pool.connections.get(0);
+
+            ListenableFuture<Connection> cancelled = pool.borrowConnection(5, SECONDS, 1);
+            assertThat(pool.pendingBorrowCount()).isEqualTo(1);
+            assertThat(cancelled.cancel(true)).isTrue();
+            assertThat(pool.pendingBorrowCount()).isEqualTo(0);
+
+            // the queue has room again
+            ListenableFuture<Connection> next = pool.borrowConnection(5, SECONDS, 1);
+            completeRequests(1, requests);
+            assertThat(next.get(5, SECONDS)).isSameAs(connection);
+            next.get().release();
+            assertThat(connection.inFlight.get()).isEqualTo(127);
+            assertThat(pool.totalInFlight.get()).isEqualTo(127);
+        } finally {
+            completeRequests(requests);
+            cluster.close();
+        }
+    }
+
+    /**
+     * Ensures that when setting the session's keyspace on a borrowed connection times out, the borrow fails with a
+     * {@link ConnectionException} (so that the request moves on to the next host), the connection is not defunct,
+     * and it is returned to the pool.
+     *
+     * @test_category connection:connection_pool
+     */
+    @Test(groups = "short")
+    public void should_fail_borrow_with_connection_exception_when_keyspace_switch_times_out() throws Exception {
+        primingClient.prime(PrimingRequest.queryBuilder()
+                .withQuery("USE \"slow_ks\"")
+                .withThen(then().withFixedDelay(2000L))
+                .build());
+        Cluster cluster = createClusterBuilder().build();
+        try {
+            cluster.getConfiguration().getSocketOptions().setReadTimeoutMillis(100);
+            HostConnectionPool pool = createPool(cluster, 1, 1);
+            Connection connection = pool.connections.get(0);
+            pool.manager.poolsState.setKeyspace("slow_ks");
+
+            try {
+                pool.borrowConnection(5, SECONDS, 0).get(5, SECONDS);
+                fail("Expected a ConnectionException");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause())
+                        .isInstanceOf(ConnectionException.class)
+                        .hasMessageContaining("Timeout while setting keyspace");
+            }
+            assertThat(connection.isDefunct()).isFalse();
+            assertThat(connection.inFlight.get()).isEqualTo(0);
+            assertThat(pool.totalInFlight.get()).isEqualTo(0);
+            assertThat(pool.connections).containsExactly(connection);
+        } finally {
+            primingClient.clearAllPrimes();
+            cluster.close();
+        }
+    }
+
     /**
      * Ensures that if a variable-sized pool has filled up to its maximum connections that borrowConnection will
      * timeout instead of creating a new connection.
@@ -0,0 +1,68 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.scassandra.http.client.PrimingRequest;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.scassandra.http.client.PrimingRequest.then;
+import static org.scassandra.http.client.types.ColumnMetadata.column;
+import static org.scassandra.cql.PrimitiveType.INT;
+
+public class PrepareAsyncCallbackTest extends ScassandraTestBase.PerClassCluster {
+
+    private static final String PREPARED_QUERY = "SELECT i FROM ks.t WHERE k = ?";
+    private static final String QUERY = "SELECT i FROM ks.t";
+
+    @BeforeMethod(groups = "short")
+    public void primeQueries() {
+        primingClient.prime(PrimingRequest.preparedStatementBuilder()
+                .withQuery(PREPARED_QUERY)
+                .withThen(then().withVariableTypes(INT))
+                .build());
+        primingClient.prime(PrimingRequest.queryBuilder()
+                .withQuery(QUERY)
+                .withThen(then().withColumnTypes(column("i", INT)))
+                .build());
+    }
+
+    /**
+     * Validates that callbacks registered on the future returned by {@link Session#prepareAsync(String)} don't run on
+     * an I/O thread, so that they can call synchronous {@link Session} methods.
+     * <p/>
+     * Note that the callback runs on the cluster's executor, so it doesn't call {@link Session#prepare(String)}: that
+     * would wait for the executor, and could block forever if the executor has a single thread.
+     */
+    @Test(groups = "short")
+    public void should_allow_synchronous_calls_from_prepare_async_callbacks() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            ListenableFuture<PreparedStatement> prepared = session.prepareAsync(PREPARED_QUERY);
+            ListenableFuture<ResultSet> result = Futures.transform(prepared, new Function<PreparedStatement, ResultSet>() {
+                @Override
+                public ResultSet apply(PreparedStatement statement) {
+                    return session.execute(QUERY);
+                }
+            });
+            // would fail with "Detected a synchronous Session call" if the callback ran on an I/O thread
+            assertThat(result.get().getColumnDefinitions().contains("i")).isTrue();
+        }
+    }
+}
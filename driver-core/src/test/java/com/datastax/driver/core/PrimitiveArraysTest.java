@@ -0,0 +1,152 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import com.datastax.driver.core.exceptions.InvalidTypeException;
+import com.google.common.collect.Lists;
+import com.google.common.primitives.Doubles;
+import com.google.common.primitives.Floats;
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+
+import static com.datastax.driver.core.DataType.*;
+import static com.datastax.driver.core.ProtocolVersion.V2;
+import static com.datastax.driver.core.ProtocolVersion.V4;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class PrimitiveArraysTest {
+
+    @Test(groups = "unit")
+    public void should_encode_arrays_like_list_codecs() {
+        for (ProtocolVersion protocolVersion : new ProtocolVersion[]{V2, V4}) {
+            TupleValue value = newTupleValue(protocolVersion)
+                    .setIntArray(0, new int[]{1, 2, 3})
+                    .setLongArray(1, new long[]{Long.MIN_VALUE, 0L, Long.MAX_VALUE})
+                    .setFloatArray(2, new float[]{1.5f, -2.5f})
+                    .setDoubleArray(3, new double[]{3.14});
+
+            assertThat(value.getBytesUnsafe(0))
+                    .isEqualTo(TypeCodec.list(TypeCodec.cint()).serialize(Ints.asList(1, 2, 3), protocolVersion));
+            assertThat(value.getBytesUnsafe(1))
+                    .isEqualTo(TypeCodec.list(TypeCodec.bigint()).serialize(Longs.asList(Long.MIN_VALUE, 0L, Long.MAX_VALUE), protocolVersion));
+            assertThat(value.getBytesUnsafe(2))
+                    .isEqualTo(TypeCodec.list(TypeCodec.cfloat()).serialize(Floats.asList(1.5f, -2.5f), protocolVersion));
+            assertThat(value.getBytesUnsafe(3))
+                    .isEqualTo(TypeCodec.list(TypeCodec.cdouble()).serialize(Doubles.asList(3.14), protocolVersion));
+
+            assertThat(value.getIntArray(0)).containsExactly(1, 2, 3);
+            assertThat(value.getLongArray(1)).containsExactly(Long.MIN_VALUE, 0L, Long.MAX_VALUE);
+            assertThat(value.getFloatArray(2)).containsExactly(1.5f, -2.5f);
+            assertThat(value.getDoubleArray(3)).containsExactly(3.14);
+            assertThat(value.getList(1, Long.class)).containsExactly(Long.MIN_VALUE, 0L, Long.MAX_VALUE);
+        }
+    }
+
+    @Test(groups = "unit")
+    public void should_decode_values_set_through_codecs() {
+        TupleValue value = newTupleValue(V4)
+                .setList(0, Lists.newArrayList(4, 5))
+                .setList(1, Lists.newArrayList(6L));
+
+        assertThat(value.getIntArray(0)).containsExactly(4, 5);
+        assertThat(value.getLongArray(1)).containsExactly(6L);
+    }
+
+    @Test(groups = "unit")
+    public void should_map_null_to_empty_array() {
+        TupleValue value = newTupleValue(V4).setToNull(0);
+
+        assertThat(value.getIntArray(0)).isEmpty();
+        assertThat(value.getLongArray(1)).isEmpty();
+        assertThat(value.getFloatArray(2)).isEmpty();
+        assertThat(value.getDoubleArray(3)).isEmpty();
+    }
+
+    @Test(groups = "unit")
+    public void should_reject_column_of_another_type() {
+        TupleValue value = newTupleValue(V4);
+        try {
+            value.getLongArray(0);
+            fail("Expected an InvalidTypeException");
+        } catch (InvalidTypeException e) {
+            // expected
+        }
+        try {
+            value.setIntArray(3, new int[]{1});
+            fail("Expected an InvalidTypeException");
+        } catch (InvalidTypeException e) {
+            // expected
+        }
+    }
+
+    @Test(groups = "unit")
+    public void should_reject_element_of_unexpected_size() {
+        for (ProtocolVersion protocolVersion : new ProtocolVersion[]{V2, V4}) {
+            // a 4-byte element followed by an 8-byte one
+            ByteBuffer mixed = ByteBuffer.allocate(64);
+            CodecUtils.writeSize(mixed, 2, protocolVersion);
+            CodecUtils.writeSize(mixed, 4, protocolVersion);
+            mixed.putInt(1);
+            CodecUtils.writeSize(mixed, 8, protocolVersion);
+            mixed.putLong(2L);
+            mixed.flip();
+            // a null element
+            ByteBuffer withNull = ByteBuffer.allocate(64);
+            CodecUtils.writeSize(withNull, 1, protocolVersion);
+            withNull.put(protocolVersion == V2 ? new byte[]{-1, -1} : new byte[]{-1, -1, -1, -1});
+            withNull.flip();
+
+            assertInvalid(mixed, protocolVersion);
+            assertInvalid(withNull, protocolVersion);
+        }
+    }
+
+    private static void assertInvalid(ByteBuffer bytes, ProtocolVersion protocolVersion) {
+        try {
+            PrimitiveArrays.readInts(bytes, protocolVersion);
+            fail("Expected an InvalidTypeException");
+        } catch (InvalidTypeException e) {
+            // expected
+        }
+        try {
+            PrimitiveArrays.readFloats(bytes, protocolVersion);
+            fail("Expected an InvalidTypeException");
+        } catch (InvalidTypeException e) {
+            // expected
+        }
+        try {
+            PrimitiveArrays.readLongs(bytes, protocolVersion);
+            fail("Expected an InvalidTypeException");
+        } catch (InvalidTypeException e) {
+            // expected
+        }
+        try {
+            PrimitiveArrays.readDoubles(bytes, protocolVersion);
+            fail("Expected an InvalidTypeException");
+        } catch (InvalidTypeException e) {
+            // expected
+        }
+    }
+
+    private static TupleValue newTupleValue(ProtocolVersion protocolVersion) {
+        return TupleType.of(protocolVersion, new CodecRegistry(),
+                list(cint()), list(bigint()), list(cfloat()), list(cdouble())).newValue();
+    }
+}
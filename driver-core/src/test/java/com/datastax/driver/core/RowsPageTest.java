@@ -0,0 +1,128 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RowsPageTest {
+
+    private static final ColumnDefinitions METADATA = new ColumnDefinitions(new ColumnDefinitions.Definition[]{
+            new ColumnDefinitions.Definition("ks", "t", "i", DataType.cint()),
+            new ColumnDefinitions.Definition("ks", "t", "s", DataType.varchar())
+    }, CodecRegistry.DEFAULT_INSTANCE);
+
+    @Test(groups = "unit")
+    public void should_decode_values_including_nulls() {
+        ByteBuf body = Unpooled.buffer();
+        body.writeInt(4).writeInt(1);
+        body.writeInt(-1);
+        body.writeInt(-1);
+        CBUtil.writeValue(new byte[0], body);
+        body.writeInt(4).writeInt(3);
+        CBUtil.writeValue(new byte[]{'f', 'o', 'o'}, body);
+        // trailing bytes that are not part of the page
+        body.writeInt(0xCAFE);
+
+        RowsPage page = RowsPage.decode(body, 3, 2);
+
+        assertThat(body.readableBytes()).isEqualTo(4);
+        body.release();
+        assertThat(page.rowCount()).isEqualTo(3);
+        assertThat(page.columnCount()).isEqualTo(2);
+        assertThat(page.getValue(0, 0)).isEqualTo(ByteBuffer.wrap(new byte[]{0, 0, 0, 1}));
+        assertThat(page.getValue(0, 1)).isNull();
+        assertThat(page.getValue(1, 0)).isNull();
+        assertThat(page.getValue(1, 1).remaining()).isEqualTo(0);
+        assertThat(page.getValue(2, 0)).isEqualTo(ByteBuffer.wrap(new byte[]{0, 0, 0, 3}));
+        assertThat(page.getValue(2, 1)).isEqualTo(ByteBuffer.wrap(new byte[]{'f', 'o', 'o'}));
+    }
+
+    @Test(groups = "unit")
+    public void should_consume_rows_in_order() {
+        RowsPage page = RowsPage.decode(twoRows(), 2, 2);
+
+        assertThat(page.size()).isEqualTo(2);
+        assertThat(page.peek()).isEqualTo(0);
+        assertThat(page.peek()).isEqualTo(0);
+        assertThat(page.poll()).isEqualTo(0);
+        assertThat(page.size()).isEqualTo(1);
+        assertThat(page.isEmpty()).isFalse();
+        // last row
+        assertThat(page.peek()).isEqualTo(1);
+        assertThat(page.poll()).isEqualTo(1);
+        assertThat(page.size()).isEqualTo(0);
+        assertThat(page.isEmpty()).isTrue();
+        assertThat(page.peek()).isEqualTo(-1);
+        assertThat(page.poll()).isEqualTo(-1);
+        // the values of consumed rows remain readable
+        assertThat(page.getValue(1, 1)).isEqualTo(ByteBuffer.wrap(new byte[]{'b', 'a', 'r'}));
+    }
+
+    @Test(groups = "unit")
+    public void should_handle_empty_page() {
+        ByteBuf body = Unpooled.buffer();
+        RowsPage page = RowsPage.decode(body, 0, 2);
+
+        assertThat(page.rowCount()).isEqualTo(0);
+        assertThat(page.isEmpty()).isTrue();
+        assertThat(page.peek()).isEqualTo(-1);
+        assertThat(page.poll()).isEqualTo(-1);
+        assertThat(RowsPage.EMPTY.isEmpty()).isTrue();
+        assertThat(RowsPage.EMPTY.poll()).isEqualTo(-1);
+        assertThat(ArrayBackedRow.fromPage(METADATA, null, ProtocolVersion.V4, page, page.poll())).isNull();
+    }
+
+    @Test(groups = "unit")
+    public void should_build_single_row_page_from_values() {
+        RowsPage page = RowsPage.fromValues(Arrays.asList(
+                TypeCodec.cint().serialize(7, ProtocolVersion.V4), null));
+
+        assertThat(page.rowCount()).isEqualTo(1);
+        assertThat(page.getValue(0, 0)).isEqualTo(ByteBuffer.wrap(new byte[]{0, 0, 0, 7}));
+        assertThat(page.getValue(0, 1)).isNull();
+    }
+
+    @Test(groups = "unit")
+    public void should_create_rows_reading_from_page() {
+        RowsPage page = RowsPage.decode(twoRows(), 2, 2);
+
+        Row first = ArrayBackedRow.fromPage(METADATA, null, ProtocolVersion.V4, page, page.poll());
+        Row last = ArrayBackedRow.fromPage(METADATA, null, ProtocolVersion.V4, page, page.poll());
+
+        assertThat(first.getInt("i")).isEqualTo(42);
+        assertThat(first.isNull("s")).isTrue();
+        assertThat(first.getString("s")).isNull();
+        assertThat(last.isNull("i")).isTrue();
+        assertThat(last.getString("s")).isEqualTo("bar");
+        assertThat(ArrayBackedRow.fromPage(METADATA, null, ProtocolVersion.V4, page, page.poll())).isNull();
+    }
+
+    private static ByteBuf twoRows() {
+        ByteBuf body = Unpooled.buffer();
+        body.writeInt(4).writeInt(42);
+        body.writeInt(-1);
+        body.writeInt(-1);
+        CBUtil.writeValue(new byte[]{'b', 'a', 'r'}, body);
+        return body;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TokenMapTest extends AbstractReplicationStrategyTest {
+
+    @DataProvider(name = "partitioners")
+    public static Object[][] partitioners() {
+        return new Object[][]{
+                {Token.M3PToken.FACTORY, new String[]{"-6148914691236517205", "0", "6148914691236517205"}},
+                {Token.RPToken.FACTORY, new String[]{"42535295865117307932921825928971026432",
+                        "85070591730234615865843651857942052864", "127605887595351923798765477786913079296"}}
+        };
+    }
+
+    @Test(groups = "unit", dataProvider = "partitioners")
+    public void should_find_replicas_of_partition_keys_and_ranges(Token.Factory factory, String[] tokenValues) {
+        List<Host> hosts = Lists.<Host>newArrayList(
+                host(socketAddress("127.0.0.1")), host(socketAddress("127.0.0.2")), host(socketAddress("127.0.0.3")));
+        List<Token> ring = Lists.newArrayList();
+        Map<Host, Set<Token>> allTokens = ImmutableMap.of(
+                hosts.get(0), tokenSet(factory, tokenValues[0], ring),
+                hosts.get(1), tokenSet(factory, tokenValues[1], ring),
+                hosts.get(2), tokenSet(factory, tokenValues[2], ring));
+
+        Metadata metadata = new Metadata(mock(Cluster.Manager.class));
+        metadata.keyspaces.put("ks1", new KeyspaceMetadata("ks1", true,
+                ImmutableMap.of("class", "SimpleStrategy", "replication_factor", "1")));
+        metadata.keyspaces.put("ks2", new KeyspaceMetadata("ks2", true,
+                ImmutableMap.of("class", "SimpleStrategy", "replication_factor", "2")));
+        metadata.rebuildTokenMap(factory, allTokens);
+
+        for (int i = 0; i < 100; i++) {
+            ByteBuffer key = TypeCodec.cint().serialize(i, ProtocolVersion.NEWEST_SUPPORTED);
+            int owner = ownerOf(factory.hash(key), ring);
+            assertThat(metadata.getReplicas("ks1", key))
+                    .containsOnly(hosts.get(owner));
+            assertThat(metadata.getReplicas("ks2", key))
+                    .containsOnly(hosts.get(owner), hosts.get((owner + 1) % 3));
+        }
+
+        // A range that ends exactly on a ring token, and one that does not
+        assertThat(metadata.getReplicas("ks1", metadata.newTokenRange(ring.get(0), ring.get(1))))
+                .containsOnly(hosts.get(1));
+        assertThat(metadata.getReplicas("ks1", metadata.newTokenRange(ring.get(2), factory.minToken())))
+                .containsOnly(hosts.get(0));
+        assertThat(metadata.getReplicas("unknown", ring.get(0).serialize(ProtocolVersion.NEWEST_SUPPORTED)))
+                .isEmpty();
+    }
+
+    @Test(groups = "unit")
+    public void should_reuse_replicas_when_ring_has_not_changed() {
+        Token.Factory factory = Token.M3PToken.FACTORY;
+        Host host1 = host(socketAddress("127.0.0.1")), host2 = host(socketAddress("127.0.0.2"));
+        Map<String, String> replication = ImmutableMap.of("class", "SimpleStrategy", "replication_factor", "1");
+        Map<Host, Set<Token>> allTokens = ImmutableMap.<Host, Set<Token>>of(
+                host1, ImmutableSet.of(factory.fromString("-100")),
+                host2, ImmutableSet.of(factory.fromString("100")));
+        ByteBuffer key = TypeCodec.cint().serialize(1, ProtocolVersion.NEWEST_SUPPORTED);
+
+        Metadata metadata = new Metadata(mock(Cluster.Manager.class));
+        metadata.keyspaces.put("ks1", new KeyspaceMetadata("ks1", true, replication));
+        metadata.rebuildTokenMap(factory, allTokens);
+        Set<Host> replicas = metadata.getReplicas("ks1", key);
+
+        // A new keyspace with the same strategy shares the replicas of the existing one
+        metadata.keyspaces.put("ks2", new KeyspaceMetadata("ks2", true, replication));
+        metadata.rebuildTokenMap();
+        assertThat(metadata.getReplicas("ks1", key)).isSameAs(replicas);
+        assertThat(metadata.getReplicas("ks2", key)).isSameAs(replicas);
+
+        // A node refresh that does not change the ring does not recompute replicas
+        metadata.rebuildTokenMap(factory, ImmutableMap.copyOf(allTokens));
+        assertThat(metadata.getReplicas("ks1", key)).isSameAs(replicas);
+
+        // A node refresh that moves a token does
+        metadata.rebuildTokenMap(factory, ImmutableMap.<Host, Set<Token>>of(
+                host1, ImmutableSet.of(factory.fromString("-100")),
+                host2, ImmutableSet.of(factory.fromString("200"))));
+        assertThat(metadata.getReplicas("ks1", key)).isNotSameAs(replicas).isEqualTo(replicas);
+    }
+
+    @Test(groups = "unit")
+    public void should_cache_routing_token_on_statement() {
+        Token.Factory factory = Token.M3PToken.FACTORY;
+        Host host1 = host(socketAddress("127.0.0.1")), host2 = host(socketAddress("127.0.0.2"));
+        Metadata metadata = new Metadata(mock(Cluster.Manager.class));
+        metadata.keyspaces.put("ks1", new KeyspaceMetadata("ks1", true,
+                ImmutableMap.of("class", "SimpleStrategy", "replication_factor", "1")));
+        metadata.rebuildTokenMap(factory, ImmutableMap.<Host, Set<Token>>of(
+                host1, ImmutableSet.of(factory.fromString("-100")),
+                host2, ImmutableSet.of(factory.fromString("100"))));
+        ByteBuffer key = TypeCodec.cint().serialize(1, ProtocolVersion.NEWEST_SUPPORTED);
+        SimpleStatement statement = new SimpleStatement("SELECT * FROM ks1.t WHERE k = 1");
+        assertThat(statement.getRoutingToken()).isNull();
+        assertThat(metadata.getRoutingToken(statement, ProtocolVersion.NEWEST_SUPPORTED, CodecRegistry.DEFAULT_INSTANCE)).isNull();
+
+        statement.setRoutingKey(key);
+        Token token = metadata.getRoutingToken(statement, ProtocolVersion.NEWEST_SUPPORTED, CodecRegistry.DEFAULT_INSTANCE);
+        assertThat(token).isEqualTo(factory.hash(key));
+        assertThat(statement.getRoutingToken()).isSameAs(token);
+        assertThat(metadata.getRoutingToken(statement, ProtocolVersion.NEWEST_SUPPORTED, CodecRegistry.DEFAULT_INSTANCE))
+                .isSameAs(token);
+        assertThat(metadata.getReplicas("ks1", token)).isEqualTo(metadata.getReplicas("ks1", key));
+
+        // Changing the routing key discards the cached token
+        ByteBuffer otherKey = TypeCodec.cint().serialize(2, ProtocolVersion.NEWEST_SUPPORTED);
+        statement.setRoutingKey(otherKey);
+        assertThat(statement.getRoutingToken()).isNull();
+        assertThat(metadata.getRoutingToken(statement, ProtocolVersion.NEWEST_SUPPORTED, CodecRegistry.DEFAULT_INSTANCE))
+                .isEqualTo(factory.hash(otherKey));
+    }
+
+    @Test(groups = "unit")
+    public void should_reuse_routing_token_of_bound_statement_with_int_partition_key() {
+        Token.Factory factory = Token.M3PToken.FACTORY;
+        Metadata metadata = new Metadata(mock(Cluster.Manager.class));
+        metadata.rebuildTokenMap(factory, ImmutableMap.<Host, Set<Token>>of(
+                host(socketAddress("127.0.0.1")), ImmutableSet.of(factory.fromString("0"))));
+        ColumnDefinitions variables = new ColumnDefinitions(new ColumnDefinitions.Definition[]{
+                new ColumnDefinitions.Definition("ks1", "t", "k", DataType.cint())
+        }, CodecRegistry.DEFAULT_INSTANCE);
+        PreparedStatement prepared = mock(PreparedStatement.class);
+        when(prepared.getVariables()).thenReturn(variables);
+        when(prepared.getPreparedId()).thenReturn(
+                new PreparedId(null, variables, null, new int[]{0}, ProtocolVersion.NEWEST_SUPPORTED));
+        when(prepared.getCodecRegistry()).thenReturn(CodecRegistry.DEFAULT_INSTANCE);
+        BoundStatement statement = new BoundStatement(prepared).setInt(0, 1);
+
+        Token token = metadata.getRoutingToken(statement, ProtocolVersion.NEWEST_SUPPORTED, CodecRegistry.DEFAULT_INSTANCE);
+        ByteBuffer key = TypeCodec.cint().serialize(1, ProtocolVersion.NEWEST_SUPPORTED);
+        assertThat(token).isEqualTo(factory.hash(key));
+        assertThat(metadata.getRoutingToken(statement, ProtocolVersion.NEWEST_SUPPORTED, CodecRegistry.DEFAULT_INSTANCE))
+                .isSameAs(token);
+        // a key with the same contents in another buffer also hits the cache
+        assertThat(statement.getRoutingToken(factory, key)).isSameAs(token);
+
+        statement.setInt(0, 2);
+        assertThat(statement.getRoutingToken()).isNull();
+        assertThat(metadata.getRoutingToken(statement, ProtocolVersion.NEWEST_SUPPORTED, CodecRegistry.DEFAULT_INSTANCE))
+                .isEqualTo(factory.hash(TypeCodec.cint().serialize(2, ProtocolVersion.NEWEST_SUPPORTED)));
+    }
+
+    private static Set<Token> tokenSet(Token.Factory factory, String value, List<Token> ring) {
+        Token token = factory.fromString(value);
+        ring.add(token);
+        return ImmutableSet.of(token);
+    }
+
+    // Index of the first ring token greater than or equal to the given token, wrapping around
+    private static int ownerOf(Token token, List<Token> ring) {
+        for (int i = 0; i < ring.size(); i++) {
+            if (ring.get(i).compareTo(token) >= 0)
+                return i;
+        }
+        return 0;
+    }
+}
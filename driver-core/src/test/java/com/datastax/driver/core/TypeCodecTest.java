@@ -280,6 +280,46 @@ public class TypeCodecTest {
                 .accepts(42.0D);
     }
 
+    @Test(groups = "unit")
+    public void should_serialize_fixed_size_collections_like_other_collections() {
+        for (ProtocolVersion version : new ProtocolVersion[]{ProtocolVersion.V2, V3}) {
+            List<Long> list = newArrayList(1L, -2L, Long.MAX_VALUE);
+            ByteBuffer bytes = TypeCodec.list(TypeCodec.bigint()).serialize(list, version);
+            assertThat(bytes).isEqualTo(CodecUtils.pack(new ByteBuffer[]{
+                    TypeCodec.bigint().serialize(1L, version),
+                    TypeCodec.bigint().serialize(-2L, version),
+                    TypeCodec.bigint().serialize(Long.MAX_VALUE, version)
+            }, 3, version));
+            assertThat(TypeCodec.list(TypeCodec.bigint()).deserialize(bytes, version)).isEqualTo(list);
+
+            Map<Integer, Double> map = new LinkedHashMap<Integer, Double>();
+            map.put(1, 1.5);
+            map.put(2, -0.25);
+            bytes = TypeCodec.map(TypeCodec.cint(), TypeCodec.cdouble()).serialize(map, version);
+            assertThat(bytes).isEqualTo(CodecUtils.pack(new ByteBuffer[]{
+                    TypeCodec.cint().serialize(1, version),
+                    TypeCodec.cdouble().serialize(1.5, version),
+                    TypeCodec.cint().serialize(2, version),
+                    TypeCodec.cdouble().serialize(-0.25, version)
+            }, 2, version));
+            assertThat(TypeCodec.map(TypeCodec.cint(), TypeCodec.cdouble()).deserialize(bytes, version)).isEqualTo(map);
+        }
+    }
+
+    @Test(groups = "unit")
+    public void should_deserialize_collection_elements_in_place() {
+        // blobs are duplicates of the collection's buffer: they must not be affected by reading the next element
+        TypeCodec<List<ByteBuffer>> listCodec = TypeCodec.list(TypeCodec.blob());
+        List<ByteBuffer> blobs = newArrayList(ByteBuffer.wrap(new byte[]{1}), ByteBuffer.wrap(new byte[]{2, 3}));
+        assertThat(listCodec.deserialize(listCodec.serialize(blobs, V3), V3)).isEqualTo(blobs);
+
+        TypeCodec<Map<String, List<Long>>> mapCodec = TypeCodec.map(TypeCodec.varchar(), TypeCodec.list(TypeCodec.bigint()));
+        Map<String, List<Long>> map = new LinkedHashMap<String, List<Long>>();
+        map.put("foo", newArrayList(1L, 2L));
+        map.put("bar", Collections.<Long>emptyList());
+        assertThat(mapCodec.deserialize(mapCodec.serialize(map, V3), V3)).isEqualTo(map);
+    }
+
     private class ListVarcharToListListInteger extends TypeCodec<List<List<Integer>>> {
 
         private final TypeCodec<List<String>> codec = TypeCodec.list(TypeCodec.varchar());
@@ -0,0 +1,281 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core.policies;
+
+import com.datastax.driver.core.*;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class TokenAwarePolicyReplicaOrderingTest {
+
+    @Mock(answer = org.mockito.Answers.RETURNS_DEEP_STUBS)
+    Cluster cluster;
+
+    @Mock
+    Metadata metadata;
+
+    @Mock
+    Host host1, host2, host3, host4;
+
+    @Mock
+    LoadBalancingPolicy childPolicy;
+
+    @Mock
+    Statement statement;
+
+    @Mock
+    Token token;
+
+    private static final int MIN_MEASURE = LatencyAwarePolicy.Builder.DEFAULT_MIN_MEASURE;
+
+    private ManualTicker ticker;
+
+    @BeforeMethod(groups = "unit")
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+        ticker = new ManualTicker();
+
+        when(cluster.getMetadata()).thenReturn(metadata);
+        when(metadata.getRoutingToken(any(Statement.class), any(ProtocolVersion.class), any(CodecRegistry.class)))
+                .thenReturn(token);
+        when(metadata.getReplicas(anyString(), any(Token.class)))
+                .thenReturn(ImmutableSet.of(host1, host2, host3));
+        when(statement.getKeyspace()).thenReturn("ks");
+        for (Host host : Lists.newArrayList(host1, host2, host3))
+            when(host.isUp()).thenReturn(true);
+        when(childPolicy.distance(any(Host.class))).thenReturn(HostDistance.LOCAL);
+        when(childPolicy.newQueryPlan(anyString(), any(Statement.class)))
+                .thenReturn(Collections.<Host>emptyList().iterator());
+    }
+
+    @Test(groups = "unit")
+    public void should_order_replicas_topologically() {
+        TokenAwarePolicy policy = new TokenAwarePolicy(childPolicy, TokenAwarePolicy.ReplicaOrdering.TOPOLOGICAL);
+        policy.init(cluster, Lists.newArrayList(host1, host2, host3));
+
+        for (int i = 0; i < 10; i++)
+            assertThat(queryPlan(policy)).containsExactly(host1, host2, host3);
+    }
+
+    @Test(groups = "unit")
+    public void should_start_at_random_replica_and_keep_ring_order() {
+        TokenAwarePolicy policy = new TokenAwarePolicy(childPolicy, TokenAwarePolicy.ReplicaOrdering.RANDOM);
+        policy.init(cluster, Lists.newArrayList(host1, host2, host3));
+
+        int[] firstCounts = new int[3];
+        for (int i = 0; i < 300; i++) {
+            List<Host> plan = queryPlan(policy);
+            assertThat(plan).isIn(
+                    Lists.newArrayList(host1, host2, host3),
+                    Lists.newArrayList(host2, host3, host1),
+                    Lists.newArrayList(host3, host1, host2));
+            firstCounts[Lists.newArrayList(host1, host2, host3).indexOf(plan.get(0))] += 1;
+        }
+        for (int count : firstCounts)
+            assertThat(count).isGreaterThan(0);
+    }
+
+    @Test(groups = "unit")
+    public void should_pick_random_start_among_usable_replicas_only() {
+        // host2 is in a remote DC and host3 is down: with a start drawn from all replicas, host4 would come first
+        // whenever the draw landed on host2, host3 or host4
+        when(metadata.getReplicas(anyString(), any(Token.class)))
+                .thenReturn(ImmutableSet.of(host1, host2, host3, host4));
+        when(host4.isUp()).thenReturn(true);
+        when(host3.isUp()).thenReturn(false);
+        when(childPolicy.distance(host2)).thenReturn(HostDistance.REMOTE);
+        TokenAwarePolicy policy = new TokenAwarePolicy(childPolicy, TokenAwarePolicy.ReplicaOrdering.RANDOM);
+        policy.init(cluster, Lists.newArrayList(host1, host2, host3, host4));
+
+        int host1First = 0, host4First = 0;
+        for (int i = 0; i < 2000; i++) {
+            List<Host> plan = queryPlan(policy);
+            assertThat(plan).containsOnly(host1, host4);
+            if (plan.get(0) == host1)
+                host1First += 1;
+            else
+                host4First += 1;
+        }
+        // each should come first about half of the time (a biased start would give 1 in 4 and 3 in 4)
+        assertThat(host1First).isBetween(800, 1200);
+        assertThat(host4First).isBetween(800, 1200);
+    }
+
+    @Test(groups = "unit")
+    public void should_return_rotated_replicas_first_then_other_hosts_without_duplicates() {
+        when(host4.isUp()).thenReturn(true);
+        when(childPolicy.newQueryPlan(anyString(), any(Statement.class))).thenAnswer(new Answer<Iterator<Host>>() {
+            @Override
+            public Iterator<Host> answer(InvocationOnMock invocation) throws Throwable {
+                return Lists.newArrayList(host3, host4, host1, host2).iterator();
+            }
+        });
+        TokenAwarePolicy policy = new TokenAwarePolicy(childPolicy, TokenAwarePolicy.ReplicaOrdering.RANDOM);
+        policy.init(cluster, Lists.newArrayList(host1, host2, host3, host4));
+
+        List<List<Host>> rotations = Lists.newArrayList();
+        rotations.add(Lists.newArrayList(host1, host2, host3, host4));
+        rotations.add(Lists.newArrayList(host2, host3, host1, host4));
+        rotations.add(Lists.newArrayList(host3, host1, host2, host4));
+        Set<Host> firstReplicas = Sets.newHashSet();
+        for (int i = 0; i < 300; i++) {
+            List<Host> plan = queryPlan(policy);
+            assertThat(plan).isIn(rotations);
+            firstReplicas.add(plan.get(0));
+        }
+        assertThat(firstReplicas).containsOnly(host1, host2, host3);
+    }
+
+    @Test(groups = "unit")
+    public void should_try_least_busy_replicas_first() {
+        TokenAwarePolicy policy = new TokenAwarePolicy(childPolicy, TokenAwarePolicy.ReplicaOrdering.LEAST_BUSY);
+        policy.init(cluster, Lists.newArrayList(host1, host2, host3));
+
+        when(host1.getInFlightQueries()).thenReturn(10);
+        when(host2.getInFlightQueries()).thenReturn(0);
+        when(host3.getInFlightQueries()).thenReturn(5);
+        assertThat(queryPlan(policy)).containsExactly(host2, host3, host1);
+    }
+
+    @Test(groups = "unit")
+    public void should_weight_in_flight_queries_by_latency() {
+        TokenAwarePolicy policy = new TokenAwarePolicy(childPolicy, TokenAwarePolicy.ReplicaOrdering.LEAST_BUSY, ticker);
+        policy.init(cluster, Lists.newArrayList(host1, host2, host3));
+        LatencyTracker tracker = registeredTracker();
+
+        // host1 is idle but very slow (e.g. in a GC pause), the others are fast but have requests in flight
+        for (int i = 0; i < MIN_MEASURE; i++) {
+            ticker.advance(10, MILLISECONDS);
+            tracker.update(host1, statement, null, MILLISECONDS.toNanos(500));
+            tracker.update(host2, statement, null, MILLISECONDS.toNanos(1));
+            tracker.update(host3, statement, null, MILLISECONDS.toNanos(1));
+        }
+        when(host1.getInFlightQueries()).thenReturn(0);
+        when(host2.getInFlightQueries()).thenReturn(3);
+        when(host3.getInFlightQueries()).thenReturn(1);
+        assertThat(queryPlan(policy)).containsExactly(host3, host2, host1);
+
+        // Once the host is marked up again, its latency is measured anew; in the meantime it is assumed to be as fast
+        // as the other replicas
+        policy.onUp(host1);
+        assertThat(queryPlan(policy).get(0)).isEqualTo(host1);
+    }
+
+    @Test(groups = "unit")
+    public void should_not_use_latency_until_enough_measurements() {
+        TokenAwarePolicy policy = new TokenAwarePolicy(childPolicy, TokenAwarePolicy.ReplicaOrdering.LEAST_BUSY, ticker);
+        policy.init(cluster, Lists.newArrayList(host1, host2, host3));
+        LatencyTracker tracker = registeredTracker();
+
+        // a single very slow measurement for host1 (while the others are well measured) is not enough to penalize it
+        for (int i = 0; i < MIN_MEASURE; i++) {
+            ticker.advance(10, MILLISECONDS);
+            tracker.update(host2, statement, null, MILLISECONDS.toNanos(1));
+            tracker.update(host3, statement, null, MILLISECONDS.toNanos(1));
+        }
+        tracker.update(host1, statement, null, SECONDS.toNanos(1));
+        when(host1.getInFlightQueries()).thenReturn(0);
+        when(host2.getInFlightQueries()).thenReturn(1);
+        when(host3.getInFlightQueries()).thenReturn(2);
+        assertThat(queryPlan(policy)).containsExactly(host1, host2, host3);
+    }
+
+    @Test(groups = "unit")
+    public void should_recover_replica_after_one_outlier() {
+        TokenAwarePolicy policy = new TokenAwarePolicy(childPolicy, TokenAwarePolicy.ReplicaOrdering.LEAST_BUSY, ticker);
+        policy.init(cluster, Lists.newArrayList(host1, host2, host3));
+        LatencyTracker tracker = registeredTracker();
+        when(host1.getInFlightQueries()).thenReturn(0);
+        when(host2.getInFlightQueries()).thenReturn(1);
+        when(host3.getInFlightQueries()).thenReturn(1);
+
+        for (int i = 0; i < MIN_MEASURE; i++) {
+            ticker.advance(10, MILLISECONDS);
+            for (Host host : Lists.newArrayList(host1, host2, host3))
+                tracker.update(host, statement, null, MILLISECONDS.toNanos(1));
+        }
+        assertThat(queryPlan(policy).get(0)).isEqualTo(host1);
+
+        // A single very slow response (e.g. a GC pause) sends host1 to the back of the plan
+        ticker.advance(10, MILLISECONDS);
+        tracker.update(host1, statement, null, SECONDS.toNanos(2));
+        assertThat(queryPlan(policy).get(2)).isEqualTo(host1);
+
+        // host1 now gets no requests, while the others keep being measured. Once its average is older than the retry
+        // period, it is considered as fast as the others again
+        for (int i = 0; i < 11; i++) {
+            ticker.advance(1, SECONDS);
+            tracker.update(host2, statement, null, MILLISECONDS.toNanos(1));
+            tracker.update(host3, statement, null, MILLISECONDS.toNanos(1));
+        }
+        assertThat(queryPlan(policy).get(0)).isEqualTo(host1);
+
+        // New measurements start a new average, the outlier is forgotten
+        for (int i = 0; i < MIN_MEASURE; i++) {
+            ticker.advance(10, MILLISECONDS);
+            for (Host host : Lists.newArrayList(host1, host2, host3))
+                tracker.update(host, statement, null, MILLISECONDS.toNanos(1));
+            assertThat(queryPlan(policy).get(0)).isEqualTo(host1);
+        }
+    }
+
+    private LatencyTracker registeredTracker() {
+        ArgumentCaptor<LatencyTracker> trackerCaptor = ArgumentCaptor.forClass(LatencyTracker.class);
+        verify(cluster).register(trackerCaptor.capture());
+        return trackerCaptor.getValue();
+    }
+
+    /**
+     * A ticker that only moves when told to.
+     */
+    static class ManualTicker extends Ticker {
+        private long nanos;
+
+        void advance(long duration, TimeUnit unit) {
+            nanos += unit.toNanos(duration);
+        }
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+    }
+
+    private List<Host> queryPlan(TokenAwarePolicy policy) {
+        return Lists.newArrayList(Iterators.limit(policy.newQueryPlan("ks", statement), 10));
+    }
+}
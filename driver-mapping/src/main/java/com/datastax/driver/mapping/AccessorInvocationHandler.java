@@ -51,6 +51,11 @@ class AccessorInvocationHandler<T> implements InvocationHandler {
 
     @Override
     public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+        // Check the accessor's own methods first, as they are by far the most frequently called
+        MethodMapper method = methodMap.get(m);
+        if (method != null)
+            return method.invoke(args == null ? NO_ARGS : args);
+
         if (m.equals(TO_STRING))
             return mapper.daoClass.getSimpleName() + " implementation generated by the Cassandra driver mapper";
 
@@ -62,10 +67,7 @@ class AccessorInvocationHandler<T> implements InvocationHandler {
         if (m.equals(HASH_CODE))
             return System.identityHashCode(proxy);
 
-        MethodMapper method = methodMap.get(m);
-        if (method == null)
-            throw new UnsupportedOperationException();
-        return method.invoke(args == null ? NO_ARGS : args);
+        throw new UnsupportedOperationException();
     }
 }
 
@@ -16,6 +16,7 @@
 package com.datastax.driver.mapping;
 
 import com.datastax.driver.core.*;
+import com.datastax.driver.core.exceptions.CodecNotFoundException;
 import com.datastax.driver.core.querybuilder.Delete;
 import com.datastax.driver.core.querybuilder.Insert;
 import com.datastax.driver.core.querybuilder.QueryBuilder;
@@ -26,14 +27,17 @@ import com.google.common.base.Function;
 import com.google.common.base.Functions;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.MapMaker;
 import com.google.common.util.concurrent.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.datastax.driver.mapping.Mapper.Option.Type.KEYSPACE;
 import static com.datastax.driver.mapping.Mapper.Option.Type.SAVE_NULL_FIELDS;
@@ -57,11 +61,31 @@ public class Mapper<T> {
 
     // Cache prepared statements for each type of query we use.
     private final ConcurrentMap<MapperQueryKey, ListenableFuture<PreparedStatement>> preparedQueries = new ConcurrentHashMap<MapperQueryKey, ListenableFuture<PreparedStatement>>();
+    // Save queries depend on which columns are null, cache them (with their bind plan) by null pattern.
+    private final ConcurrentMap<SaveQueryKey, ListenableFuture<SavePlan>> savePlans = new ConcurrentHashMap<SaveQueryKey, ListenableFuture<SavePlan>>();
+
+    // Mapping plans depend on the column definitions of the rows, cache them by definitions instance (definitions are
+    // shared by all result sets of a prepared statement); aliased and non-aliased plans differ for the same definitions.
+    private final ConcurrentMap<ColumnDefinitions, Result.MappingPlan> mappingPlans = new MapMaker().weakKeys().makeMap();
+    private final ConcurrentMap<ColumnDefinitions, Result.MappingPlan> aliasedMappingPlans = new MapMaker().weakKeys().makeMap();
 
     private volatile EnumMap<Option.Type, Option> defaultSaveOptions;
     private volatile EnumMap<Option.Type, Option> defaultGetOptions;
     private volatile EnumMap<Option.Type, Option> defaultDeleteOptions;
 
+    /**
+     * The default value for {@link #getMaxBatchSize()}.
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 20;
+
+    /**
+     * The default value for {@link #getMaxConcurrentBatches()}.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_BATCHES = 32;
+
+    private volatile int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private volatile int maxConcurrentBatches = DEFAULT_MAX_CONCURRENT_BATCHES;
+
     private static final EnumMap<Option.Type, Option> NO_OPTIONS = new EnumMap<Option.Type, Option>(Option.Type.class);
 
     private final Function<ResultSet, T> mapOneFunction;
@@ -104,6 +128,23 @@ public class Mapper<T> {
         return manager.getSession();
     }
 
+    private CodecRegistry codecRegistry() {
+        return session().getCluster().getConfiguration().getCodecRegistry();
+    }
+
+    Result.MappingPlan mappingPlan(ColumnDefinitions definitions, boolean useAlias) {
+        ConcurrentMap<ColumnDefinitions, Result.MappingPlan> plans = useAlias ? aliasedMappingPlans : mappingPlans;
+        Result.MappingPlan plan = plans.get(definitions);
+        if (plan == null) {
+            // Building a plan twice in a race is harmless, keep the first one
+            Result.MappingPlan newPlan = new Result.MappingPlan(mapper, definitions, useAlias, codecRegistry());
+            plan = plans.putIfAbsent(definitions, newPlan);
+            if (plan == null)
+                plan = newPlan;
+        }
+        return plan;
+    }
+
     ListenableFuture<PreparedStatement> getPreparedQueryAsync(QueryType type, Set<PropertyMapper> columns, EnumMap<Option.Type, Option> options) {
 
         final MapperQueryKey pqk = new MapperQueryKey(type, columns, options);
@@ -213,38 +254,87 @@ public class Mapper<T> {
     }
 
     private ListenableFuture<BoundStatement> saveQueryAsync(T entity, final EnumMap<Option.Type, Option> options) {
-        final Map<PropertyMapper, Object> values = new HashMap<PropertyMapper, Object>();
         boolean saveNullFields = shouldSaveNullFields(options);
 
-        for (PropertyMapper col : mapper.allColumns) {
+        // Record which columns are saved as a bit mask over mapper.allColumns; the mask (together
+        // with the options) identifies the query, so we don't need to build a set of columns per entity.
+        int columnCount = mapper.allColumns.size();
+        final Object[] values = new Object[columnCount];
+        BitSet mask = new BitSet(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            PropertyMapper col = mapper.allColumns.get(i);
+            if (col.isComputed())
+                continue;
             Object value = col.getValue(entity);
-            if (!col.isComputed() && (saveNullFields || value != null)) {
-                values.put(col, value);
+            if (saveNullFields || value != null) {
+                mask.set(i);
+                values[i] = value;
             }
         }
 
-        return Futures.transform(getPreparedQueryAsync(QueryType.SAVE, values.keySet(), options), new Function<PreparedStatement, BoundStatement>() {
+        ListenableFuture<SavePlan> planFuture = getSavePlanAsync(mask, options);
+        // Once the statement is prepared (the common case), bind in the calling thread rather
+        // than going through a future transformation.
+        if (planFuture.isDone()) {
+            try {
+                SavePlan plan = Uninterruptibles.getUninterruptibly(planFuture);
+                return Futures.immediateFuture(bindSaveQuery(plan, values, options));
+            } catch (ExecutionException e) {
+                return Futures.immediateFailedFuture(e.getCause());
+            } catch (RuntimeException e) {
+                return Futures.immediateFailedFuture(e);
+            }
+        }
+        return Futures.transform(planFuture, new Function<SavePlan, BoundStatement>() {
             @Override
-            public BoundStatement apply(PreparedStatement input) {
-                BoundStatement bs = input.bind();
-                int i = 0;
-                for (Map.Entry<PropertyMapper, Object> entry : values.entrySet()) {
-                    PropertyMapper mapper = entry.getKey();
-                    Object value = entry.getValue();
-                    setObject(bs, i++, value, mapper);
-                }
+            public BoundStatement apply(SavePlan plan) {
+                return bindSaveQuery(plan, values, options);
+            }
+        });
+    }
 
-                if (mapper.writeConsistency != null)
-                    bs.setConsistencyLevel(mapper.writeConsistency);
+    private BoundStatement bindSaveQuery(SavePlan plan, Object[] values, EnumMap<Option.Type, Option> options) {
+        BoundStatement bs = plan.statement.bind();
+        int i = 0;
+        for (; i < plan.indexes.length; i++) {
+            TypeCodec<Object> codec = plan.codecs[i];
+            if (codec != null)
+                bs.set(i, values[plan.indexes[i]], codec);
+            else
+                setObject(bs, i, values[plan.indexes[i]], mapper.allColumns.get(plan.indexes[i]));
+        }
 
-                for (Option opt : options.values()) {
-                    opt.checkValidFor(QueryType.SAVE, manager);
-                    opt.addToPreparedStatement(bs, i++);
-                }
+        if (mapper.writeConsistency != null)
+            bs.setConsistencyLevel(mapper.writeConsistency);
 
-                return bs;
+        for (Option opt : options.values()) {
+            opt.checkValidFor(QueryType.SAVE, manager);
+            opt.addToPreparedStatement(bs, i++);
+        }
+
+        return bs;
+    }
+
+    private ListenableFuture<SavePlan> getSavePlanAsync(BitSet mask, EnumMap<Option.Type, Option> options) {
+        SaveQueryKey key = new SaveQueryKey(mask, options);
+        ListenableFuture<SavePlan> existingFuture = savePlans.get(key);
+        if (existingFuture != null)
+            return existingFuture;
+
+        final int[] indexes = new int[mask.cardinality()];
+        Set<PropertyMapper> columns = new LinkedHashSet<PropertyMapper>();
+        for (int i = mask.nextSetBit(0), j = 0; i >= 0; i = mask.nextSetBit(i + 1), j++) {
+            indexes[j] = i;
+            columns.add(mapper.allColumns.get(i));
+        }
+        ListenableFuture<SavePlan> future = Futures.transform(getPreparedQueryAsync(QueryType.SAVE, columns, options), new Function<PreparedStatement, SavePlan>() {
+            @Override
+            public SavePlan apply(PreparedStatement statement) {
+                return new SavePlan(statement, indexes);
             }
         });
+        ListenableFuture<SavePlan> old = savePlans.putIfAbsent(key, future);
+        return old == null ? future : old;
     }
 
     private static boolean shouldSaveNullFields(EnumMap<Option.Type, Option> options) {
@@ -323,6 +413,153 @@ public class Mapper<T> {
         return submitVoidQueryAsync(saveQueryAsync(entity, toMapWithDefaults(options, this.defaultSaveOptions)));
     }
 
+    /**
+     * Saves a group of entities mapped by this mapper.
+     * <p/>
+     * This method is basically equivalent to {@link #saveAllAsync(Iterable, Option...)}, but
+     * waits for all writes to complete.
+     *
+     * @param entities the entities to save.
+     * @param options  the options object specified defining special options when saving.
+     */
+    public void saveAll(Iterable<T> entities, Option... options) {
+        try {
+            Uninterruptibles.getUninterruptibly(saveAllAsync(entities, options));
+        } catch (ExecutionException e) {
+            throw DriverThrowables.propagateCause(e);
+        }
+    }
+
+    /**
+     * Saves a group of entities mapped by this mapper asynchronously.
+     * <p/>
+     * The save queries of entities that belong to the same partition are grouped into
+     * {@link BatchStatement.Type#UNLOGGED unlogged} batches of at most {@link #getMaxBatchSize()}
+     * statements, and at most {@link #getMaxConcurrentBatches()} of these batches are executed
+     * concurrently. Entities for which a routing key can't be computed (for example if the table's
+     * metadata is not available) are saved with individual statements.
+     * <p/>
+     * Note that this makes no atomicity guarantee: if the returned future fails, some of the
+     * entities might have been saved and others not. Also, the entities are all read (and their
+     * values bound) before the first write is sent, so very large groups should be split by the
+     * caller.
+     * <p/>
+     * The options supported are the same as for {@link #save(Object, Option...)}; the consistency
+     * level and tracing options apply to each batch as a whole.
+     *
+     * @param entities the entities to save.
+     * @param options  the options object specified defining special options when saving.
+     * @return a future on the completion of all the save operations. It fails with the first
+     * error encountered, at which point no new batch is sent.
+     */
+    public ListenableFuture<Void> saveAllAsync(Iterable<T> entities, Option... options) {
+        EnumMap<Option.Type, Option> saveOptions = toMapWithDefaults(options, this.defaultSaveOptions);
+        List<ListenableFuture<BoundStatement>> statements = new ArrayList<ListenableFuture<BoundStatement>>();
+        for (T entity : entities)
+            statements.add(saveQueryAsync(entity, saveOptions));
+
+        final int maxBatchSize = this.maxBatchSize;
+        final int maxConcurrentBatches = this.maxConcurrentBatches;
+        return Futures.transform(Futures.allAsList(statements), new AsyncFunction<List<BoundStatement>, Void>() {
+            @Override
+            public ListenableFuture<Void> apply(List<BoundStatement> statements) throws Exception {
+                return new BulkSave(groupByPartition(statements, maxBatchSize)).start(maxConcurrentBatches);
+            }
+        });
+    }
+
+    private List<Statement> groupByPartition(List<BoundStatement> statements, int maxBatchSize) {
+        ProtocolVersion protocolVersion = session().getCluster().getConfiguration().getProtocolOptions().getProtocolVersion();
+        CodecRegistry codecRegistry = codecRegistry();
+
+        List<Statement> result = new ArrayList<Statement>();
+        Map<ByteBuffer, List<BoundStatement>> partitions = new LinkedHashMap<ByteBuffer, List<BoundStatement>>();
+        for (BoundStatement bs : statements) {
+            ByteBuffer routingKey = bs.getRoutingKey(protocolVersion, codecRegistry);
+            if (routingKey == null || maxBatchSize <= 1) {
+                result.add(bs);
+                continue;
+            }
+            List<BoundStatement> partition = partitions.get(routingKey);
+            if (partition == null) {
+                partition = new ArrayList<BoundStatement>();
+                partitions.put(routingKey, partition);
+            }
+            partition.add(bs);
+            if (partition.size() >= maxBatchSize) {
+                result.add(toBatch(partition));
+                partitions.remove(routingKey);
+            }
+        }
+        for (List<BoundStatement> partition : partitions.values())
+            result.add(partition.size() == 1 ? partition.get(0) : toBatch(partition));
+        return result;
+    }
+
+    private static BatchStatement toBatch(List<BoundStatement> statements) {
+        BatchStatement batch = new BatchStatement(BatchStatement.Type.UNLOGGED);
+        batch.addAll(statements);
+        // All statements were generated with the same options, so the first one is representative
+        BoundStatement first = statements.get(0);
+        if (first.getConsistencyLevel() != null)
+            batch.setConsistencyLevel(first.getConsistencyLevel());
+        if (first.isTracing())
+            batch.enableTracing();
+        // all queries generated by the mapper are idempotent
+        batch.setIdempotent(true);
+        return batch;
+    }
+
+    /**
+     * Returns the maximum number of statements grouped in a single batch by
+     * {@link #saveAllAsync(Iterable, Option...)}.
+     *
+     * @return the maximum batch size.
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of statements grouped in a single batch by
+     * {@link #saveAllAsync(Iterable, Option...)}.
+     * <p/>
+     * The default is {@value #DEFAULT_MAX_BATCH_SIZE}. Keep in mind that Cassandra warns about
+     * (and eventually rejects) batches that exceed a certain size in bytes, see
+     * {@code batch_size_warn_threshold_in_kb} in {@code cassandra.yaml}.
+     *
+     * @param maxBatchSize the new value. Setting it to 1 disables batching.
+     * @throws IllegalArgumentException if {@code maxBatchSize < 1}.
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        checkArgument(maxBatchSize >= 1, "Max batch size must be at least 1 (got %s)", maxBatchSize);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Returns the maximum number of batches (or individual statements) executed concurrently by
+     * {@link #saveAllAsync(Iterable, Option...)}.
+     *
+     * @return the maximum number of concurrent batches.
+     */
+    public int getMaxConcurrentBatches() {
+        return maxConcurrentBatches;
+    }
+
+    /**
+     * Sets the maximum number of batches (or individual statements) executed concurrently by
+     * {@link #saveAllAsync(Iterable, Option...)}.
+     * <p/>
+     * The default is {@value #DEFAULT_MAX_CONCURRENT_BATCHES}.
+     *
+     * @param maxConcurrentBatches the new value.
+     * @throws IllegalArgumentException if {@code maxConcurrentBatches < 1}.
+     */
+    public void setMaxConcurrentBatches(int maxConcurrentBatches) {
+        checkArgument(maxConcurrentBatches >= 1, "Max concurrent batches must be at least 1 (got %s)", maxConcurrentBatches);
+        this.maxConcurrentBatches = maxConcurrentBatches;
+    }
+
     private ListenableFuture<Void> submitVoidQueryAsync(ListenableFuture<BoundStatement> bsFuture) {
         ListenableFuture<ResultSet> rsFuture = Futures.transform(bsFuture, new AsyncFunction<BoundStatement, ResultSet>() {
             @Override
@@ -728,7 +965,7 @@ public class Mapper<T> {
      */
     public Result<T> map(ResultSet resultSet) {
         boolean useAlias = !manager.isCassandraV1 && isFromMapperQuery(resultSet);
-        return new Result<T>(resultSet, mapper, useAlias);
+        return new Result<T>(resultSet, this, useAlias);
     }
 
     /**
@@ -766,7 +1003,7 @@ public class Mapper<T> {
     public Result<T> mapAliased(ResultSet resultSet) {
         return (manager.isCassandraV1)
                 ? map(resultSet) // no aliases
-                : new Result<T>(resultSet, mapper, true);
+                : new Result<T>(resultSet, this, true);
     }
 
     /**
@@ -1219,4 +1456,110 @@ public class Mapper<T> {
             return Objects.hashCode(queryType, optionTypes, columns);
         }
     }
+
+    /**
+     * Executes a list of statements, keeping at most a given number of them in flight.
+     */
+    private class BulkSave implements FutureCallback<ResultSet> {
+        private final List<Statement> statements;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger remaining;
+        private final SettableFuture<Void> result = SettableFuture.create();
+
+        BulkSave(List<Statement> statements) {
+            this.statements = statements;
+            this.remaining = new AtomicInteger(statements.size());
+        }
+
+        ListenableFuture<Void> start(int maxConcurrentBatches) {
+            if (statements.isEmpty())
+                result.set(null);
+            else
+                for (int i = 0; i < Math.min(maxConcurrentBatches, statements.size()); i++)
+                    sendNext();
+            return result;
+        }
+
+        private void sendNext() {
+            int i = next.getAndIncrement();
+            if (i < statements.size())
+                Futures.addCallback(session().executeAsync(statements.get(i)), this);
+        }
+
+        @Override
+        public void onSuccess(ResultSet rs) {
+            if (remaining.decrementAndGet() == 0)
+                result.set(null);
+            else if (!result.isDone())
+                sendNext();
+        }
+
+        @Override
+        public void onFailure(Throwable t) {
+            result.setException(t);
+        }
+    }
+
+    /**
+     * A prepared save query along with, for each of its bind markers, the index of the bound
+     * column in {@code mapper.allColumns} and the codec to use for it (or {@code null} if none
+     * could be found upfront, in which case the lookup happens again at bind time).
+     */
+    private class SavePlan {
+        final PreparedStatement statement;
+        final int[] indexes;
+        final TypeCodec<Object>[] codecs;
+
+        @SuppressWarnings("unchecked")
+        SavePlan(PreparedStatement statement, int[] indexes) {
+            this.statement = statement;
+            this.indexes = indexes;
+            this.codecs = new TypeCodec[indexes.length];
+            ColumnDefinitions variables = statement.getVariables();
+            CodecRegistry codecRegistry = statement.getCodecRegistry();
+            for (int i = 0; i < indexes.length; i++) {
+                PropertyMapper col = mapper.allColumns.get(indexes[i]);
+                if (col.customCodec != null) {
+                    codecs[i] = col.customCodec;
+                } else {
+                    try {
+                        codecs[i] = codecRegistry.codecFor(variables.getType(i), col.javaType);
+                    } catch (CodecNotFoundException e) {
+                        codecs[i] = null;
+                    }
+                }
+            }
+        }
+    }
+
+    private static class SaveQueryKey {
+        private final BitSet columns;
+        private final EnumSet<Option.Type> optionTypes;
+
+        SaveQueryKey(BitSet columns, EnumMap<Option.Type, Option> options) {
+            this.columns = columns;
+            this.optionTypes = EnumSet.noneOf(Option.Type.class);
+            for (Option opt : options.values()) {
+                if (opt.isIncludedInQuery())
+                    this.optionTypes.add(opt.type);
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other)
+                return true;
+            if (other instanceof SaveQueryKey) {
+                SaveQueryKey that = (SaveQueryKey) other;
+                return this.columns.equals(that.columns)
+                        && this.optionTypes.equals(that.optionTypes);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(columns, optionTypes);
+        }
+    }
 }
@@ -49,6 +49,8 @@ class PropertyMapper {
     private final Field field;
     private final Method getter;
     private final Method setter;
+    private final Method readMethod;
+    private final Method writeMethod;
     private final Map<Class<? extends Annotation>, Annotation> annotations;
 
     PropertyMapper(Class<?> baseClass, String propertyName, String alias, Field field, PropertyDescriptor property) {
@@ -70,6 +72,11 @@ class PropertyMapper {
             checkArgument((field != null && field.isAccessible()) || (setter != null && setter.isAccessible()),
                     "Property '%s' is not writable", propertyName);
         }
+        // Decide once how the property is accessed: getter/setter first, if available, otherwise direct field access.
+        // Each read or write is still a reflective call (Method.invoke or Field.get/set), only the choice of member
+        // and the access checks are done once here.
+        readMethod = (getter != null && getter.isAccessible()) ? getter : null;
+        writeMethod = (setter != null && setter.isAccessible()) ? setter : null;
         columnName = inferColumnName();
         position = inferPosition();
         javaType = inferJavaType();
@@ -78,11 +85,7 @@ class PropertyMapper {
 
     Object getValue(Object entity) {
         try {
-            // try getter first, if available, otherwise direct field access
-            if (getter != null && getter.isAccessible())
-                return getter.invoke(entity);
-            else
-                return field.get(entity);
+            return (readMethod != null) ? readMethod.invoke(entity) : field.get(entity);
         } catch (Exception e) {
             throw new IllegalArgumentException("Unable to read property '" + propertyName + "' in " + entity.getClass(), e);
         }
@@ -90,9 +93,8 @@ class PropertyMapper {
 
     void setValue(Object entity, Object value) {
         try {
-            // try setter first, if available, otherwise direct field access
-            if (setter != null && setter.isAccessible())
-                setter.invoke(entity, value);
+            if (writeMethod != null)
+                writeMethod.invoke(entity, value);
             else
                 field.set(entity, value);
         } catch (Exception e) {
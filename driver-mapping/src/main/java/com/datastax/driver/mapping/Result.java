@@ -28,40 +28,83 @@ import java.util.*;
 public class Result<T> implements PagingIterable<Result<T>, T> {
 
     private final ResultSet rs;
-    private final EntityMapper<T> mapper;
+    private final Mapper<T> mapper;
     private final boolean useAlias;
 
-    Result(ResultSet rs, EntityMapper<T> mapper) {
-        this(rs, mapper, false);
-    }
+    // The plan for the column definitions of the last row that was mapped; all rows of a result set usually share
+    // the same definitions, so this saves a lookup in the mapper's plan cache for each row
+    private volatile MappingPlan plan;
 
-    Result(ResultSet rs, EntityMapper<T> mapper, boolean useAlias) {
+    Result(ResultSet rs, Mapper<T> mapper, boolean useAlias) {
         this.rs = rs;
         this.mapper = mapper;
         this.useAlias = useAlias;
     }
 
+    @SuppressWarnings("unchecked")
     private T map(Row row) {
-        T entity = mapper.newEntity();
-        for (PropertyMapper col : mapper.allColumns) {
-            String name = col.alias != null && this.useAlias ? col.alias : col.columnName;
-            if (!row.getColumnDefinitions().contains(name))
-                continue;
-
-            Object value;
-            TypeCodec<Object> customCodec = col.customCodec;
-            if (customCodec != null)
-                value = row.get(name, customCodec);
-            else
-                value = row.get(name, col.javaType);
-
+        MappingPlan plan = planFor(row.getColumnDefinitions());
+        T entity = (T) plan.entityMapper.newEntity();
+        for (int i = 0; i < plan.properties.length; i++) {
+            Object value = row.get(plan.indexes[i], plan.codecs[i]);
             if (shouldSetValue(value)) {
-                col.setValue(entity, value);
+                plan.properties[i].setValue(entity, value);
             }
         }
         return entity;
     }
 
+    private MappingPlan planFor(ColumnDefinitions definitions) {
+        MappingPlan plan = this.plan;
+        if (plan == null || plan.definitions != definitions) {
+            plan = mapper.mappingPlan(definitions, useAlias);
+            this.plan = plan;
+        }
+        return plan;
+    }
+
+    /**
+     * The properties that can be mapped from a given set of column definitions, with their column index and codec
+     * resolved.
+     * <p/>
+     * Plans are cached by {@link Mapper} for each {@code ColumnDefinitions} instance, so that they are shared by
+     * all the result sets of a given query.
+     */
+    static class MappingPlan {
+        final EntityMapper<?> entityMapper;
+        final ColumnDefinitions definitions;
+        final PropertyMapper[] properties;
+        final int[] indexes;
+        final TypeCodec<Object>[] codecs;
+
+        @SuppressWarnings("unchecked")
+        MappingPlan(EntityMapper<?> entityMapper, ColumnDefinitions definitions, boolean useAlias, CodecRegistry codecRegistry) {
+            this.entityMapper = entityMapper;
+            this.definitions = definitions;
+            List<PropertyMapper> properties = new ArrayList<PropertyMapper>(entityMapper.allColumns.size());
+            List<Integer> indexes = new ArrayList<Integer>(entityMapper.allColumns.size());
+            for (PropertyMapper col : entityMapper.allColumns) {
+                String name = col.alias != null && useAlias ? col.alias : col.columnName;
+                int index = definitions.getIndexOf(name);
+                if (index < 0)
+                    continue;
+                properties.add(col);
+                indexes.add(index);
+            }
+
+            this.properties = properties.toArray(new PropertyMapper[properties.size()]);
+            this.indexes = new int[this.properties.length];
+            this.codecs = new TypeCodec[this.properties.length];
+            for (int i = 0; i < this.properties.length; i++) {
+                PropertyMapper col = this.properties[i];
+                this.indexes[i] = indexes.get(i);
+                this.codecs[i] = (col.customCodec != null)
+                        ? col.customCodec
+                        : codecRegistry.codecFor(definitions.getType(this.indexes[i]), col.javaType);
+            }
+        }
+    }
+
     private static boolean shouldSetValue(Object value) {
         if (value == null)
             return false;
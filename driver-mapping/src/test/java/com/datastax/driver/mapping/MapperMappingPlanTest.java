@@ -0,0 +1,155 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.mapping;
+
+import com.datastax.driver.core.*;
+import com.datastax.driver.mapping.annotations.PartitionKey;
+import com.datastax.driver.mapping.annotations.Table;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings("unused")
+public class MapperMappingPlanTest {
+
+    private EntityMapper<User> entityMapper;
+    private Mapper<User> mapper;
+
+    @BeforeMethod(groups = "unit")
+    public void setup() {
+        MappingManager mappingManager = mock(MappingManager.class);
+        Session session = mock(Session.class);
+        when(mappingManager.getSession()).thenReturn(session);
+        Cluster cluster = mock(Cluster.class);
+        when(session.getCluster()).thenReturn(cluster);
+        Configuration configuration = mock(Configuration.class);
+        when(cluster.getConfiguration()).thenReturn(configuration);
+        when(configuration.getCodecRegistry()).thenReturn(new CodecRegistry());
+        Metadata metadata = mock(Metadata.class);
+        when(cluster.getMetadata()).thenReturn(metadata);
+        KeyspaceMetadata keyspace = mock(KeyspaceMetadata.class);
+        when(metadata.getKeyspace(anyString())).thenReturn(keyspace);
+        TableMetadata table = mock(TableMetadata.class);
+        when(keyspace.getTable(anyString())).thenReturn(table);
+        ColumnMetadata column = mock(ColumnMetadata.class);
+        when(table.getColumn(anyString())).thenReturn(column);
+
+        entityMapper = AnnotationParser.parseEntity(User.class, mappingManager);
+        mapper = new Mapper<User>(mappingManager, User.class, entityMapper);
+    }
+
+    @Test(groups = "unit")
+    public void should_reuse_plan_for_same_column_definitions() {
+        ColumnDefinitions definitions = userDefinitions();
+
+        Result.MappingPlan plan = mapper.mappingPlan(definitions, false);
+
+        assertThat(plan.definitions).isSameAs(definitions);
+        assertThat(plan.properties).hasSize(2);
+        assertThat(mapper.mappingPlan(definitions, false)).isSameAs(plan);
+    }
+
+    @Test(groups = "unit")
+    public void should_build_new_plan_for_other_column_definitions() {
+        ColumnDefinitions definitions1 = userDefinitions();
+        ColumnDefinitions definitions2 = userDefinitions();
+
+        Result.MappingPlan plan1 = mapper.mappingPlan(definitions1, false);
+        Result.MappingPlan plan2 = mapper.mappingPlan(definitions2, false);
+
+        assertThat(plan2).isNotSameAs(plan1);
+        assertThat(plan2.definitions).isSameAs(definitions2);
+    }
+
+    @Test(groups = "unit")
+    public void should_cache_aliased_and_non_aliased_plans_separately() {
+        ColumnDefinitions definitions = mock(ColumnDefinitions.class);
+        when(definitions.getIndexOf(anyString())).thenReturn(-1);
+        for (int i = 0; i < entityMapper.allColumns.size(); i++) {
+            PropertyMapper col = entityMapper.allColumns.get(i);
+            when(definitions.getIndexOf(col.alias)).thenReturn(i);
+            when(definitions.getType(i)).thenReturn(col.columnName.equals("name") ? DataType.text() : DataType.cint());
+        }
+
+        Result.MappingPlan plan = mapper.mappingPlan(definitions, false);
+        Result.MappingPlan aliasedPlan = mapper.mappingPlan(definitions, true);
+
+        assertThat(plan.properties).isEmpty();
+        assertThat(aliasedPlan.properties).hasSize(2);
+        assertThat(mapper.mappingPlan(definitions, true)).isSameAs(aliasedPlan);
+        assertThat(mapper.mappingPlan(definitions, false)).isSameAs(plan);
+    }
+
+    @Test(groups = "unit")
+    public void should_share_plan_across_results_with_same_column_definitions() {
+        ColumnDefinitions definitions = userDefinitions();
+
+        mapResultSet(definitions, "user1");
+        Result.MappingPlan plan = mapper.mappingPlan(definitions, false);
+        User user = mapResultSet(definitions, "user2");
+
+        assertThat(user.getName()).isEqualTo("user2");
+        assertThat(mapper.mappingPlan(definitions, false)).isSameAs(plan);
+        // the plan's codecs were resolved once, when it was built
+        verify(definitions, times(2)).getType(anyInt());
+    }
+
+    private User mapResultSet(ColumnDefinitions definitions, String name) {
+        Row row = mock(Row.class);
+        when(row.getColumnDefinitions()).thenReturn(definitions);
+        when(row.get(eq(0), any(TypeCodec.class))).thenReturn(name);
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.one()).thenReturn(row);
+        ExecutionInfo executionInfo = mock(ExecutionInfo.class);
+        when(rs.getExecutionInfo()).thenReturn(executionInfo);
+        return mapper.map(rs).one();
+    }
+
+    private static ColumnDefinitions userDefinitions() {
+        ColumnDefinitions definitions = mock(ColumnDefinitions.class);
+        when(definitions.getIndexOf(anyString())).thenReturn(-1);
+        when(definitions.getIndexOf("name")).thenReturn(0);
+        when(definitions.getIndexOf("age")).thenReturn(1);
+        when(definitions.getType(0)).thenReturn(DataType.text());
+        when(definitions.getType(1)).thenReturn(DataType.cint());
+        return definitions;
+    }
+
+    @Table(name = "users", keyspace = "ks")
+    public static class User {
+        @PartitionKey
+        private String name;
+        private int age;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public void setAge(int age) {
+            this.age = age;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.mapping;
+
+import com.datastax.driver.core.CCMTestsSupport;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.mapping.Mapper.Option;
+import com.datastax.driver.mapping.annotations.ClusteringColumn;
+import com.datastax.driver.mapping.annotations.PartitionKey;
+import com.datastax.driver.mapping.annotations.Table;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SuppressWarnings("unused")
+public class MapperSaveAllTest extends CCMTestsSupport {
+
+    Mapper<Event> mapper;
+
+    @Override
+    public void onTestContextInitialized() {
+        execute("CREATE TABLE event (source text, seq int, payload text, PRIMARY KEY (source, seq))");
+    }
+
+    @BeforeMethod(groups = "short")
+    public void setup() {
+        execute("TRUNCATE event");
+        mapper = new MappingManager(session()).mapper(Event.class);
+    }
+
+    @Test(groups = "short")
+    void should_save_all_entities() {
+        mapper.setMaxBatchSize(3);
+        mapper.setMaxConcurrentBatches(2);
+        List<Event> events = new ArrayList<Event>();
+        // 4 partitions of various sizes, interleaved
+        for (int seq = 0; seq < 10; seq++)
+            for (int source = 0; source <= seq % 4; source++)
+                events.add(new Event("source" + source, seq, "payload" + seq));
+
+        mapper.saveAll(events);
+
+        assertThat(session().execute("SELECT count(*) FROM event").one().getLong(0)).isEqualTo(events.size());
+        for (Event event : events)
+            assertThat(mapper.get(event.getSource(), event.getSeq()).getPayload()).isEqualTo(event.getPayload());
+    }
+
+    @Test(groups = "short")
+    void should_apply_options_to_all_entities() {
+        List<Event> events = new ArrayList<Event>();
+        for (int seq = 0; seq < 5; seq++)
+            events.add(new Event("source", seq, "payload"));
+
+        mapper.saveAll(events, Option.ttl(3600));
+
+        for (Row row : session().execute("SELECT ttl(payload) FROM event"))
+            assertThat(row.getInt(0)).isGreaterThan(0);
+    }
+
+    @Test(groups = "short")
+    void should_complete_immediately_when_no_entities() throws Exception {
+        assertThat(mapper.saveAllAsync(Collections.<Event>emptyList()).get()).isNull();
+    }
+
+    @Table(name = "event")
+    public static class Event {
+        @PartitionKey
+        private String source;
+        @ClusteringColumn
+        private int seq;
+        private String payload;
+
+        public Event() {
+        }
+
+        public Event(String source, int seq, String payload) {
+            this.source = source;
+            this.seq = seq;
+            this.payload = payload;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public void setSource(String source) {
+            this.source = source;
+        }
+
+        public int getSeq() {
+            return seq;
+        }
+
+        public void setSeq(int seq) {
+            this.seq = seq;
+        }
+
+        public String getPayload() {
+            return payload;
+        }
+
+        public void setPayload(String payload) {
+            this.payload = payload;
+        }
+    }
+}
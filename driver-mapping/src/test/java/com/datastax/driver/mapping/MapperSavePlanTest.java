@@ -0,0 +1,189 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.mapping;
+
+import com.datastax.driver.core.*;
+import com.datastax.driver.mapping.annotations.PartitionKey;
+import com.datastax.driver.mapping.annotations.Table;
+import com.google.common.util.concurrent.Futures;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.datastax.driver.mapping.Mapper.Option.saveNullFields;
+import static com.datastax.driver.mapping.Mapper.Option.ttl;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings("unused")
+public class MapperSavePlanTest {
+
+    private final CodecRegistry codecRegistry = new CodecRegistry();
+    private List<String> preparedQueries;
+    private Mapper<User> mapper;
+
+    @BeforeMethod(groups = "unit")
+    public void setup() {
+        preparedQueries = new ArrayList<String>();
+
+        MappingManager mappingManager = mock(MappingManager.class);
+        Session session = mock(Session.class);
+        when(mappingManager.getSession()).thenReturn(session);
+        Cluster cluster = mock(Cluster.class);
+        when(session.getCluster()).thenReturn(cluster);
+        Metadata metadata = mock(Metadata.class);
+        when(cluster.getMetadata()).thenReturn(metadata);
+        KeyspaceMetadata keyspace = mock(KeyspaceMetadata.class);
+        when(metadata.getKeyspace(anyString())).thenReturn(keyspace);
+        when(keyspace.getName()).thenReturn("ks");
+        TableMetadata table = mock(TableMetadata.class);
+        when(keyspace.getTable(anyString())).thenReturn(table);
+        when(table.getKeyspace()).thenReturn(keyspace);
+        when(table.getName()).thenReturn("users");
+        ColumnMetadata column = mock(ColumnMetadata.class);
+        when(table.getColumn(anyString())).thenReturn(column);
+
+        when(session.prepareAsync(any(RegularStatement.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                String query = ((RegularStatement) invocation.getArguments()[0]).getQueryString();
+                preparedQueries.add(query);
+                return Futures.immediateFuture(prepared(query));
+            }
+        });
+
+        EntityMapper<User> entityMapper = AnnotationParser.parseEntity(User.class, mappingManager);
+        mapper = new Mapper<User>(mappingManager, User.class, entityMapper);
+    }
+
+    @Test(groups = "unit")
+    public void should_use_different_statements_for_different_null_patterns() {
+        BoundStatement withAge = (BoundStatement) mapper.saveQuery(new User("foo", 42), saveNullFields(false));
+        BoundStatement withoutAge = (BoundStatement) mapper.saveQuery(new User("foo", null), saveNullFields(false));
+
+        assertThat(withAge.preparedStatement()).isNotSameAs(withoutAge.preparedStatement());
+        assertThat(withAge.preparedStatement().getQueryString()).contains("age");
+        assertThat(withoutAge.preparedStatement().getQueryString()).doesNotContain("age");
+        assertThat(withAge.getInt(1)).isEqualTo(42);
+        assertThat(preparedQueries).hasSize(2);
+    }
+
+    @Test(groups = "unit")
+    public void should_save_null_fields_with_the_full_statement_by_default() {
+        BoundStatement withAge = (BoundStatement) mapper.saveQuery(new User("foo", 42));
+        BoundStatement withoutAge = (BoundStatement) mapper.saveQuery(new User("bar", null));
+
+        assertThat(withoutAge.preparedStatement()).isSameAs(withAge.preparedStatement());
+        assertThat(withoutAge.isNull(1)).isTrue();
+        assertThat(preparedQueries).hasSize(1);
+    }
+
+    @Test(groups = "unit")
+    public void should_use_different_statements_for_different_options() {
+        BoundStatement noTtl = (BoundStatement) mapper.saveQuery(new User("foo", 42));
+        BoundStatement withTtl = (BoundStatement) mapper.saveQuery(new User("foo", 42), ttl(10));
+        BoundStatement withOtherTtl = (BoundStatement) mapper.saveQuery(new User("foo", 42), ttl(20));
+
+        assertThat(withTtl.preparedStatement()).isNotSameAs(noTtl.preparedStatement());
+        assertThat(withTtl.preparedStatement().getQueryString()).contains("USING TTL ?");
+        // the TTL value is bound, so it does not change the statement
+        assertThat(withOtherTtl.preparedStatement()).isSameAs(withTtl.preparedStatement());
+        assertThat(withTtl.getInt(2)).isEqualTo(10);
+        assertThat(withOtherTtl.getInt(2)).isEqualTo(20);
+        assertThat(preparedQueries).hasSize(2);
+    }
+
+    @Test(groups = "unit")
+    public void should_reuse_plan_for_repeated_null_pattern() {
+        BoundStatement first = (BoundStatement) mapper.saveQuery(new User("foo", null), saveNullFields(false));
+        BoundStatement second = (BoundStatement) mapper.saveQuery(new User("bar", null), saveNullFields(false));
+
+        assertThat(second.preparedStatement()).isSameAs(first.preparedStatement());
+        assertThat(first.getString(0)).isEqualTo("foo");
+        assertThat(second.getString(0)).isEqualTo("bar");
+        assertThat(preparedQueries).hasSize(1);
+    }
+
+    /**
+     * A prepared statement whose variables are the bind markers of an INSERT query built by the mapper: the
+     * inserted columns, in order, followed by the TTL if any.
+     */
+    private PreparedStatement prepared(String query) {
+        String columns = query.substring(query.indexOf('(') + 1, query.indexOf(')'));
+        final List<DataType> types = new ArrayList<DataType>();
+        for (String name : columns.split(","))
+            types.add(name.trim().equals("name") ? DataType.text() : DataType.cint());
+        if (query.contains("USING TTL"))
+            types.add(DataType.cint());
+
+        ColumnDefinitions variables = mock(ColumnDefinitions.class);
+        when(variables.size()).thenReturn(types.size());
+        when(variables.getType(anyInt())).thenAnswer(new Answer<DataType>() {
+            @Override
+            public DataType answer(InvocationOnMock invocation) throws Throwable {
+                return types.get((Integer) invocation.getArguments()[0]);
+            }
+        });
+
+        final PreparedStatement statement = mock(PreparedStatement.class);
+        when(statement.getQueryString()).thenReturn(query);
+        when(statement.getVariables()).thenReturn(variables);
+        when(statement.getPreparedId()).thenReturn(mock(PreparedId.class));
+        when(statement.getCodecRegistry()).thenReturn(codecRegistry);
+        when(statement.bind()).thenAnswer(new Answer<BoundStatement>() {
+            @Override
+            public BoundStatement answer(InvocationOnMock invocation) throws Throwable {
+                return new BoundStatement(statement);
+            }
+        });
+        return statement;
+    }
+
+    @Table(name = "users", keyspace = "ks")
+    public static class User {
+        @PartitionKey
+        private String name;
+        private Integer age;
+
+        public User() {
+        }
+
+        public User(String name, Integer age) {
+            this.name = name;
+            this.age = age;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Integer getAge() {
+            return age;
+        }
+
+        public void setAge(Integer age) {
+            this.age = age;
+        }
+    }
+}
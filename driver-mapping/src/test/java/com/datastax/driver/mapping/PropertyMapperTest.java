@@ -0,0 +1,96 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.mapping;
+
+import org.testng.annotations.Test;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Field;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+@SuppressWarnings("unused")
+public class PropertyMapperTest {
+
+    @Test(groups = "unit")
+    public void should_access_property_through_getter_and_setter_when_available() {
+        PropertyMapper mapper = propertyMapper(WithAccessors.class, "name");
+        WithAccessors entity = new WithAccessors();
+
+        mapper.setValue(entity, "foo");
+        assertThat(entity.name).isEqualTo("set:foo");
+        assertThat(mapper.getValue(entity)).isEqualTo("get:set:foo");
+    }
+
+    @Test(groups = "unit")
+    public void should_access_property_through_field_when_no_accessors() {
+        PropertyMapper mapper = propertyMapper(WithoutAccessors.class, "name");
+        WithoutAccessors entity = new WithoutAccessors();
+
+        mapper.setValue(entity, "foo");
+        assertThat(entity.name).isEqualTo("foo");
+        assertThat(mapper.getValue(entity)).isEqualTo("foo");
+    }
+
+    @Test(groups = "unit")
+    public void should_wrap_accessor_failures() {
+        PropertyMapper mapper = propertyMapper(Failing.class, "name");
+        try {
+            mapper.getValue(new Failing());
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage()).contains("Unable to read property 'name'");
+            assertThat(e.getCause().getCause()).hasMessage("boom");
+        }
+    }
+
+    private static PropertyMapper propertyMapper(Class<?> clazz, String propertyName) {
+        Map<String, Object[]> fieldsAndProperties = ReflectionUtils.scanFieldsAndProperties(clazz);
+        Object[] fieldAndProperty = fieldsAndProperties.get(propertyName);
+        return new PropertyMapper(clazz, propertyName, null,
+                (Field) fieldAndProperty[0], (PropertyDescriptor) fieldAndProperty[1]);
+    }
+
+    static class WithAccessors {
+        private String name;
+
+        public String getName() {
+            return "get:" + name;
+        }
+
+        public void setName(String name) {
+            this.name = "set:" + name;
+        }
+    }
+
+    static class WithoutAccessors {
+        private String name;
+    }
+
+    static class Failing {
+        private String name;
+
+        public String getName() {
+            throw new IllegalStateException("boom");
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
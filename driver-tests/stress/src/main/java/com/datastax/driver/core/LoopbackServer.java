@@ -0,0 +1,474 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.*;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A minimal native protocol server that runs in the same JVM as the driver, and answers requests
+ * with canned or synthetic results instead of executing them.
+ * <p/>
+ * This is meant to measure the driver's own throughput (pooling, encoding, decoding...) without
+ * a Cassandra cluster; it does not store anything. In particular:
+ * <ul>
+ * <li>queries on {@code system.local} return a single node owning the whole ring, and other
+ * system tables are empty (so the schema metadata will be empty);</li>
+ * <li>other {@code SELECT} queries return {@link #setRowsPerSelect(int) a fixed number} of rows
+ * of random data;</li>
+ * <li>any other query, as well as batches, return a VOID result;</li>
+ * <li>every table is assumed to have the layout of the stress tool's table: a {@code key bigint}
+ * primary key and {@code blob} columns. This is used to type the bind variables of prepared
+ * statements and the columns of {@code SELECT} results.</li>
+ * </ul>
+ * Compression and authentication are not supported.
+ */
+public class LoopbackServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoopbackServer.class);
+
+    private static final String KEYSPACE = "loopback";
+    private static final String TABLE = "synthetic";
+
+    private static final Message.Request.Type[] REQUEST_TYPES = new Message.Request.Type[16];
+
+    static {
+        for (Message.Request.Type type : Message.Request.Type.values())
+            REQUEST_TYPES[type.opcode] = type;
+    }
+
+    // Result kinds and metadata flags, see the native protocol specification
+    private static final int VOID = 1, ROWS = 2, SET_KEYSPACE = 3, PREPARED = 4;
+    private static final int GLOBAL_TABLES_SPEC = 0x0001, NO_METADATA = 0x0004;
+
+    // Error codes
+    private static final int PROTOCOL_ERROR = 0x000A, UNPREPARED = 0x2500;
+
+    private static final Pattern USE = Pattern.compile("\\s*USE\\s+\"?(\\w+)\"?\\s*;?\\s*", Pattern.CASE_INSENSITIVE);
+    private static final Pattern INSERT_COLUMNS = Pattern.compile("\\s*INSERT\\s+INTO\\s+[\\w.\"]+\\s*\\(([^)]*)\\)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern RELATION = Pattern.compile("\"?(\\w+)\"?\\s*(=|<=|>=|<|>|\\bIN\\b)\\s*$", Pattern.CASE_INSENSITIVE);
+
+    private final InetSocketAddress address;
+    private final Frame.Encoder frameEncoder = new Frame.Encoder();
+    private final ConcurrentMap<ByteBuffer, PreparedQuery> preparedQueries = new ConcurrentHashMap<ByteBuffer, PreparedQuery>();
+    private final UUID hostId = UUID.randomUUID();
+    private final UUID schemaVersion = UUID.randomUUID();
+
+    private volatile long latencyNanos;
+    private volatile int rowsPerSelect = 1;
+    private volatile int columnsPerRow = 5;
+    private volatile int valueSize = 34;
+
+    private EventLoopGroup eventLoopGroup;
+    private Channel serverChannel;
+    private ByteBuf selectRows;
+
+    /**
+     * Creates a new server. It won't accept connections until {@link #start()} is called.
+     *
+     * @param address the address to listen on.
+     */
+    public LoopbackServer(InetSocketAddress address) {
+        this.address = address;
+    }
+
+    /**
+     * Sets the delay before each response is sent.
+     *
+     * @param latency the delay.
+     * @param unit    the unit of {@code latency}.
+     * @return this server.
+     */
+    public LoopbackServer setLatency(long latency, TimeUnit unit) {
+        this.latencyNanos = unit.toNanos(latency);
+        return this;
+    }
+
+    /**
+     * Sets the number of rows returned by {@code SELECT} queries on non-system tables.
+     * This must be called before {@link #start()}.
+     *
+     * @param rowsPerSelect the number of rows.
+     * @return this server.
+     */
+    public LoopbackServer setRowsPerSelect(int rowsPerSelect) {
+        this.rowsPerSelect = rowsPerSelect;
+        return this;
+    }
+
+    /**
+     * Sets the number of blob columns (in addition to the key) of rows returned by {@code SELECT}
+     * queries on non-system tables, and the size of each value.
+     * This must be called before {@link #start()}.
+     *
+     * @param columnsPerRow the number of blob columns.
+     * @param valueSize     the size in bytes of each blob value.
+     * @return this server.
+     */
+    public LoopbackServer setColumns(int columnsPerRow, int valueSize) {
+        this.columnsPerRow = columnsPerRow;
+        this.valueSize = valueSize;
+        return this;
+    }
+
+    /**
+     * Starts accepting connections.
+     *
+     * @throws InterruptedException if interrupted while binding.
+     */
+    public void start() throws InterruptedException {
+        // SELECT results don't depend on the query, so they are encoded once and shared
+        selectRows = Unpooled.unreleasableBuffer(encodeSelectRows());
+        eventLoopGroup = new NioEventLoopGroup();
+        serverChannel = new ServerBootstrap()
+                .group(eventLoopGroup)
+                .channel(NioServerSocketChannel.class)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel channel) throws Exception {
+                        channel.pipeline()
+                                .addLast("frameDecoder", new RequestFrameDecoder())
+                                .addLast("frameEncoder", frameEncoder)
+                                .addLast("responder", new Responder());
+                    }
+                })
+                .bind(address).sync().channel();
+        logger.info("Loopback server listening on {}", address);
+    }
+
+    /**
+     * Closes all connections and stops listening.
+     */
+    public void stop() {
+        if (serverChannel != null)
+            serverChannel.close().syncUninterruptibly();
+        if (eventLoopGroup != null)
+            eventLoopGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    /**
+     * Splits the incoming bytes into request frames. We can't reuse {@link Frame.Decoder}, since it
+     * only accepts response opcodes.
+     */
+    private static class RequestFrameDecoder extends ByteToMessageDecoder {
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf buffer, List<Object> out) throws Exception {
+            if (buffer.readableBytes() < 1)
+                return;
+            ProtocolVersion version = ProtocolVersion.fromInt(buffer.getByte(buffer.readerIndex()) & 0x7F);
+            int headerLength = Frame.Header.lengthFor(version);
+            if (buffer.readableBytes() < headerLength)
+                return;
+            int bodyLength = buffer.getInt(buffer.readerIndex() + headerLength - 4);
+            if (buffer.readableBytes() < headerLength + bodyLength)
+                return;
+
+            buffer.skipBytes(1);
+            int flags = buffer.readByte();
+            int streamId = headerLength == 9 ? buffer.readShort() : buffer.readByte();
+            int opcode = buffer.readByte();
+            buffer.skipBytes(4);
+            ByteBuf body = buffer.readSlice(bodyLength).retain();
+            out.add(Frame.create(version, opcode, streamId, Frame.Header.Flag.deserialize(flags), body));
+        }
+    }
+
+    private class Responder extends SimpleChannelInboundHandler<Frame> {
+
+        @Override
+        protected void channelRead0(final ChannelHandlerContext ctx, Frame request) throws Exception {
+            final Frame response;
+            try {
+                response = respond(request);
+            } finally {
+                request.body.release();
+            }
+            long latencyNanos = LoopbackServer.this.latencyNanos;
+            if (latencyNanos > 0) {
+                ctx.executor().schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        ctx.writeAndFlush(response);
+                    }
+                }, latencyNanos, TimeUnit.NANOSECONDS);
+            } else {
+                // flushed once all the requests of the current read have been handled
+                ctx.write(response);
+            }
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+            ctx.flush();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+            logger.warn("Unexpected error, closing connection", cause);
+            ctx.close();
+        }
+    }
+
+    private Frame respond(Frame request) {
+        ProtocolVersion version = request.header.version;
+        int opcode = request.header.opcode;
+        Message.Request.Type type = opcode < REQUEST_TYPES.length ? REQUEST_TYPES[opcode] : null;
+        ByteBuf body = Unpooled.buffer();
+        Message.Response.Type responseType = Message.Response.Type.RESULT;
+        if (type == null) {
+            responseType = error(PROTOCOL_ERROR, "Unknown opcode " + opcode, body);
+        } else {
+            switch (type) {
+                case STARTUP:
+                case REGISTER:
+                    responseType = Message.Response.Type.READY;
+                    break;
+                case OPTIONS:
+                    CBUtil.writeStringToStringListMap(ImmutableMap.<String, List<String>>of(
+                            "CQL_VERSION", ImmutableList.of("3.4.0"),
+                            "COMPRESSION", Collections.<String>emptyList()), body);
+                    responseType = Message.Response.Type.SUPPORTED;
+                    break;
+                case QUERY:
+                    return query(request, CBUtil.readLongString(request.body), body);
+                case PREPARE:
+                    prepare(CBUtil.readLongString(request.body), version, body);
+                    break;
+                case EXECUTE:
+                    byte[] id = CBUtil.readBytes(request.body);
+                    PreparedQuery prepared = preparedQueries.get(ByteBuffer.wrap(id));
+                    if (prepared == null) {
+                        responseType = error(UNPREPARED, "Unknown prepared statement", body);
+                        CBUtil.writeBytes(id, body);
+                    } else if (prepared.isSelect) {
+                        body.release();
+                        return response(request, Message.Response.Type.RESULT, selectRows.duplicate());
+                    } else {
+                        body.writeInt(VOID);
+                    }
+                    break;
+                case BATCH:
+                    body.writeInt(VOID);
+                    break;
+                default:
+                    responseType = error(PROTOCOL_ERROR, "Unsupported request " + type, body);
+            }
+        }
+        return response(request, responseType, body);
+    }
+
+    private Frame query(Frame request, String query, ByteBuf body) {
+        String normalized = query.trim().toLowerCase();
+        Matcher use = USE.matcher(query);
+        if (use.matches()) {
+            body.writeInt(SET_KEYSPACE);
+            CBUtil.writeString(use.group(1), body);
+        } else if (normalized.startsWith("select")) {
+            if (normalized.contains("system.local")) {
+                encodeLocalRow(request.header.version, body);
+            } else if (normalized.contains(" system.") || normalized.contains(" system_schema.")) {
+                // other system tables: peers (single node cluster) and schema (no keyspaces)
+                body.writeInt(ROWS);
+                body.writeInt(0);
+                body.writeInt(0);
+                body.writeInt(0);
+            } else {
+                body.release();
+                return response(request, Message.Response.Type.RESULT, selectRows.duplicate());
+            }
+        } else {
+            body.writeInt(VOID);
+        }
+        return response(request, Message.Response.Type.RESULT, body);
+    }
+
+    private void prepare(String query, ProtocolVersion version, ByteBuf body) {
+        byte[] id = md5(query);
+        boolean isSelect = query.trim().toLowerCase().startsWith("select");
+        List<String> variables = variableNames(query);
+        preparedQueries.putIfAbsent(ByteBuffer.wrap(id), new PreparedQuery(isSelect));
+
+        body.writeInt(PREPARED);
+        CBUtil.writeBytes(id, body);
+
+        // variables metadata
+        body.writeInt(GLOBAL_TABLES_SPEC);
+        body.writeInt(variables.size());
+        if (version.compareTo(ProtocolVersion.V4) >= 0) {
+            int keyIndex = variables.indexOf("key");
+            if (keyIndex < 0) {
+                body.writeInt(0);
+            } else {
+                body.writeInt(1);
+                body.writeShort(keyIndex);
+            }
+        }
+        CBUtil.writeString(KEYSPACE, body);
+        CBUtil.writeString(TABLE, body);
+        for (String variable : variables)
+            writeColumn(variable, variable.equals("key") ? DataType.Name.BIGINT : DataType.Name.BLOB, body);
+
+        // result metadata
+        if (version.compareTo(ProtocolVersion.V2) >= 0) {
+            if (isSelect) {
+                encodeSelectMetadata(body);
+            } else {
+                body.writeInt(NO_METADATA);
+                body.writeInt(0);
+            }
+        }
+    }
+
+    /**
+     * Guesses the names of the bind variables of a query: the columns of an INSERT, or otherwise
+     * the left operand of each relation that has a bind marker on the right.
+     */
+    private static List<String> variableNames(String query) {
+        List<String> names = new ArrayList<String>();
+        Matcher insert = INSERT_COLUMNS.matcher(query);
+        if (insert.lookingAt()) {
+            for (String column : insert.group(1).split(","))
+                names.add(column.trim().replace("\"", "").toLowerCase());
+            return names;
+        }
+        for (int i = query.indexOf('?'); i >= 0; i = query.indexOf('?', i + 1)) {
+            Matcher relation = RELATION.matcher(query.substring(0, i));
+            names.add(relation.find() ? relation.group(1).toLowerCase() : "arg" + names.size());
+        }
+        return names;
+    }
+
+    private void encodeLocalRow(ProtocolVersion version, ByteBuf body) {
+        body.writeInt(ROWS);
+        body.writeInt(GLOBAL_TABLES_SPEC);
+        body.writeInt(12);
+        CBUtil.writeString("system", body);
+        CBUtil.writeString("local", body);
+        writeColumn("key", DataType.Name.VARCHAR, body);
+        writeColumn("cluster_name", DataType.Name.VARCHAR, body);
+        writeColumn("data_center", DataType.Name.VARCHAR, body);
+        writeColumn("rack", DataType.Name.VARCHAR, body);
+        writeColumn("release_version", DataType.Name.VARCHAR, body);
+        writeColumn("partitioner", DataType.Name.VARCHAR, body);
+        CBUtil.writeString("tokens", body);
+        body.writeShort(DataType.Name.SET.protocolId);
+        body.writeShort(DataType.Name.VARCHAR.protocolId);
+        writeColumn("host_id", DataType.Name.UUID, body);
+        writeColumn("schema_version", DataType.Name.UUID, body);
+        writeColumn("broadcast_address", DataType.Name.INET, body);
+        writeColumn("listen_address", DataType.Name.INET, body);
+        writeColumn("rpc_address", DataType.Name.INET, body);
+
+        body.writeInt(1);
+        CBUtil.writeValue(TypeCodec.varchar().serialize("local", version), body);
+        CBUtil.writeValue(TypeCodec.varchar().serialize("Loopback Cluster", version), body);
+        CBUtil.writeValue(TypeCodec.varchar().serialize("dc1", version), body);
+        CBUtil.writeValue(TypeCodec.varchar().serialize("rack1", version), body);
+        CBUtil.writeValue(TypeCodec.varchar().serialize("3.0.0", version), body);
+        CBUtil.writeValue(TypeCodec.varchar().serialize("org.apache.cassandra.dht.Murmur3Partitioner", version), body);
+        CBUtil.writeValue(TypeCodec.set(TypeCodec.varchar()).serialize(ImmutableSet.of("0"), version), body);
+        CBUtil.writeValue(TypeCodec.uuid().serialize(hostId, version), body);
+        CBUtil.writeValue(TypeCodec.uuid().serialize(schemaVersion, version), body);
+        for (int i = 0; i < 3; i++)
+            CBUtil.writeValue(TypeCodec.inet().serialize(address.getAddress(), version), body);
+    }
+
+    private ByteBuf encodeSelectRows() {
+        ByteBuf body = Unpooled.buffer();
+        body.writeInt(ROWS);
+        encodeSelectMetadata(body);
+        body.writeInt(rowsPerSelect);
+        Random random = new Random();
+        // bigint and blob have the same encoding in all protocol versions
+        ProtocolVersion version = ProtocolVersion.NEWEST_SUPPORTED;
+        for (int row = 0; row < rowsPerSelect; row++) {
+            CBUtil.writeValue(TypeCodec.bigint().serialize((long) row, version), body);
+            for (int column = 0; column < columnsPerRow; column++) {
+                byte[] value = new byte[valueSize];
+                random.nextBytes(value);
+                CBUtil.writeValue(value, body);
+            }
+        }
+        return body;
+    }
+
+    private void encodeSelectMetadata(ByteBuf body) {
+        body.writeInt(GLOBAL_TABLES_SPEC);
+        body.writeInt(columnsPerRow + 1);
+        CBUtil.writeString(KEYSPACE, body);
+        CBUtil.writeString(TABLE, body);
+        writeColumn("key", DataType.Name.BIGINT, body);
+        for (int i = 0; i < columnsPerRow; i++)
+            writeColumn("c" + i, DataType.Name.BLOB, body);
+    }
+
+    private static void writeColumn(String name, DataType.Name type, ByteBuf body) {
+        CBUtil.writeString(name, body);
+        body.writeShort(type.protocolId);
+    }
+
+    private static Message.Response.Type error(int code, String message, ByteBuf body) {
+        body.writeInt(code);
+        CBUtil.writeString(message, body);
+        return Message.Response.Type.ERROR;
+    }
+
+    private static Frame response(Frame request, Message.Response.Type type, ByteBuf body) {
+        return Frame.create(request.header.version, type.opcode, request.header.streamId,
+                EnumSet.noneOf(Frame.Header.Flag.class), body);
+    }
+
+    private static byte[] md5(String query) {
+        try {
+            return MessageDigest.getInstance("MD5").digest(query.getBytes("UTF-8"));
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        } catch (java.io.UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static class PreparedQuery {
+        final boolean isSelect;
+
+        PreparedQuery(boolean isSelect) {
+            this.isSelect = isSelect;
+        }
+    }
+}
@@ -224,4 +224,62 @@ public class Generators {
             };
         }
     };
+
+    public static final QueryGenerator.Builder MIXED = new QueryGenerator.Builder() {
+
+        @Override
+        public String name() {
+            return "mixed";
+        }
+
+        @Override
+        public OptionParser addOptions(OptionParser parser) {
+            INSERTER.addOptions(parser);
+            READER.addOptions(parser);
+            // Set the help last, the generators above set their own
+            String msg = "A mix of the queries of the insert and read generators (using prepared statements unless the --no-prepare option is used). "
+                    + "Each request is a read with probability --read-ratio, and a write otherwise. Reads only target rows already "
+                    + "written by the same generator.";
+            parser.formatHelpWith(Stress.Help.formatFor(name(), msg));
+
+            parser.accepts("read-ratio", "The proportion of reads, between 0 and 1").withRequiredArg().ofType(Double.class).defaultsTo(0.5);
+            return parser;
+        }
+
+        @Override
+        public void prepare(OptionSet options, Session session) {
+            INSERTER.prepare(options, session);
+            READER.prepare(options, session);
+        }
+
+        @Override
+        public QueryGenerator create(int id, int iterations, OptionSet options, Session session) {
+            // The write generator can produce all the iterations, we stop based on our own count
+            final QueryGenerator writes = INSERTER.create(id, iterations, options, session);
+            final PreparedStatement readStmt = options.has("no-prepare")
+                    ? null
+                    : session.prepare("SELECT * FROM standard1 WHERE key = ?");
+            final double readRatio = (Double) options.valueOf("read-ratio");
+            final long prefix = (long) id << 32;
+
+            return new AbstractGenerator(iterations) {
+                @Override
+                public QueryGenerator.Request next() {
+                    ++iteration;
+                    // The write generator uses the keys prefix | 0 to prefix | (written - 1), in order. Read one of
+                    // them at random, and write until there is something to read.
+                    int written = writes.currentIteration();
+                    if (written == 0 || random.get().nextDouble() >= readRatio)
+                        return writes.next();
+
+                    long key = prefix | random.get().nextInt(written);
+                    if (readStmt == null)
+                        return new QueryGenerator.Request.SimpleQuery(new SimpleStatement("SELECT * FROM standard1 WHERE key = " + key));
+                    BoundStatement bs = readStmt.bind();
+                    bs.setLong("key", key);
+                    return new QueryGenerator.Request.PreparedQuery(bs);
+                }
+            };
+        }
+    };
 }
@@ -0,0 +1,111 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.stress;
+
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Session;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A consumer that sends requests according to a {@link RateSchedule}, whether or not previous
+ * requests have completed (as opposed to {@link AsynchronousConsumer} and {@link BlockingConsumer},
+ * which wait for a response before sending the next request).
+ * <p/>
+ * Latencies are measured from the time at which each request should have been sent according to
+ * the schedule, not the time at which it was actually sent. Otherwise, any stall in the client
+ * (full connection pool, GC pause...) would delay the following requests and hide their waiting
+ * time from the measurements (a.k.a. "coordinated omission").
+ */
+public class OpenLoopConsumer implements Consumer {
+
+    private final Session session;
+    private final QueryGenerator requests;
+    private final Reporter reporter;
+    private final RateSchedule schedule;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final Thread sender;
+
+    public OpenLoopConsumer(Session session,
+                            QueryGenerator requests,
+                            Reporter reporter,
+                            RateSchedule schedule,
+                            int maxInFlight) {
+        this.session = session;
+        this.requests = requests;
+        this.reporter = reporter;
+        this.schedule = schedule;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.sender = new Thread("Open loop sender") {
+            @Override
+            public void run() {
+                send();
+            }
+        };
+        this.sender.setDaemon(true);
+    }
+
+    @Override
+    public void start() {
+        sender.start();
+    }
+
+    @Override
+    public void join() {
+        Uninterruptibles.joinUninterruptibly(sender);
+    }
+
+    private void send() {
+        RateSchedule.Ticker ticker = schedule.newTicker();
+        long start = System.nanoTime();
+        while (requests.hasNext()) {
+            long offset = ticker.next();
+            if (offset < 0)
+                break;
+            long intendedStart = start + offset;
+            long wait;
+            while ((wait = intendedStart - System.nanoTime()) > 0)
+                LockSupport.parkNanos(wait);
+
+            // If too many requests are in flight, this blocks the schedule, but since latencies are
+            // measured from the intended start the wait is still accounted for.
+            inFlight.acquireUninterruptibly();
+            final Reporter.Context ctx = reporter.newRequest(intendedStart);
+            Futures.addCallback(requests.next().executeAsync(session), new FutureCallback<ResultSet>() {
+                @Override
+                public void onSuccess(ResultSet result) {
+                    ctx.done();
+                    inFlight.release();
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    System.err.println("Error during request: " + t);
+                    ctx.done();
+                    inFlight.release();
+                }
+            });
+        }
+        // Wait for the last responses
+        inFlight.acquireUninterruptibly(maxInFlight);
+    }
+}
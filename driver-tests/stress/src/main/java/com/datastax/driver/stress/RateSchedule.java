@@ -0,0 +1,141 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.stress;
+
+import joptsimple.ValueConverter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A sequence of phases, each with a target request rate and an optional duration.
+ * <p/>
+ * The textual form is a comma-separated list of {@code <ops/s>[:<seconds>]}; only the last phase
+ * may omit its duration, in which case it lasts until the requests are exhausted. For example,
+ * {@code 1000:30,5000:30,10000} runs at 1000 ops/s for 30 seconds, then at 5000 ops/s for 30
+ * seconds, then at 10000 ops/s.
+ */
+public class RateSchedule {
+
+    private final List<Phase> phases;
+
+    private RateSchedule(List<Phase> phases) {
+        this.phases = phases;
+    }
+
+    public static RateSchedule parse(String value) {
+        List<Phase> phases = new ArrayList<Phase>();
+        String[] specs = value.split(",");
+        for (int i = 0; i < specs.length; i++) {
+            String[] parts = specs[i].trim().split(":");
+            try {
+                double rate = Double.parseDouble(parts[0]);
+                if (rate <= 0)
+                    throw new IllegalArgumentException("Rate must be strictly positive in " + specs[i]);
+                long durationNanos;
+                if (parts.length == 1) {
+                    if (i < specs.length - 1)
+                        throw new IllegalArgumentException("Only the last phase may omit its duration, in " + value);
+                    durationNanos = -1;
+                } else {
+                    durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(parts[1]));
+                }
+                phases.add(new Phase(rate, durationNanos));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid rate schedule " + value, e);
+            }
+        }
+        return new RateSchedule(Collections.unmodifiableList(phases));
+    }
+
+    /**
+     * Returns a new iterator over the intended send times of the requests.
+     */
+    public Ticker newTicker() {
+        return new Ticker();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Phase phase : phases) {
+            if (sb.length() > 0)
+                sb.append(", then ");
+            sb.append(String.format("%.0f ops/s", phase.rate));
+            if (phase.durationNanos >= 0)
+                sb.append(" for ").append(TimeUnit.NANOSECONDS.toSeconds(phase.durationNanos)).append(" s");
+        }
+        return sb.toString();
+    }
+
+    private static class Phase {
+        final double rate;
+        final long durationNanos;
+
+        Phase(double rate, long durationNanos) {
+            this.rate = rate;
+            this.durationNanos = durationNanos;
+        }
+    }
+
+    /**
+     * Computes the intended send time of each successive request. Not thread-safe.
+     */
+    public class Ticker {
+        private int phaseIndex;
+        private long phaseStart;
+        private long count;
+
+        /**
+         * Returns the intended send time of the next request, in nanoseconds relative to the start
+         * of the schedule, or -1 if the schedule is over.
+         */
+        public long next() {
+            while (phaseIndex < phases.size()) {
+                Phase phase = phases.get(phaseIndex);
+                long offset = (long) (count * 1e9 / phase.rate);
+                if (phase.durationNanos < 0 || offset < phase.durationNanos) {
+                    count += 1;
+                    return phaseStart + offset;
+                }
+                phaseStart += phase.durationNanos;
+                phaseIndex += 1;
+                count = 0;
+            }
+            return -1;
+        }
+    }
+
+    public static class Converter implements ValueConverter<RateSchedule> {
+
+        @Override
+        public RateSchedule convert(String value) {
+            return RateSchedule.parse(value);
+        }
+
+        @Override
+        public Class<RateSchedule> valueType() {
+            return RateSchedule.class;
+        }
+
+        @Override
+        public String valuePattern() {
+            return "<ops/s>[:<seconds>][,...]";
+        }
+    }
+}
@@ -18,10 +18,13 @@ package com.datastax.driver.stress;
 import com.yammer.metrics.Metrics;
 import com.yammer.metrics.core.Meter;
 import com.yammer.metrics.core.Timer;
-import com.yammer.metrics.core.TimerContext;
 import com.yammer.metrics.stats.Snapshot;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
@@ -32,12 +35,22 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 public class Reporter implements Runnable {
 
+    // Latencies above this are recorded as this value in the HdrHistogram
+    private static final long HIGHEST_TRACKABLE_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
     private Meter requests;
     private Timer latencies;
 
     public Meter requestsMiddle;
     public Timer latenciesMiddle;
 
+    // Same latencies as the timers, but with an exact distribution (Metrics' timers sample values)
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_LATENCY_MICROS, 3);
+    private final Histogram accumulatedHistogram = new Histogram(HIGHEST_TRACKABLE_LATENCY_MICROS, 3);
+    private Histogram intervalHistogram;
+    private final File hdrLogFile;
+    private HistogramLogWriter hdrLog;
+
     private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
 
     private final File csvFile;
@@ -62,13 +75,22 @@ public class Reporter implements Runnable {
     private int tickSinceLastConsoleReport;
 
     public Reporter(int consoleReportPeriod, String csvFileName, String[] args, int iterations) {
-        this(1, consoleReportPeriod, new File(csvFileName), formatHeader(args), iterations);
+        this(consoleReportPeriod, csvFileName, null, args, iterations);
+    }
+
+    /**
+     * @param hdrLogFileName if not null, the file in which to log an HdrHistogram of the latencies
+     *                       for each reporting interval (see {@link HistogramLogWriter}).
+     */
+    public Reporter(int consoleReportPeriod, String csvFileName, String hdrLogFileName, String[] args, int iterations) {
+        this(1, consoleReportPeriod, new File(csvFileName), hdrLogFileName == null ? null : new File(hdrLogFileName), formatHeader(args), iterations);
     }
 
-    private Reporter(int csvPeriod, int consolePeriod, File csvFile, String header, int iterations) {
+    private Reporter(int csvPeriod, int consolePeriod, File csvFile, File hdrLogFile, String header, int iterations) {
         this.period = csvPeriod;
         this.consoleReportPeriod = consolePeriod / csvPeriod;
         this.csvFile = csvFile;
+        this.hdrLogFile = hdrLogFile;
         this.header = header;
         this.iterations = iterations;
 
@@ -92,11 +114,23 @@ public class Reporter implements Runnable {
         this.startTime = System.currentTimeMillis();
         initConsole();
         initCSV();
+        initHdrLog();
 
         this.executor.scheduleAtFixedRate(this, period, period, TimeUnit.SECONDS);
     }
 
     public Context newRequest() {
+        return newRequest(System.nanoTime());
+    }
+
+    /**
+     * Starts measuring a request.
+     *
+     * @param startNanos the time (as returned by {@link System#nanoTime()}) from which to measure the
+     *                   latency of the request. For open-loop tests, this is the time at which the
+     *                   request was supposed to be sent, which might be earlier than the current time.
+     */
+    public Context newRequest(long startNanos) {
         int iteration = requestsDone.getAndIncrement();
         if (iteration >= middleLowBound) {
             if (latenciesMiddle == null) {
@@ -111,12 +145,12 @@ public class Reporter implements Runnable {
                 if (meanMiddleRate < 0)
                     meanMiddleRate = requestsMiddle.meanRate();
 
-                return new Context(this, latencies.time(), null);
+                return new Context(this, startNanos, false);
             } else {
-                return new Context(this, latencies.time(), latenciesMiddle.time());
+                return new Context(this, startNanos, true);
             }
         } else {
-            return new Context(this, latencies.time(), null);
+            return new Context(this, startNanos, false);
         }
     }
 
@@ -128,6 +162,7 @@ public class Reporter implements Runnable {
         Report lastReport = new Report(tstamp, elapsed, requests, latencies, lastOpCount);
 
         stopCSV(lastReport);
+        reportToHdrLog();
         stopConsole(lastReport);
     }
 
@@ -144,9 +179,32 @@ public class Reporter implements Runnable {
         lastOpCount = report.totalOps;
 
         reportToCSV(report);
+        reportToHdrLog();
         reportToConsole(report);
     }
 
+    private void initHdrLog() {
+        if (hdrLogFile == null)
+            return;
+        try {
+            hdrLog = new HistogramLogWriter(hdrLogFile);
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException("Error creating histogram log file " + hdrLogFile, e);
+        }
+        hdrLog.outputComment(header);
+        hdrLog.outputLogFormatVersion();
+        hdrLog.outputStartTime(startTime);
+        hdrLog.setBaseTime(startTime);
+        hdrLog.outputLegend();
+    }
+
+    private synchronized void reportToHdrLog() {
+        intervalHistogram = recorder.getIntervalHistogram(intervalHistogram);
+        accumulatedHistogram.add(intervalHistogram);
+        if (hdrLog != null)
+            hdrLog.outputIntervalHistogram(intervalHistogram);
+    }
+
     private void initCSV() {
         if (csvFile.exists())
             if (!csvFile.delete())
@@ -213,6 +271,12 @@ public class Reporter implements Runnable {
     private void stopConsole(Report lastReport) {
         printReportToConsole(lastReport);
 
+        System.out.println();
+        System.out.println("Latency distribution of all requests:");
+        for (double percentile : new double[]{50, 90, 99, 99.9, 99.99})
+            System.out.println(String.format("  %-28s %10.3f", percentile + "th percentile (ms):", accumulatedHistogram.getValueAtPercentile(percentile) / 1000.0));
+        System.out.println(String.format("  %-28s %10.3f", "Max (ms):", accumulatedHistogram.getMaxValue() / 1000.0));
+
         if (latenciesMiddle == null)
             return;
 
@@ -260,20 +324,22 @@ public class Reporter implements Runnable {
 
     public static class Context {
         private final Reporter reporter;
-        private final TimerContext context;
-        private final TimerContext contextMiddle;
+        private final long startNanos;
+        private final boolean middle;
 
-        private Context(Reporter reporter, TimerContext context, TimerContext contextMiddle) {
+        private Context(Reporter reporter, long startNanos, boolean middle) {
             this.reporter = reporter;
-            this.context = context;
-            this.contextMiddle = contextMiddle;
+            this.startNanos = startNanos;
+            this.middle = middle;
         }
 
         public void done() {
-            context.stop();
+            long latencyNanos = System.nanoTime() - startNanos;
+            reporter.latencies.update(latencyNanos, TimeUnit.NANOSECONDS);
             reporter.requests.mark();
-            if (contextMiddle != null) {
-                contextMiddle.stop();
+            reporter.recorder.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_LATENCY_MICROS));
+            if (middle) {
+                reporter.latenciesMiddle.update(latencyNanos, TimeUnit.NANOSECONDS);
                 reporter.requestsMiddle.mark();
             }
         }
@@ -21,9 +21,11 @@ import joptsimple.*;
 import org.apache.log4j.PropertyConfigurator;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A simple stress tool to demonstrate the use of the driver.
@@ -41,7 +43,8 @@ public class Stress {
 
         QueryGenerator.Builder[] gs = new QueryGenerator.Builder[]{
                 Generators.INSERTER,
-                Generators.READER
+                Generators.READER,
+                Generators.MIXED
         };
 
         for (QueryGenerator.Builder b : gs)
@@ -54,8 +57,17 @@ public class Stress {
             accepts("n", "Number of requests to perform (default: unlimited)").withRequiredArg().ofType(Integer.class);
             accepts("t", "Level of concurrency to use").withRequiredArg().ofType(Integer.class).defaultsTo(50);
             accepts("async", "Make asynchronous requests instead of blocking ones");
+            accepts("rate", "Send requests at a target rate (open loop), regardless of response times. Concurrency (-t) and --async are then ignored. "
+                    + "The value is a comma-separated list of <ops/s>[:<seconds>] phases, for example 1000:30,5000")
+                    .withRequiredArg().withValuesConvertedBy(new RateSchedule.Converter());
+            accepts("max-in-flight", "With --rate, the maximum number of concurrent requests; beyond that, sending is delayed (and the delay counted in latencies)")
+                    .withRequiredArg().ofType(Integer.class).defaultsTo(1024);
             accepts("ip", "The hosts ip to connect to").withRequiredArg().ofType(String.class).defaultsTo("127.0.0.1");
+            accepts("port", "The native protocol port to connect to").withRequiredArg().ofType(Integer.class).defaultsTo(9042);
+            accepts("loopback", "Start an in-process server on <ip>:<port> that answers with synthetic results, and stress it instead of a Cassandra cluster");
+            accepts("loopback-latency", "With --loopback, the delay in microseconds before the server answers each request").withRequiredArg().ofType(Integer.class).defaultsTo(0);
             accepts("report-file", "The name of csv file to use for reporting results").withRequiredArg().ofType(String.class).defaultsTo("last.csv");
+            accepts("hdr-log", "The name of a file in which to log an HdrHistogram of latencies for each second").withRequiredArg().ofType(String.class);
             accepts("print-delay", "The delay in seconds at which to report on the console").withRequiredArg().ofType(Integer.class).defaultsTo(5);
             accepts("compression", "Use compression (SNAPPY)");
             accepts("connections-per-host", "The number of connections per hosts (default: based on the number of threads)").withRequiredArg().ofType(Integer.class);
@@ -205,16 +217,26 @@ public class Stress {
         String reportFileName = (String) options.valueOf("report-file");
 
         boolean async = options.has("async");
+        RateSchedule rateSchedule = (RateSchedule) options.valueOf("rate");
+        boolean loopback = options.has("loopback");
+        if (loopback && options.has("compression")) {
+            System.err.println("Compression is not supported with --loopback");
+            System.exit(1);
+        }
 
+        // In open loop, a single consumer sends all the requests, the concurrency is bounded by max-in-flight
+        int maxInFlight = rateSchedule == null ? concurrency : (Integer) options.valueOf("max-in-flight");
+        if (rateSchedule != null)
+            concurrency = 1;
         int iterations = (requests == -1 ? -1 : requests / concurrency);
 
         final int maxRequestsPerConnection = 128;
         int maxConnections = options.has("connections-per-host")
                 ? (Integer) options.valueOf("connections-per-host")
-                : concurrency / maxRequestsPerConnection + 1;
+                : maxInFlight / maxRequestsPerConnection + 1;
 
         PoolingOptions pools = new PoolingOptions();
-        pools.setNewConnectionThreshold(HostDistance.LOCAL, concurrency);
+        pools.setNewConnectionThreshold(HostDistance.LOCAL, maxInFlight);
         pools.setCoreConnectionsPerHost(HostDistance.LOCAL, maxConnections);
         pools.setMaxConnectionsPerHost(HostDistance.LOCAL, maxConnections);
         pools.setCoreConnectionsPerHost(HostDistance.REMOTE, maxConnections);
@@ -222,16 +244,31 @@ public class Stress {
 
         System.out.println("Initializing stress test:");
         System.out.println("  request count:        " + (requests == -1 ? "unlimited" : requests));
-        System.out.println("  concurrency:          " + concurrency + " (" + iterations + " requests/thread)");
-        System.out.println("  mode:                 " + (async ? "asynchronous" : "blocking"));
+        if (rateSchedule == null) {
+            System.out.println("  concurrency:          " + concurrency + " (" + iterations + " requests/thread)");
+            System.out.println("  mode:                 " + (async ? "asynchronous" : "blocking"));
+        } else {
+            System.out.println("  mode:                 open loop, " + rateSchedule);
+            System.out.println("  max in flight:        " + maxInFlight);
+        }
         System.out.println("  per-host connections: " + maxConnections);
         System.out.println("  compression:          " + options.has("compression"));
         System.out.println("  consistency-level:    " + consistencyLevel.name());
+        if (loopback)
+            System.out.println("  loopback latency:     " + options.valueOf("loopback-latency") + " us");
 
         try {
+            if (loopback) {
+                LoopbackServer server = new LoopbackServer(new InetSocketAddress(
+                        String.valueOf(options.valueOf("ip")), (Integer) options.valueOf("port")));
+                server.setLatency((Integer) options.valueOf("loopback-latency"), TimeUnit.MICROSECONDS);
+                server.start();
+            }
+
             // Create session to hosts
             Cluster cluster = new Cluster.Builder()
                     .addContactPoints(String.valueOf(options.valueOf("ip")))
+                    .withPort((Integer) options.valueOf("port"))
                     .withPoolingOptions(pools)
                     .withSocketOptions(new SocketOptions().setTcpNoDelay(true))
                     .withQueryOptions(new QueryOptions().setConsistencyLevel(consistencyLevel))
@@ -245,16 +282,24 @@ public class Stress {
             Metadata metadata = cluster.getMetadata();
             System.out.println(String.format("Connected to cluster '%s' on %s.", metadata.getClusterName(), metadata.getAllHosts()));
 
-            System.out.println("Preparing test...");
-            stresser.prepare(session);
+            if (loopback) {
+                // the loopback server doesn't keep a schema, so there's nothing to prepare
+                System.out.println("Skipping test preparation (loopback server)");
+            } else {
+                System.out.println("Preparing test...");
+                stresser.prepare(session);
+            }
 
-            Reporter reporter = new Reporter((Integer) options.valueOf("print-delay"), reportFileName, args, requests);
+            Reporter reporter = new Reporter((Integer) options.valueOf("print-delay"), reportFileName, (String) options.valueOf("hdr-log"), args, requests);
 
             Consumer[] consumers = new Consumer[concurrency];
             for (int i = 0; i < concurrency; i++) {
                 QueryGenerator generator = stresser.newGenerator(i, session, iterations);
-                consumers[i] = async ? new AsynchronousConsumer(session, generator, reporter) :
-                        new BlockingConsumer(session, generator, reporter);
+                if (rateSchedule != null)
+                    consumers[i] = new OpenLoopConsumer(session, generator, reporter, rateSchedule, maxInFlight);
+                else
+                    consumers[i] = async ? new AsynchronousConsumer(session, generator, reporter) :
+                            new BlockingConsumer(session, generator, reporter);
             }
 
             System.out.println("Starting to stress test...");